@@ -0,0 +1,154 @@
+import java.util.Arrays;
+
+import components.set.Set;
+
+/**
+ * Immutable set of separator characters, built once and then shared by all the
+ * tokenizing code. ASCII separators are looked up in a table and any other
+ * separators in a sorted array of code points, so checking a character never
+ * allocates or boxes.
+ *
+ * @author Nyja Gowda
+ *
+ */
+public final class SeparatorSet {
+
+    /**
+     * Number of code points covered by the lookup table.
+     */
+    private static final int ASCII_LIMIT = 128;
+
+    /**
+     * Lookup table for the ASCII separators, indexed by character.
+     */
+    private final boolean[] ascii = new boolean[ASCII_LIMIT];
+
+    /**
+     * The non-ASCII separators, as sorted code points without duplicates.
+     */
+    private final int[] others;
+
+    /**
+     * Constructor from a string holding every separator.
+     *
+     * @param separators
+     *            string whose characters are the separators
+     * @requires separators!=NULL
+     */
+    public SeparatorSet(String separators) {
+        assert separators != null : "Violation of: separators is not null";
+        this.others = this.fill(separators.codePoints().toArray());
+    }
+
+    /**
+     * Constructor from a set of separator characters.
+     *
+     * @param separators
+     *            set of characters that contains all separators
+     * @requires separators!=NULL
+     */
+    public SeparatorSet(Set<Character> separators) {
+        assert separators != null : "Violation of: separators is not null";
+        int[] codePoints = new int[separators.size()];
+        int i = 0;
+        for (char c : separators) {
+            codePoints[i] = c;
+            i++;
+        }
+        this.others = this.fill(codePoints);
+    }
+
+    /**
+     * Puts the ASCII code points in the lookup table and returns the others.
+     *
+     * @param codePoints
+     *            the separators
+     * @return the non-ASCII separators, sorted and without duplicates
+     */
+    private int[] fill(int[] codePoints) {
+        int[] rest = new int[codePoints.length];
+        int count = 0;
+        for (int cp : codePoints) {
+            if (cp < ASCII_LIMIT) {
+                this.ascii[cp] = true;
+            } else {
+                rest[count] = cp;
+                count++;
+            }
+        }
+        return Arrays.stream(rest, 0, count).sorted().distinct().toArray();
+    }
+
+    /**
+     * Reports whether the code point {@code codePoint} is a separator.
+     *
+     * @param codePoint
+     *            the code point to check
+     * @return true iff codePoint is a separator
+     */
+    public boolean contains(int codePoint) {
+        if (codePoint < ASCII_LIMIT) {
+            return codePoint >= 0 && this.ascii[codePoint];
+        }
+        return this.others.length > 0
+                && Arrays.binarySearch(this.others, codePoint) >= 0;
+    }
+
+    /**
+     * Reports whether the character of {@code text} at {@code position} is a
+     * separator.
+     *
+     * @param text
+     *            the text
+     * @param position
+     *            index of the character in text
+     * @return true iff the code point at position is a separator
+     * @requires 0 <= position < |text|
+     */
+    public boolean isSeparatorAt(CharSequence text, int position) {
+        char c = text.charAt(position);
+        if (c < ASCII_LIMIT) {
+            return this.ascii[c];
+        }
+        return this.contains(Character.codePointAt(text, position));
+    }
+
+    /**
+     * Returns the end of the run of words characters, or of separators,
+     * starting at {@code position} in {@code text}.
+     *
+     * @param text
+     *            the text
+     * @param position
+     *            index where the run starts
+     * @return index one past the last character of the run
+     * @requires 0 <= position < |text|
+     * @ensures <pre>
+     * text[position, endOfRun) is made only of separators or only of
+     * non-separators, the same as text[position, position + 1), and
+     * endOfRun = |text| or text[endOfRun, endOfRun + 1) is not
+     * </pre>
+     */
+    public int endOfRun(CharSequence text, int position) {
+        boolean sep = this.isSeparatorAt(text, position);
+        int length = text.length();
+        int index = position;
+        while (index < length) {
+            char c = text.charAt(index);
+            if (c < ASCII_LIMIT) {
+                if (this.ascii[c] != sep) {
+                    break;
+                }
+                index++;
+            } else {
+                int cp = Character.codePointAt(text, index);
+                if (this.contains(cp) != sep) {
+                    break;
+                }
+                index += Character.charCount(cp);
+            }
+        }
+        return index;
+    }
+
+}
@@ -4,8 +4,6 @@ import components.map.Map;
 import components.map.Map1L;
 import components.queue.Queue;
 import components.queue.Queue1L;
-import components.set.Set;
-import components.set.Set1L;
 import components.simplereader.SimpleReader;
 import components.simplereader.SimpleReader1L;
 import components.simplewriter.SimpleWriter;
@@ -20,6 +18,12 @@ import components.simplewriter.SimpleWriter1L;
 public final class WordCounter {
     private static final String SEPARARTORS = " ,-.!?;:\n\t\r/";
 
+    /**
+     * SEPARARTORS as a lookup table, built once and shared by every line.
+     */
+    private static final SeparatorSet SEPARATOR_SET = new SeparatorSet(
+            SEPARARTORS);
+
     /**
      *
      * String comparator written to sort strings in alphabetical order.
@@ -47,19 +51,13 @@ public final class WordCounter {
     }
 
     private static String nextWordOrSeparator(String text, int position,
-            Set<Character> separators) {
+            SeparatorSet separators) {
         assert text != null : "Violation of: text is not null";
         assert separators != null : "Violation of: separators is not null";
         assert 0 <= position : "Violation of: 0 <= position";
         assert position < text.length() : "Violation of: position < |text|";
 
-        int index = position;
-        boolean sep = separators.contains(text.charAt(position)); //word sep
-        while (index < text.length()
-                && sep == separators.contains(text.charAt(index))) {
-            index++;
-        }
-        return text.substring(position, index);
+        return text.substring(position, separators.endOfRun(text, position));
 
     }
 
@@ -119,18 +117,32 @@ public final class WordCounter {
      * Put a short phrase describing the static method myMethod here.
      */
     private static void wordSeparator(String testStr, Queue<String> wordList) {
-        Set<Character> sep = new Set1L<>();
+        wordSeparator(testStr, wordList, SEPARATOR_SET);
+    }
 
-        for (int i = 0; i < SEPARARTORS.length(); i++) {
-            sep.add(SEPARARTORS.charAt(i));
-        }
+    /**
+     * Adds the words of testStr to wordList, with the separators given by the
+     * caller.
+     *
+     * @param testStr
+     *            a line of text from the input file.
+     * @param wordList
+     *            queue the words of testStr are added to, in order.
+     * @param separators
+     *            table of all separators.
+     */
+    private static void wordSeparator(String testStr, Queue<String> wordList,
+            SeparatorSet separators) {
         int position = 0;
         while (position < testStr.length()) {
-            String token = nextWordOrSeparator(testStr, position, sep);
-            if (!sep.contains(token.charAt(0))) {
+            if (separators.isSeparatorAt(testStr, position)) {
+                position = separators.endOfRun(testStr, position);
+            } else {
+                String token = nextWordOrSeparator(testStr, position,
+                        separators);
                 wordList.enqueue(token);
+                position += token.length();
             }
-            position += token.length();
         }
 
     }
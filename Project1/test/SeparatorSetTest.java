@@ -0,0 +1,107 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * JUnit test fixture for {@code SeparatorSet}.
+ */
+public class SeparatorSetTest {
+
+    /**
+     * A non-ASCII separator, U+00A0, no-break space.
+     */
+    private static final char NBSP = '\u00a0';
+
+    /**
+     * A supplementary character, U+1F600, as a surrogate pair.
+     */
+    private static final String EMOJI = "\ud83d\ude00";
+
+    /**
+     * Tests contains for ASCII and non-ASCII separators and non-separators.
+     */
+    @Test
+    public void testContains() {
+        SeparatorSet separators = new SeparatorSet(" ,." + NBSP + EMOJI);
+        assertTrue(separators.contains(' '));
+        assertTrue(separators.contains('.'));
+        assertTrue(separators.contains(NBSP));
+        assertTrue(separators.contains(EMOJI.codePointAt(0)));
+        assertFalse(separators.contains('a'));
+        assertFalse(separators.contains('\u00e9'));
+        assertFalse(separators.contains(EMOJI.charAt(0)));
+        assertFalse(separators.contains(-1));
+    }
+
+    /**
+     * Tests the constructor from a set of characters.
+     */
+    @Test
+    public void testConstructorFromSet() {
+        Set<Character> set = new Set1L<>();
+        set.add('!');
+        set.add(NBSP);
+        SeparatorSet separators = new SeparatorSet(set);
+        assertTrue(separators.contains('!'));
+        assertTrue(separators.contains(NBSP));
+        assertFalse(separators.contains('?'));
+        assertEquals(2, set.size());
+    }
+
+    /**
+     * Tests that an empty set has no separators.
+     */
+    @Test
+    public void testEmpty() {
+        SeparatorSet separators = new SeparatorSet("");
+        assertFalse(separators.contains(' '));
+        assertFalse(separators.contains(NBSP));
+        assertFalse(separators.isSeparatorAt("a b", 1));
+    }
+
+    /**
+     * Tests isSeparatorAt, including a separator made of a surrogate pair.
+     */
+    @Test
+    public void testIsSeparatorAt() {
+        SeparatorSet separators = new SeparatorSet(" " + EMOJI);
+        String text = "a b" + EMOJI + "c";
+        assertFalse(separators.isSeparatorAt(text, 0));
+        assertTrue(separators.isSeparatorAt(text, 1));
+        assertFalse(separators.isSeparatorAt(text, 2));
+        assertTrue(separators.isSeparatorAt(text, 3));
+        assertFalse(separators.isSeparatorAt(text, 5));
+    }
+
+    /**
+     * Tests endOfRun on runs of words and of separators.
+     */
+    @Test
+    public void testEndOfRun() {
+        SeparatorSet separators = new SeparatorSet(" ,!");
+        String text = "Hello, world!";
+        assertEquals(5, separators.endOfRun(text, 0));
+        assertEquals(5, separators.endOfRun(text, 1));
+        assertEquals(7, separators.endOfRun(text, 5));
+        assertEquals(12, separators.endOfRun(text, 7));
+        assertEquals(13, separators.endOfRun(text, 12));
+    }
+
+    /**
+     * Tests endOfRun across non-ASCII characters, which are never split.
+     */
+    @Test
+    public void testEndOfRunNonAscii() {
+        SeparatorSet separators = new SeparatorSet(" " + NBSP);
+        String text = "caf\u00e9" + EMOJI + NBSP + " x";
+        assertEquals(6, separators.endOfRun(text, 0));
+        assertEquals(8, separators.endOfRun(text, 6));
+        assertEquals(9, separators.endOfRun(text, 8));
+    }
+
+}
@@ -0,0 +1,535 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import components.sequence.Sequence;
+import components.sequence.Sequence1L;
+
+/**
+ * Benchmarks of {@code Sequence} implementations: {@code add}, {@code remove}
+ * and {@code entry} at the head, the tail, the middle, random positions,
+ * sequential positions and positions in a sliding window, and iteration,
+ * {@code flip} and {@code append}, for lengths from 10 to 10 million. The
+ * time and the bytes allocated per operation are written as a CSV table of
+ * scaling curves, one row per implementation, operation, access pattern and
+ * length, and as JSON in the layout of the JMH JSON result format.
+ *
+ * A case that takes longer than the time budget stops early and reports the
+ * operations done so far, and the longer lengths of that implementation,
+ * operation and pattern are skipped, so O(n) implementations do not stall the
+ * run at 10 million entries.
+ *
+ * Usage: {@code SequenceBenchmark [--impls Sequence3,Sequence4,...]
+ * [--ops add,remove,entry,iterate,flip,append] [--patterns
+ * head,tail,middle,random,sequential,sliding] [--sizes 10,100,...]
+ * [--batch 1000] [--warmup 2] [--iterations 5] [--budget-ms 2000]
+ * [--seed 42] [--csv curves.csv] [--out results.json]}
+ *
+ * {@code bench/run.sh} compiles the sources and this benchmark against the
+ * components jar named by {@code OSU_CSE_LIBRARY} and runs it.
+ *
+ * @author Nyja Gowda
+ *
+ */
+public final class SequenceBenchmark {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SequenceBenchmark() {
+    }
+
+    /**
+     * Width of the window of the sliding window pattern.
+     */
+    private static final int WINDOW = 1024;
+
+    /**
+     * Number of nanoseconds in a millisecond.
+     */
+    private static final long NANOS_PER_MILLI = 1_000_000;
+
+    /**
+     * Stack size of the thread running the benchmarks, in bytes.
+     */
+    private static final long STACK_SIZE = 1L << 31;
+
+    /**
+     * Values returned by the operations, kept so the JIT cannot drop them.
+     */
+    private static long sink;
+
+    /**
+     * Returns the implementations benchmarked, by name.
+     *
+     * @return the constructors of the implementations
+     */
+    private static Map<String, Supplier<Sequence<Integer>>> implementations() {
+        Map<String, Supplier<Sequence<Integer>>> impls = new LinkedHashMap<>();
+        impls.put("Sequence1L", Sequence1L::new);
+        impls.put("Sequence3", Sequence3::new);
+        impls.put("Sequence4", Sequence4::new);
+        impls.put("Sequence5", Sequence5::new);
+        impls.put("IntSequence", IntSequence::new);
+        impls.put("OffHeapSequence",
+                () -> new OffHeapSequence<>(RecordCodec.INT));
+        impls.put("VersionedSequence", VersionedSequence::new);
+        impls.put("ConcurrentSequence", ConcurrentSequence::new);
+        impls.put("AdaptiveSequence", AdaptiveSequence::new);
+        return impls;
+    }
+
+    /**
+     * Returns the position of the {@code i}th operation of a batch.
+     *
+     * @param pattern
+     *            the access pattern
+     * @param i
+     *            index of the operation in the batch
+     * @param bound
+     *            the position must be less than bound
+     * @param random
+     *            random numbers
+     * @return the position
+     * @requires bound > 0
+     */
+    private static int position(String pattern, int i, int bound,
+            Random random) {
+        int pos;
+        switch (pattern) {
+            case "head":
+                pos = 0;
+                break;
+            case "tail":
+                pos = bound - 1;
+                break;
+            case "middle":
+                pos = bound / 2;
+                break;
+            case "sequential":
+                pos = (bound / 3 + i) % bound;
+                break;
+            case "sliding":
+                int width = Math.min(WINDOW, bound);
+                int start = i % (bound - width + 1);
+                pos = start + random.nextInt(width);
+                break;
+            default:
+                pos = random.nextInt(bound);
+                break;
+        }
+        return pos;
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread, or
+     * -1 if the JVM cannot tell.
+     *
+     * @return allocated bytes
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory
+                .getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Result of one measured batch.
+     */
+    private static final class Batch {
+
+        /**
+         * Number of operations done.
+         */
+        private int operations;
+
+        /**
+         * Time taken in nanoseconds.
+         */
+        private long nanos;
+
+        /**
+         * Bytes allocated.
+         */
+        private long bytes;
+
+    }
+
+    /**
+     * Runs one batch of {@code op} on {@code s}, measured, then undoes it,
+     * not measured, so that s is back to its length for the next batch.
+     *
+     * @param s
+     *            the sequence
+     * @param op
+     *            the operation
+     * @param pattern
+     *            the access pattern of add, remove and entry
+     * @param batchSize
+     *            number of operations of the batch
+     * @param deadline
+     *            value of System.nanoTime() after which the batch stops
+     * @param random
+     *            random numbers
+     * @return the result
+     */
+    private static Batch runBatch(Sequence<Integer> s, String op,
+            String pattern, int batchSize, long deadline, Random random) {
+        Batch batch = new Batch();
+        int[] positions = new int[batchSize];
+        int[] values = new int[batchSize];
+        Sequence<Integer> other = s.newInstance();
+        if (op.equals("append")) {
+            for (int i = 0; i < batchSize; i++) {
+                other.add(i, i);
+            }
+        }
+        int n = s.length();
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        int done = 0;
+        switch (op) {
+            case "add":
+                while (done < batchSize && System.nanoTime() < deadline) {
+                    positions[done] = position(pattern, done, n + done + 1,
+                            random);
+                    s.add(positions[done], done);
+                    done++;
+                }
+                break;
+            case "remove":
+                while (done < batchSize && done < n
+                        && System.nanoTime() < deadline) {
+                    positions[done] = position(pattern, done, n - done,
+                            random);
+                    values[done] = s.remove(positions[done]);
+                    done++;
+                }
+                break;
+            case "entry":
+                while (done < batchSize && System.nanoTime() < deadline) {
+                    sink += s.entry(position(pattern, done, n, random));
+                    done++;
+                }
+                break;
+            case "iterate":
+                for (int x : s) {
+                    sink += x;
+                }
+                done = 1;
+                break;
+            case "flip":
+                s.flip();
+                done = 1;
+                break;
+            default:
+                s.append(other);
+                done = 1;
+                break;
+        }
+        batch.nanos = System.nanoTime() - start;
+        batch.bytes = allocatedBytes() - allocatedBefore;
+        batch.operations = done;
+
+        //undo, not measured
+        switch (op) {
+            case "add":
+                for (int i = done - 1; i >= 0; i--) {
+                    s.remove(positions[i]);
+                }
+                break;
+            case "remove":
+                for (int i = done - 1; i >= 0; i--) {
+                    s.add(positions[i], values[i]);
+                }
+                break;
+            case "append":
+                s.extract(n, s.length(), other);
+                break;
+            default:
+                break;
+        }
+        return batch;
+    }
+
+    /**
+     * Returns the mean of values.
+     *
+     * @param values
+     *            the values
+     * @return the mean
+     */
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double v : values) {
+            sum += v;
+        }
+        return sum / values.length;
+    }
+
+    /**
+     * Returns the half width of a 99.9% confidence interval of the mean of
+     * values, using the normal approximation.
+     *
+     * @param values
+     *            the values
+     * @return the error of the mean, NaN for fewer than two values
+     */
+    private static double error(double[] values) {
+        if (values.length < 2) {
+            return Double.NaN;
+        }
+        double m = mean(values);
+        double sum = 0;
+        for (double v : values) {
+            sum += (v - m) * (v - m);
+        }
+        final double z = 3.29;
+        return z * Math.sqrt(sum / (values.length - 1))
+                / Math.sqrt(values.length);
+    }
+
+    /**
+     * Returns values as a JSON array.
+     *
+     * @param values
+     *            the numbers
+     * @return the JSON array
+     */
+    private static String jsonArray(double[] values) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                json.append(", ");
+            }
+            json.append(String.format(Locale.ROOT, "%.3f", values[i]));
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * Main method. The benchmarks run on a thread with a large stack, since
+     * the secondary methods of the library, {@code flip} among them, recurse
+     * once per entry.
+     *
+     * @param args
+     *            the command line arguments
+     * @throws IOException
+     *             if the results cannot be written
+     * @throws InterruptedException
+     *             if interrupted while waiting for the benchmarks
+     */
+    public static void main(String[] args)
+            throws IOException, InterruptedException {
+        IOException[] failure = new IOException[1];
+        Thread runner = new Thread(null, () -> {
+            try {
+                run(args);
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        }, "SequenceBenchmark", STACK_SIZE);
+        runner.start();
+        runner.join();
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    /**
+     * Runs the benchmarks selected by args and writes the results.
+     *
+     * @param args
+     *            the command line arguments
+     * @throws IOException
+     *             if the results cannot be written
+     */
+    private static void run(String[] args) throws IOException {
+        Map<String, Supplier<Sequence<Integer>>> impls = implementations();
+        List<String> implNames = new ArrayList<>(impls.keySet());
+        List<String> ops = Arrays.asList("add", "remove", "entry", "iterate",
+                "flip", "append");
+        List<String> patterns = Arrays.asList("head", "tail", "middle",
+                "random", "sequential", "sliding");
+        List<Integer> sizes = Arrays.asList(10, 100, 1_000, 10_000, 100_000,
+                1_000_000, 10_000_000);
+        int batchSize = 1000;
+        int warmup = 2;
+        int iterations = 5;
+        long budgetNanos = 2000 * NANOS_PER_MILLI;
+        long seed = 42;
+        String csv = "curves.csv";
+        String out = "results.json";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--impls":
+                    implNames = Arrays.asList(value.split(","));
+                    break;
+                case "--ops":
+                    ops = Arrays.asList(value.split(","));
+                    break;
+                case "--patterns":
+                    patterns = Arrays.asList(value.split(","));
+                    break;
+                case "--sizes":
+                    sizes = new ArrayList<>();
+                    for (String size : value.split(",")) {
+                        sizes.add(Integer.parseInt(size.replace("_", "")));
+                    }
+                    break;
+                case "--batch":
+                    batchSize = Integer.parseInt(value);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(value);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(value);
+                    break;
+                case "--budget-ms":
+                    budgetNanos = Long.parseLong(value) * NANOS_PER_MILLI;
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--csv":
+                    csv = value;
+                    break;
+                case "--out":
+                    out = value;
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    break;
+            }
+        }
+
+        StringBuilder table = new StringBuilder(
+                "impl,op,pattern,n,ns_per_op,bytes_per_op,ops_measured\n");
+        StringBuilder json = new StringBuilder("[\n");
+        boolean first = true;
+        for (String implName : implNames) {
+            Supplier<Sequence<Integer>> impl = impls.get(implName);
+            if (impl == null) {
+                System.err.println("Unknown implementation " + implName);
+                continue;
+            }
+            for (String op : ops) {
+                boolean positional = op.equals("add") || op.equals("remove")
+                        || op.equals("entry");
+                List<String> opPatterns = positional ? patterns
+                        : Arrays.asList("-");
+                for (String pattern : opPatterns) {
+                    boolean tooSlow = false;
+                    for (int n : sizes) {
+                        String label = implName + "." + op + "." + pattern
+                                + " n=" + n;
+                        if (tooSlow) {
+                            System.out.println(label
+                                    + ": skipped, over budget at a smaller n");
+                            continue;
+                        }
+                        Random random = new Random(seed);
+                        Sequence<Integer> s = impl.get();
+                        for (int i = 0; i < n; i++) {
+                            s.add(i, i);
+                        }
+                        double[] nsPerOp = new double[iterations];
+                        double[] bytesPerOp = new double[iterations];
+                        long measuredOps = 0;
+                        long caseStart = System.nanoTime();
+                        for (int it = -warmup; it < iterations; it++) {
+                            Batch batch = runBatch(s, op, pattern, batchSize,
+                                    caseStart + budgetNanos, random);
+                            if (it >= 0) {
+                                int done = Math.max(1, batch.operations);
+                                nsPerOp[it] = (double) batch.nanos / done;
+                                bytesPerOp[it] = (double) batch.bytes / done;
+                                measuredOps += batch.operations;
+                            }
+                        }
+                        if (System.nanoTime() - caseStart > budgetNanos) {
+                            tooSlow = true;
+                        }
+                        if (s instanceof OffHeapSequence<?>) {
+                            ((OffHeapSequence<?>) s).close();
+                        }
+                        System.out.println(String.format(Locale.ROOT,
+                                "%s: %.1f ns/op, %.1f B/op", label,
+                                mean(nsPerOp), mean(bytesPerOp)));
+                        table.append(String.format(Locale.ROOT,
+                                "%s,%s,%s,%d,%.3f,%.3f,%d%n", implName, op,
+                                pattern, n, mean(nsPerOp), mean(bytesPerOp),
+                                measuredOps));
+
+                        if (!first) {
+                            json.append(",\n");
+                        }
+                        first = false;
+                        json.append("  {\n");
+                        json.append("    \"benchmark\": \"SequenceBenchmark.")
+                                .append(op).append("\",\n");
+                        json.append("    \"mode\": \"avgt\",\n");
+                        json.append("    \"threads\": 1,\n");
+                        json.append("    \"forks\": 0,\n");
+                        json.append("    \"warmupIterations\": ")
+                                .append(warmup).append(",\n");
+                        json.append("    \"measurementIterations\": ")
+                                .append(iterations).append(",\n");
+                        json.append("    \"params\": { \"impl\": \"")
+                                .append(implName).append("\", \"pattern\": \"")
+                                .append(pattern).append("\", \"n\": \"")
+                                .append(n).append("\" },\n");
+                        json.append("    \"primaryMetric\": {\n");
+                        json.append(String.format(Locale.ROOT,
+                                "      \"score\": %.3f,%n"
+                                        + "      \"scoreError\": %.3f,%n",
+                                mean(nsPerOp), error(nsPerOp))
+                                .replace("NaN", "null"));
+                        json.append("      \"scoreUnit\": \"ns/op\",\n");
+                        json.append("      \"rawData\": [ ")
+                                .append(jsonArray(nsPerOp)).append(" ]\n");
+                        json.append("    },\n");
+                        json.append("    \"secondaryMetrics\": {\n");
+                        json.append("      \"alloc.rate.norm\": {\n");
+                        json.append(String.format(Locale.ROOT,
+                                "        \"score\": %.3f,%n",
+                                mean(bytesPerOp)));
+                        json.append("        \"scoreUnit\": \"B/op\",\n");
+                        json.append("        \"rawData\": [ ")
+                                .append(jsonArray(bytesPerOp)).append(" ]\n");
+                        json.append("      }\n    }\n  }");
+                    }
+                }
+            }
+        }
+        json.append("\n]\n");
+        try (PrintWriter writer = new PrintWriter(Files
+                .newBufferedWriter(Paths.get(csv), StandardCharsets.UTF_8))) {
+            writer.print(table);
+        }
+        try (PrintWriter writer = new PrintWriter(Files
+                .newBufferedWriter(Paths.get(out), StandardCharsets.UTF_8))) {
+            writer.print(json);
+        }
+        System.out.println("curves written to " + csv + ", results to " + out
+                + " (" + sink + ")");
+    }
+
+}
@@ -0,0 +1,25 @@
+#!/bin/sh
+#
+# Compiles the sources and the benchmarks against the OSU CSE components
+# library and runs SequenceBenchmark, passing on every argument:
+#
+#   OSU_CSE_LIBRARY=/path/to/components.jar bench/run.sh --sizes 10,1000
+#
+# OSU_CSE_LIBRARY is the same variable the Eclipse project uses. JAVA_OPTS
+# is passed to the JVM, e.g. a larger -Xmx for the longest lengths. The
+# classes are compiled to a temporary directory, so bin is left alone.
+#
+set -e
+
+if [ -z "$OSU_CSE_LIBRARY" ] || [ ! -f "$OSU_CSE_LIBRARY" ]; then
+    echo "Set OSU_CSE_LIBRARY to the path of the components jar." >&2
+    exit 1
+fi
+
+project=$(cd "$(dirname "$0")/.." && pwd)
+classes=$(mktemp -d)
+trap 'rm -rf "$classes"' EXIT
+
+javac -d "$classes" -cp "$OSU_CSE_LIBRARY" \
+    "$project"/src/*.java "$project"/bench/*.java
+java $JAVA_OPTS -cp "$classes:$OSU_CSE_LIBRARY" SequenceBenchmark "$@"
@@ -0,0 +1,513 @@
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.sequence.Sequence;
+import components.sequence.SequenceSecondary;
+
+/**
+ * {@code Sequence} represented, like {@code Sequence3}, as the entries before
+ * and after a cursor, but kept in two double-ended queues in order instead of
+ * two stacks, so that both ends of each part can be reached directly. An
+ * operation at position {@code pos} then takes the cheapest of three routes:
+ * moving the cursor to pos, as {@code Sequence3} always does; walking in from
+ * the head of the left part; or walking in from the tail of the right part.
+ * The last two leave the cursor where it is, so accesses alternating between
+ * the two ends of the sequence cost O(1) instead of moving every entry across
+ * the cursor each time. When several operations in a row land near the same
+ * place far from the cursor, the cursor is parked there, so editing around
+ * one spot becomes O(1) per operation after the first. Counters report how
+ * many entries each operation moved.
+ *
+ * @param <T>
+ *            type of {@code Sequence} entries
+ * @correspondence this = $this.left * $this.right
+ */
+public class AdaptiveSequence<T> extends SequenceSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Largest distance between two positions considered near each other by
+     * the access tracker, and largest number of entries moved by walking in
+     * from an end that is never worth parking the cursor to avoid.
+     */
+    private static final int NEAR = 32;
+
+    /**
+     * Number of operations in a row near the same place, reached by walking
+     * in from an end, after which the cursor is parked there.
+     */
+    private static final int STREAK_TO_PARK = 2;
+
+    /**
+     * Entries before the cursor, in order.
+     */
+    private Deque<T> left;
+
+    /**
+     * Entries from the cursor on, in order.
+     */
+    private Deque<T> right;
+
+    /**
+     * Entries set aside while walking in from an end, always empty between
+     * operations.
+     */
+    private final Deque<T> aside = new ArrayDeque<>();
+
+    /**
+     * Position of the last operation that walked in from an end, or -1.
+     */
+    private int lastEndAccess;
+
+    /**
+     * Number of operations in a row near lastEndAccess.
+     */
+    private int streak;
+
+    /**
+     * Number of operations counted since the counters were reset.
+     */
+    private long operations;
+
+    /**
+     * Number of entries moved since the counters were reset.
+     */
+    private long moved;
+
+    /**
+     * Number of entries moved by the last operation.
+     */
+    private int movedByLast;
+
+    /**
+     * Moves the cursor to {@code pos}.
+     *
+     * @param pos
+     *            the new cursor position
+     * @updates this
+     * @requires 0 <= pos <= |this|
+     * @ensures this = #this and |$this.left| = pos
+     */
+    private void moveCursor(int pos) {
+        while (this.left.size() > pos) {
+            this.right.addFirst(this.left.removeLast());
+            this.movedByLast++;
+        }
+        while (this.left.size() < pos) {
+            this.left.addLast(this.right.removeFirst());
+            this.movedByLast++;
+        }
+    }
+
+    /**
+     * Sets aside the first {@code count} entries of {@code part}.
+     *
+     * @param part
+     *            the part, left or right
+     * @param count
+     *            number of entries set aside
+     * @param fromHead
+     *            whether they are taken from the head of part, or else from
+     *            its tail
+     */
+    private void setAside(Deque<T> part, int count, boolean fromHead) {
+        for (int i = 0; i < count; i++) {
+            if (fromHead) {
+                this.aside.push(part.removeFirst());
+            } else {
+                this.aside.push(part.removeLast());
+            }
+        }
+        this.movedByLast += count;
+    }
+
+    /**
+     * Puts back the entries set aside from {@code part}.
+     *
+     * @param part
+     *            the part they were taken from
+     * @param toHead
+     *            whether they were taken from the head of part, or else from
+     *            its tail
+     */
+    private void putBack(Deque<T> part, boolean toHead) {
+        this.movedByLast += this.aside.size();
+        while (!this.aside.isEmpty()) {
+            if (toHead) {
+                part.addFirst(this.aside.pop());
+            } else {
+                part.addLast(this.aside.pop());
+            }
+        }
+    }
+
+    /**
+     * Route taken by an operation at a position.
+     */
+    private enum Route {
+        /**
+         * The cursor is moved to the position.
+         */
+        CURSOR,
+        /**
+         * Entries are set aside from the head of the left part.
+         */
+        HEAD,
+        /**
+         * Entries are set aside from the tail of the right part.
+         */
+        TAIL
+    }
+
+    /**
+     * Returns the cheapest route to position {@code pos}, and records the
+     * access. Walking in from an end is chosen only while it is cheap or
+     * accesses do not keep landing near the same place.
+     *
+     * @param pos
+     *            the position
+     * @param length
+     *            the length of this
+     * @return the route
+     */
+    private Route route(int pos, int length) {
+        int cursor = this.left.size();
+        int cursorCost = Math.abs(pos - cursor);
+        Route route = Route.CURSOR;
+        //walking in from an end moves the entries set aside twice
+        int walkCost = cursorCost;
+        if (pos < cursor && 2 * pos < cursorCost) {
+            route = Route.HEAD;
+            walkCost = 2 * pos;
+        } else if (pos > cursor && 2 * (length - pos) < cursorCost) {
+            route = Route.TAIL;
+            walkCost = 2 * (length - pos);
+        }
+        if (route != Route.CURSOR && walkCost > NEAR) {
+            if (this.lastEndAccess >= 0
+                    && Math.abs(pos - this.lastEndAccess) <= NEAR) {
+                this.streak++;
+            } else {
+                this.streak = 0;
+            }
+            this.lastEndAccess = pos;
+            if (this.streak >= STREAK_TO_PARK) {
+                route = Route.CURSOR;
+                this.lastEndAccess = -1;
+                this.streak = 0;
+            }
+        }
+        return route;
+    }
+
+    /**
+     * Updates the counters at the end of an operation.
+     */
+    private void count() {
+        this.operations++;
+        this.moved += this.movedByLast;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.left = new ArrayDeque<T>();
+        this.right = new ArrayDeque<T>();
+        this.lastEndAccess = -1;
+        this.streak = 0;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public AdaptiveSequence() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Sequence<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Sequence<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof AdaptiveSequence<?> : "Violation of: "
+                + "source is of dynamic type AdaptiveSequence<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * AdaptiveSequence<?>, and the ? must be T or the call would not have
+         * compiled.
+         */
+        AdaptiveSequence<T> localSource = (AdaptiveSequence<T>) source;
+        this.left = localSource.left;
+        this.right = localSource.right;
+        this.lastEndAccess = localSource.lastEndAccess;
+        this.streak = localSource.streak;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos <= this.length() : "Violation of: pos <= |this|";
+
+        int length = this.length();
+        this.movedByLast = 0;
+        if (pos == this.left.size()) {
+            this.left.addLast(x);
+        } else if (pos == 0) {
+            this.left.addFirst(x);
+        } else if (pos == length) {
+            this.right.addLast(x);
+        } else {
+            switch (this.route(pos, length)) {
+                case HEAD:
+                    this.setAside(this.left, pos, true);
+                    this.left.addFirst(x);
+                    this.putBack(this.left, true);
+                    break;
+                case TAIL:
+                    this.setAside(this.right, length - pos, false);
+                    this.right.addLast(x);
+                    this.putBack(this.right, false);
+                    break;
+                default:
+                    this.moveCursor(pos);
+                    this.left.addLast(x);
+                    break;
+            }
+        }
+        this.count();
+    }
+
+    @Override
+    public final T remove(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        int length = this.length();
+        this.movedByLast = 0;
+        T x;
+        if (pos == this.left.size()) {
+            x = this.right.removeFirst();
+        } else if (pos == this.left.size() - 1) {
+            x = this.left.removeLast();
+        } else if (pos == 0) {
+            x = this.left.removeFirst();
+        } else if (pos == length - 1) {
+            x = this.right.removeLast();
+        } else {
+            switch (this.route(pos, length)) {
+                case HEAD:
+                    this.setAside(this.left, pos, true);
+                    x = this.left.removeFirst();
+                    this.putBack(this.left, true);
+                    break;
+                case TAIL:
+                    this.setAside(this.right, length - pos - 1, false);
+                    x = this.right.removeLast();
+                    this.putBack(this.right, false);
+                    break;
+                default:
+                    this.moveCursor(pos);
+                    x = this.right.removeFirst();
+                    break;
+            }
+        }
+        this.count();
+        return x;
+    }
+
+    @Override
+    public final int length() {
+        return this.left.size() + this.right.size();
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new AdaptiveSequenceIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code AdaptiveSequence}: the left part, then the right part.
+     */
+    private final class AdaptiveSequenceIterator implements Iterator<T> {
+
+        /**
+         * Iterator of the part being walked.
+         */
+        private Iterator<T> current;
+
+        /**
+         * Whether current walks the right part.
+         */
+        private boolean inRight;
+
+        /**
+         * No-argument constructor.
+         */
+        private AdaptiveSequenceIterator() {
+            this.current = AdaptiveSequence.this.left.iterator();
+            this.inRight = false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!this.current.hasNext() && !this.inRight) {
+                this.current = AdaptiveSequence.this.right.iterator();
+                this.inRight = true;
+            }
+            return this.current.hasNext();
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            return this.current.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @Override
+    public final T entry(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        /*
+         * Read in place, walking the part holding pos from its nearer end
+         */
+        Deque<T> part = this.left;
+        int k = pos;
+        if (pos >= this.left.size()) {
+            part = this.right;
+            k = pos - this.left.size();
+        }
+        Iterator<T> it;
+        int skip;
+        if (k < part.size() - k) {
+            it = part.iterator();
+            skip = k;
+        } else {
+            it = part.descendingIterator();
+            skip = part.size() - 1 - k;
+        }
+        for (int i = 0; i < skip; i++) {
+            it.next();
+        }
+        return it.next();
+    }
+
+    @Override
+    public final void flip() {
+        Deque<T> newLeft = new ArrayDeque<>(this.right.size());
+        Iterator<T> it = this.right.descendingIterator();
+        while (it.hasNext()) {
+            newLeft.addLast(it.next());
+        }
+        Deque<T> newRight = new ArrayDeque<>(this.left.size());
+        it = this.left.descendingIterator();
+        while (it.hasNext()) {
+            newRight.addLast(it.next());
+        }
+        this.left = newLeft;
+        this.right = newRight;
+        this.lastEndAccess = -1;
+        this.streak = 0;
+    }
+
+    /*
+     * Counters ---------------------------------------------------------------
+     */
+
+    /**
+     * Reports the number of {@code add} and {@code remove} operations since
+     * the counters were reset.
+     *
+     * @return the number of operations
+     */
+    public final long operations() {
+        return this.operations;
+    }
+
+    /**
+     * Reports the number of entries moved, by cursor moves or by walking in
+     * from an end, since the counters were reset.
+     *
+     * @return the number of entries moved
+     */
+    public final long elementsMoved() {
+        return this.moved;
+    }
+
+    /**
+     * Reports the number of entries moved by the last {@code add} or
+     * {@code remove}.
+     *
+     * @return the number of entries moved
+     */
+    public final int movedByLastOperation() {
+        return this.movedByLast;
+    }
+
+    /**
+     * Resets the counters of operations and entries moved.
+     */
+    public final void resetCounters() {
+        this.operations = 0;
+        this.moved = 0;
+        this.movedByLast = 0;
+    }
+
+}
@@ -0,0 +1,359 @@
+import java.util.Iterator;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import components.sequence.Sequence;
+import components.sequence.SequenceSecondary;
+
+/**
+ * Thread-safe {@code Sequence}: a volatile reference to an immutable
+ * {@code PersistentSequence}, replaced by a new version on every change.
+ * Readers take no lock at all: {@code length}, {@code entry} and iteration
+ * read whatever version is current, so any number of them proceed in
+ * parallel and never wait for a writer. Writers are serialized by a lock and
+ * publish each new version with one volatile write. Every change is atomic
+ * with respect to the other changes: {@code append}, {@code insert},
+ * {@code extract} and {@code transferFrom} between two
+ * {@code ConcurrentSequence}s hold the locks of both, taken in a fixed order
+ * so that moves in opposite directions cannot deadlock, and check their
+ * preconditions before changing either. A reader that takes no lock sees a
+ * consistent version of each sequence, but while entries move from one
+ * sequence to another, two such reads need not agree: the entries can show up
+ * in both, or in neither. An iterator walks the version that was current when
+ * it was made, whatever changes follow, without copying it.
+ *
+ * @param <T>
+ *            type of {@code Sequence} entries
+ * @convention $this.rep is only replaced with $this.writeLock held
+ * @correspondence this = $this.rep
+ */
+public class ConcurrentSequence<T> extends SequenceSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Lock taken before the locks of two sequences with the same identity
+     * hash code, which then have no order of their own.
+     */
+    private static final Lock TIE_LOCK = new ReentrantLock();
+
+    /**
+     * Current version of the entries.
+     */
+    private volatile PersistentSequence<T> rep;
+
+    /**
+     * Lock serializing the changes.
+     */
+    private final Lock writeLock = new ReentrantLock();
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.rep = PersistentSequence.empty();
+    }
+
+    /**
+     * Takes the locks of {@code a} and {@code b}, in an order that depends
+     * only on the two sequences, so that two threads locking the same two
+     * sequences cannot deadlock.
+     *
+     * @param a
+     *            the first sequence
+     * @param b
+     *            the second sequence
+     * @requires a /= b
+     */
+    private static void lockBoth(ConcurrentSequence<?> a,
+            ConcurrentSequence<?> b) {
+        int ha = System.identityHashCode(a);
+        int hb = System.identityHashCode(b);
+        if (ha < hb) {
+            a.writeLock.lock();
+            b.writeLock.lock();
+        } else if (ha > hb) {
+            b.writeLock.lock();
+            a.writeLock.lock();
+        } else {
+            TIE_LOCK.lock();
+            a.writeLock.lock();
+            b.writeLock.lock();
+        }
+    }
+
+    /**
+     * Releases the locks taken by {@code lockBoth(a, b)}.
+     *
+     * @param a
+     *            the first sequence
+     * @param b
+     *            the second sequence
+     */
+    private static void unlockBoth(ConcurrentSequence<?> a,
+            ConcurrentSequence<?> b) {
+        a.writeLock.unlock();
+        b.writeLock.unlock();
+        if (System.identityHashCode(a) == System.identityHashCode(b)) {
+            TIE_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Moves all the entries of {@code s1} into {@code this} at position
+     * {@code pos}, or at the end of this if {@code atEnd}. The new version of
+     * this is published before s1 is cleared.
+     *
+     * @param pos
+     *            the position, ignored if atEnd
+     * @param atEnd
+     *            whether the entries go at the end of this
+     * @param s1
+     *            the sequence whose entries are moved
+     * @updates this
+     * @clears s1
+     * @requires s1 /= this and (atEnd or 0 <= pos <= |this|)
+     */
+    private void moveIn(int pos, boolean atEnd, Sequence<T> s1) {
+        ConcurrentSequence<T> other = null;
+        if (s1 instanceof ConcurrentSequence<?>) {
+            other = (ConcurrentSequence<T>) s1;
+            lockBoth(this, other);
+        } else {
+            this.writeLock.lock();
+        }
+        try {
+            PersistentSequence<T> current = this.rep;
+            if (!atEnd) {
+                assert 0 <= pos : "Violation of: 0 <= pos";
+                assert pos <= current.length() : "Violation of: pos <= |this|";
+            }
+            PersistentSequence<T> entries;
+            if (other != null) {
+                entries = other.rep;
+            } else {
+                entries = PersistentSequence.of(s1);
+            }
+            if (atEnd) {
+                this.rep = current.append(entries);
+            } else {
+                this.rep = current.insert(pos, entries);
+            }
+            if (other != null) {
+                other.createNewRep();
+            } else {
+                s1.clear();
+            }
+        } finally {
+            if (other != null) {
+                unlockBoth(this, other);
+            } else {
+                this.writeLock.unlock();
+            }
+        }
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public ConcurrentSequence() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Sequence<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.writeLock.lock();
+        try {
+            this.createNewRep();
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public final void transferFrom(Sequence<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof ConcurrentSequence<?> : "Violation of: "
+                + "source is of dynamic type ConcurrentSequence<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * ConcurrentSequence<?>, and the ? must be T or the call would not
+         * have compiled.
+         */
+        ConcurrentSequence<T> other = (ConcurrentSequence<T>) source;
+        lockBoth(this, other);
+        try {
+            this.rep = other.rep;
+            other.createNewRep();
+        } finally {
+            unlockBoth(this, other);
+        }
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        this.writeLock.lock();
+        try {
+            assert 0 <= pos : "Violation of: 0 <= pos";
+            assert pos <= this.rep.length() : "Violation of: pos <= |this|";
+            this.rep = this.rep.add(pos, x);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public final T remove(int pos) {
+        this.writeLock.lock();
+        try {
+            PersistentSequence<T> current = this.rep;
+            assert 0 <= pos : "Violation of: 0 <= pos";
+            assert pos < current.length() : "Violation of: pos < |this|";
+            T x = current.entry(pos);
+            this.rep = current.remove(pos);
+            return x;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public final int length() {
+        return this.rep.length();
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return this.rep.iterator();
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @Override
+    public final T entry(int pos) {
+        PersistentSequence<T> current = this.rep;
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < current.length() : "Violation of: pos < |this|";
+        return current.entry(pos);
+    }
+
+    @Override
+    public final T replaceEntry(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        this.writeLock.lock();
+        try {
+            PersistentSequence<T> current = this.rep;
+            assert 0 <= pos : "Violation of: 0 <= pos";
+            assert pos < current.length() : "Violation of: pos < |this|";
+            T old = current.entry(pos);
+            this.rep = current.replaceEntry(pos, x);
+            return old;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public final void append(Sequence<T> s1) {
+        assert s1 != null : "Violation of: s1 is not null";
+        assert s1 != this : "Violation of: s1 is not this";
+        this.moveIn(0, true, s1);
+    }
+
+    @Override
+    public final void insert(int pos, Sequence<T> s1) {
+        assert s1 != null : "Violation of: s1 is not null";
+        assert s1 != this : "Violation of: s1 is not this";
+        this.moveIn(pos, false, s1);
+    }
+
+    @Override
+    public final void extract(int pos1, int pos2, Sequence<T> s1) {
+        assert s1 != null : "Violation of: s1 is not null";
+        assert s1 != this : "Violation of: s1 is not this";
+        ConcurrentSequence<T> other = null;
+        if (s1 instanceof ConcurrentSequence<?>) {
+            other = (ConcurrentSequence<T>) s1;
+            lockBoth(this, other);
+        } else {
+            this.writeLock.lock();
+        }
+        try {
+            PersistentSequence<T> current = this.rep;
+            assert 0 <= pos1 : "Violation of: 0 <= pos1";
+            assert pos1 <= pos2 : "Violation of: pos1 <= pos2";
+            assert pos2 <= current.length() : "Violation of: pos2 <= |this|";
+            PersistentSequence<T> entries = current.subSequence(pos1, pos2);
+            /*
+             * the entries are published in s1 before they leave this
+             */
+            if (other != null) {
+                other.rep = entries;
+            } else {
+                s1.clear();
+                for (T x : entries) {
+                    s1.add(s1.length(), x);
+                }
+            }
+            this.rep = current.removeRange(pos1, pos2);
+        } finally {
+            if (other != null) {
+                unlockBoth(this, other);
+            } else {
+                this.writeLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public final void flip() {
+        this.writeLock.lock();
+        try {
+            this.rep = this.rep.flip();
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the current version of {@code this}, in O(1) time. Later changes
+     * to this do not change the version returned.
+     *
+     * @return the current entries
+     * @ensures snapshot = this
+     */
+    public final PersistentSequence<T> snapshot() {
+        return this.rep;
+    }
+
+}
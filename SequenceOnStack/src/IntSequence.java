@@ -0,0 +1,378 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import components.sequence.Sequence;
+import components.sequence.SequenceSecondary;
+
+/**
+ * {@code Sequence<Integer>} whose entries are stored unboxed, in an
+ * {@code int[]} gap buffer laid out like the one of {@code Sequence4}. The
+ * methods whose names end in {@code Int} read and write {@code int} values
+ * directly. The {@code Sequence} methods box and unbox, so existing call sites
+ * typed {@code Sequence<Integer>} keep working.
+ *
+ * @convention <pre>
+ * 0 <= $this.gapStart <= $this.gapEnd <= |$this.entries|
+ * </pre>
+ * @correspondence <pre>
+ * this = [entries of $this.entries before $this.gapStart] *
+ *        [entries of $this.entries from $this.gapEnd on]
+ * </pre>
+ */
+public class IntSequence extends SequenceSecondary<Integer> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Initial size of the array.
+     */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * Entries, with the gap between {@code gapStart} and {@code gapEnd}.
+     */
+    private int[] entries;
+
+    /**
+     * Index of the first slot of the gap.
+     */
+    private int gapStart;
+
+    /**
+     * Index of the first slot after the gap.
+     */
+    private int gapEnd;
+
+    /**
+     * Moves the gap so that it starts at {@code pos}, keeping the entries in
+     * the same order.
+     *
+     * @param pos
+     *            new start of the gap
+     * @updates this
+     * @requires 0 <= pos <= |this|
+     * @ensures this = #this and $this.gapStart = pos
+     */
+    private void moveGap(int pos) {
+        int gapLength = this.gapEnd - this.gapStart;
+        if (pos < this.gapStart) {
+            int count = this.gapStart - pos;
+            System.arraycopy(this.entries, pos, this.entries,
+                    this.gapEnd - count, count);
+        } else if (pos > this.gapStart) {
+            int count = pos - this.gapStart;
+            System.arraycopy(this.entries, this.gapEnd, this.entries,
+                    this.gapStart, count);
+        }
+        this.gapStart = pos;
+        this.gapEnd = pos + gapLength;
+    }
+
+    /**
+     * Makes the gap at least one slot long, doubling the size of the array if
+     * it is full.
+     *
+     * @updates this
+     * @ensures this = #this and $this.gapStart < $this.gapEnd
+     */
+    private void ensureGap() {
+        if (this.gapStart == this.gapEnd) {
+            int afterGap = this.entries.length - this.gapEnd;
+            int[] grown = new int[2 * this.entries.length];
+            System.arraycopy(this.entries, 0, grown, 0, this.gapStart);
+            System.arraycopy(this.entries, this.gapEnd, grown,
+                    grown.length - afterGap, afterGap);
+            this.gapEnd = grown.length - afterGap;
+            this.entries = grown;
+        }
+    }
+
+    /**
+     * Returns the index in {@code entries} of the entry at position
+     * {@code pos}.
+     *
+     * @param pos
+     *            the position
+     * @return the index of the entry
+     * @requires 0 <= pos < |this|
+     */
+    private int indexOf(int pos) {
+        int index = pos;
+        if (pos >= this.gapStart) {
+            index += this.gapEnd - this.gapStart;
+        }
+        return index;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.entries = new int[INITIAL_CAPACITY];
+        this.gapStart = 0;
+        this.gapEnd = INITIAL_CAPACITY;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public IntSequence() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @Override
+    public final Sequence<Integer> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Sequence<Integer> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof IntSequence : ""
+                + "Violation of: source is of dynamic type IntSequence";
+        IntSequence localSource = (IntSequence) source;
+        this.entries = localSource.entries;
+        this.gapStart = localSource.gapStart;
+        this.gapEnd = localSource.gapEnd;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Primitive methods ------------------------------------------------------
+     */
+
+    /**
+     * Adds {@code x} at position {@code pos} of {@code this}.
+     *
+     * @param pos
+     *            the position at which to add
+     * @param x
+     *            the entry to be added
+     * @updates this
+     * @requires 0 <= pos and pos <= |this|
+     * @ensures this = #this[0, pos) * <x> * #this[pos, |#this|)
+     */
+    public final void addInt(int pos, int x) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos <= this.length() : "Violation of: pos <= |this|";
+
+        this.moveGap(pos);
+        this.ensureGap();
+        this.entries[this.gapStart] = x;
+        this.gapStart++;
+    }
+
+    /**
+     * Removes and returns the entry at position {@code pos} of {@code this}.
+     *
+     * @param pos
+     *            the position at which to remove
+     * @return the entry removed
+     * @updates this
+     * @requires 0 <= pos and pos < |this|
+     * @ensures <pre>
+     * this = #this[0, pos) * #this[pos+1, |#this|)  and
+     * <removeInt> = #this[pos, pos+1)
+     * </pre>
+     */
+    public final int removeInt(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        this.moveGap(pos);
+        int x = this.entries[this.gapEnd];
+        this.gapEnd++;
+        return x;
+    }
+
+    /**
+     * Reports the entry at position {@code pos} of {@code this}.
+     *
+     * @param pos
+     *            the position of the entry
+     * @return the entry at position pos
+     * @requires 0 <= pos and pos < |this|
+     * @ensures <entryInt> = this[pos, pos+1)
+     */
+    public final int entryInt(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        return this.entries[this.indexOf(pos)];
+    }
+
+    /**
+     * Replaces the entry at position {@code pos} of {@code this} by {@code x}
+     * and returns the old entry.
+     *
+     * @param pos
+     *            the position of the entry
+     * @param x
+     *            the new entry
+     * @return the old entry at position pos
+     * @updates this
+     * @requires 0 <= pos and pos < |this|
+     * @ensures <pre>
+     * <replaceEntryInt> = #this[pos, pos+1)  and
+     * this = #this[0, pos) * <x> * #this[pos+1, |#this|)
+     * </pre>
+     */
+    public final int replaceEntryInt(int pos, int x) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        int index = this.indexOf(pos);
+        int old = this.entries[index];
+        this.entries[index] = x;
+        return old;
+    }
+
+    /**
+     * Returns an iterator over the entries of {@code this} that does not box
+     * them.
+     *
+     * @return the iterator
+     */
+    public final PrimitiveIterator.OfInt intIterator() {
+        return new IntSequenceIterator();
+    }
+
+    /**
+     * Returns the entries of {@code this} in a new array.
+     *
+     * @return the entries
+     * @ensures toArray = this
+     */
+    public final int[] toArray() {
+        int[] array = Arrays.copyOf(this.entries, this.length());
+        System.arraycopy(this.entries, this.gapEnd, array, this.gapStart,
+                this.entries.length - this.gapEnd);
+        return array;
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(int pos, Integer x) {
+        assert x != null : "Violation of: x is not null";
+        this.addInt(pos, x);
+    }
+
+    @Override
+    public final Integer remove(int pos) {
+        return this.removeInt(pos);
+    }
+
+    @Override
+    public final int length() {
+        return this.entries.length - (this.gapEnd - this.gapStart);
+    }
+
+    @Override
+    public final Iterator<Integer> iterator() {
+        return new IntSequenceIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code IntSequence},
+     * skipping over the gap.
+     */
+    private final class IntSequenceIterator
+            implements PrimitiveIterator.OfInt {
+
+        /**
+         * Index in {@code entries} of the next entry.
+         */
+        private int index;
+
+        /**
+         * No-argument constructor.
+         */
+        private IntSequenceIterator() {
+            this.index = IntSequence.this.indexOf(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.index < IntSequence.this.entries.length;
+        }
+
+        @Override
+        public int nextInt() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            int x = IntSequence.this.entries[this.index];
+            this.index++;
+            if (this.index == IntSequence.this.gapStart) {
+                this.index = IntSequence.this.gapEnd;
+            }
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @Override
+    public final Integer entry(int pos) {
+        return this.entryInt(pos);
+    }
+
+    @Override
+    public final Integer replaceEntry(int pos, Integer x) {
+        assert x != null : "Violation of: x is not null";
+        return this.replaceEntryInt(pos, x);
+    }
+
+    @Override
+    public final void flip() {
+        int length = this.length();
+        this.moveGap(length);
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            int x = this.entries[i];
+            this.entries[i] = this.entries[j];
+            this.entries[j] = x;
+        }
+    }
+
+}
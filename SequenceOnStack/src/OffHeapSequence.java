@@ -0,0 +1,626 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.sequence.Sequence;
+import components.sequence.SequenceSecondary;
+
+/**
+ * {@code Sequence} whose entries are encoded by a {@code RecordCodec} into
+ * fixed-size records stored outside the Java heap, so that even hundreds of
+ * millions of entries add nothing for the garbage collector to trace. The
+ * records form a gap buffer, like the array of {@code Sequence4}, split over
+ * segments of about one megabyte: direct {@code ByteBuffer}s, or regions of a
+ * file mapped into memory for a sequence made by {@link #map}. A mapped
+ * sequence is saved in its file by {@link #force} and {@link #close}, and
+ * {@code map} on the same file brings it back without reading it.
+ *
+ * @param <T>
+ *            type of {@code Sequence} entries
+ * @convention <pre>
+ * 0 <= $this.gapStart <= $this.gapEnd <= $this.capacity  and
+ * $this.capacity = $this.segmentCount * $this.recordsPerSegment  and
+ * [if $this.channel /= null then the segments are mapped from it]
+ * </pre>
+ * @correspondence <pre>
+ * this = [decoded records before $this.gapStart] *
+ *        [decoded records from $this.gapEnd to $this.capacity]
+ * </pre>
+ */
+public class OffHeapSequence<T> extends SequenceSecondary<T>
+        implements Closeable {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Number of bytes of a segment, rounded down to whole records.
+     */
+    private static final int SEGMENT_BYTES = 1 << 20;
+
+    /**
+     * Number of bytes of the header of a mapped file: magic number, record
+     * size and length.
+     */
+    private static final int HEADER_BYTES = 16;
+
+    /**
+     * Magic number at the start of a mapped file, "SEQ1".
+     */
+    private static final int MAGIC = 0x53455131;
+
+    /**
+     * Index in the header of the record size.
+     */
+    private static final int RECORD_SIZE_OFFSET = 4;
+
+    /**
+     * Index in the header of the length.
+     */
+    private static final int LENGTH_OFFSET = 8;
+
+    /**
+     * Encoding of the entries.
+     */
+    private final RecordCodec<T> codec;
+
+    /**
+     * Number of bytes of a record.
+     */
+    private final int recordSize;
+
+    /**
+     * Number of records of a segment.
+     */
+    private final int recordsPerSegment;
+
+    /**
+     * Storage of the records; the first segmentCount are in use.
+     */
+    private ByteBuffer[] segments;
+
+    /**
+     * Number of segments in use.
+     */
+    private int segmentCount;
+
+    /**
+     * Index of the first record of the gap.
+     */
+    private long gapStart;
+
+    /**
+     * Index of the first record after the gap.
+     */
+    private long gapEnd;
+
+    /**
+     * Number of records the segments can hold.
+     */
+    private long capacity;
+
+    /**
+     * File the segments are mapped from, or null if they are not mapped.
+     */
+    private FileChannel channel;
+
+    /**
+     * Header of the mapped file, or null if the segments are not mapped.
+     */
+    private MappedByteBuffer header;
+
+    /**
+     * Returns the segment holding record {@code index}.
+     *
+     * @param index
+     *            the index of the record
+     * @return the segment
+     */
+    private ByteBuffer segment(long index) {
+        return this.segments[(int) (index / this.recordsPerSegment)];
+    }
+
+    /**
+     * Returns the byte offset of record {@code index} in its segment.
+     *
+     * @param index
+     *            the index of the record
+     * @return the offset
+     */
+    private int offset(long index) {
+        return (int) (index % this.recordsPerSegment) * this.recordSize;
+    }
+
+    /**
+     * Copies {@code count} records starting at {@code from} to the records
+     * starting at {@code to}, in runs that stay within one segment on both
+     * sides. The ranges may overlap.
+     *
+     * @param from
+     *            index of the first record copied
+     * @param to
+     *            index the first record is copied to
+     * @param count
+     *            number of records copied
+     */
+    private void moveRecords(long from, long to, long count) {
+        long left = count;
+        if (to < from) {
+            long src = from;
+            long dst = to;
+            while (left > 0) {
+                long run = Math.min(left,
+                        Math.min(this.recordsPerSegment
+                                - src % this.recordsPerSegment,
+                                this.recordsPerSegment
+                                        - dst % this.recordsPerSegment));
+                this.segment(dst).put(this.offset(dst), this.segment(src),
+                        this.offset(src), (int) run * this.recordSize);
+                src += run;
+                dst += run;
+                left -= run;
+            }
+        } else if (to > from) {
+            //copied from the end, so no record is overwritten before it moves
+            long srcEnd = from + count;
+            long dstEnd = to + count;
+            while (left > 0) {
+                long run = Math.min(left,
+                        Math.min(1 + (srcEnd - 1) % this.recordsPerSegment,
+                                1 + (dstEnd - 1) % this.recordsPerSegment));
+                srcEnd -= run;
+                dstEnd -= run;
+                this.segment(dstEnd).put(this.offset(dstEnd),
+                        this.segment(srcEnd), this.offset(srcEnd),
+                        (int) run * this.recordSize);
+                left -= run;
+            }
+        }
+    }
+
+    /**
+     * Moves the gap so that it starts at {@code pos}, keeping the entries in
+     * the same order.
+     *
+     * @param pos
+     *            new start of the gap
+     * @updates this
+     * @requires 0 <= pos <= |this|
+     * @ensures this = #this and $this.gapStart = pos
+     */
+    private void moveGap(long pos) {
+        long gapLength = this.gapEnd - this.gapStart;
+        if (pos < this.gapStart) {
+            long count = this.gapStart - pos;
+            this.moveRecords(pos, this.gapEnd - count, count);
+        } else if (pos > this.gapStart) {
+            long count = pos - this.gapStart;
+            this.moveRecords(this.gapEnd, this.gapStart, count);
+        }
+        this.gapStart = pos;
+        this.gapEnd = pos + gapLength;
+    }
+
+    /**
+     * Returns a new segment, mapped from the file if this is mapped.
+     *
+     * @param n
+     *            index of the segment
+     * @return the segment
+     */
+    private ByteBuffer newSegment(int n) {
+        int bytes = this.recordsPerSegment * this.recordSize;
+        ByteBuffer segment;
+        if (this.channel == null) {
+            segment = ByteBuffer.allocateDirect(bytes);
+        } else {
+            try {
+                segment = this.channel.map(FileChannel.MapMode.READ_WRITE,
+                        HEADER_BYTES + (long) n * bytes, bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return segment;
+    }
+
+    /**
+     * Adds segments until they can hold {@code records} records.
+     *
+     * @param records
+     *            number of records wanted
+     * @ensures $this.capacity >= records
+     */
+    private void addSegments(long records) {
+        while (this.capacity < records) {
+            if (this.segmentCount == this.segments.length) {
+                this.segments = Arrays.copyOf(this.segments,
+                        Math.max(1, 2 * this.segmentCount));
+            }
+            this.segments[this.segmentCount] = this.newSegment(
+                    this.segmentCount);
+            this.segmentCount++;
+            this.capacity += this.recordsPerSegment;
+        }
+    }
+
+    /**
+     * Makes the gap at least one record long, adding a segment if it is
+     * full.
+     *
+     * @updates this
+     * @ensures this = #this and $this.gapStart < $this.gapEnd
+     */
+    private void ensureGap() {
+        if (this.gapStart == this.gapEnd) {
+            long oldCapacity = this.capacity;
+            this.addSegments(oldCapacity + 1);
+            long grown = this.capacity - oldCapacity;
+            this.moveRecords(this.gapEnd, this.gapEnd + grown,
+                    oldCapacity - this.gapEnd);
+            this.gapEnd += grown;
+        }
+    }
+
+    /**
+     * Returns the index of the record of the entry at position {@code pos}.
+     *
+     * @param pos
+     *            the position
+     * @return the index of the record
+     * @requires 0 <= pos < |this|
+     */
+    private long indexOf(long pos) {
+        long index = pos;
+        if (pos >= this.gapStart) {
+            index += this.gapEnd - this.gapStart;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the entry in record {@code index}.
+     *
+     * @param index
+     *            the index of the record
+     * @return the entry
+     */
+    private T read(long index) {
+        return this.codec.read(this.segment(index), this.offset(index));
+    }
+
+    /**
+     * Writes {@code x} to record {@code index}.
+     *
+     * @param index
+     *            the index of the record
+     * @param x
+     *            the entry
+     */
+    private void write(long index, T x) {
+        this.codec.write(this.segment(index), this.offset(index), x);
+    }
+
+    /**
+     * Creator of initial representation, with no storage until the first
+     * entry is added.
+     */
+    private void createNewRep() {
+        this.segments = new ByteBuffer[0];
+        this.segmentCount = 0;
+        this.gapStart = 0;
+        this.gapEnd = 0;
+        this.capacity = 0;
+        this.channel = null;
+        this.header = null;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * Constructor of an empty sequence in direct buffers.
+     *
+     * @param codec
+     *            encoding of the entries
+     */
+    public OffHeapSequence(RecordCodec<T> codec) {
+        assert codec != null : "Violation of: codec is not null";
+        this.codec = codec;
+        this.recordSize = codec.size();
+        this.recordsPerSegment = Math.max(1, SEGMENT_BYTES / this.recordSize);
+        this.createNewRep();
+    }
+
+    /**
+     * Returns the sequence saved in {@code file}, mapped into memory, or a new
+     * empty sequence mapped from it if the file does not exist or is empty.
+     * The entries are read from the file only when they are used.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param file
+     *            the file
+     * @param codec
+     *            encoding of the entries, the one the file was saved with
+     * @return the mapped sequence
+     * @throws IOException
+     *             if the file cannot be mapped, or was not saved by an
+     *             {@code OffHeapSequence} with records of codec.size() bytes
+     */
+    public static <T> OffHeapSequence<T> map(Path file, RecordCodec<T> codec)
+            throws IOException {
+        OffHeapSequence<T> sequence = new OffHeapSequence<>(codec);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        try {
+            boolean empty = channel.size() == 0;
+            MappedByteBuffer header = channel
+                    .map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            long length = 0;
+            if (empty) {
+                header.putInt(0, MAGIC);
+                header.putInt(RECORD_SIZE_OFFSET, sequence.recordSize);
+                header.putLong(LENGTH_OFFSET, 0);
+            } else {
+                if (header.getInt(0) != MAGIC) {
+                    throw new IOException(file + " is not a saved sequence");
+                }
+                if (header.getInt(RECORD_SIZE_OFFSET) != sequence.recordSize) {
+                    throw new IOException(file + " has records of "
+                            + header.getInt(RECORD_SIZE_OFFSET)
+                            + " bytes, not " + sequence.recordSize);
+                }
+                length = header.getLong(LENGTH_OFFSET);
+            }
+            sequence.channel = channel;
+            sequence.header = header;
+            sequence.addSegments(length);
+            sequence.gapStart = length;
+            sequence.gapEnd = sequence.capacity;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return sequence;
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @Override
+    public final Sequence<T> newInstance() {
+        return new OffHeapSequence<T>(this.codec);
+    }
+
+    @Override
+    public final void clear() {
+        if (this.channel == null) {
+            this.createNewRep();
+        } else {
+            //a mapped sequence stays mapped, with all its records in the gap
+            this.gapStart = 0;
+            this.gapEnd = this.capacity;
+        }
+    }
+
+    @Override
+    public final void transferFrom(Sequence<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof OffHeapSequence<?> : ""
+                + "Violation of: source is of dynamic type OffHeapSequence<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * OffHeapSequence<?>, and the ? must be T or the call would not have
+         * compiled.
+         */
+        OffHeapSequence<T> localSource = (OffHeapSequence<T>) source;
+        assert localSource.recordSize == this.recordSize : ""
+                + "Violation of: source has records of the same size";
+        try {
+            this.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.segments = localSource.segments;
+        this.segmentCount = localSource.segmentCount;
+        this.gapStart = localSource.gapStart;
+        this.gapEnd = localSource.gapEnd;
+        this.capacity = localSource.capacity;
+        this.channel = localSource.channel;
+        this.header = localSource.header;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos <= this.length() : "Violation of: pos <= |this|";
+
+        this.moveGap(pos);
+        this.ensureGap();
+        this.write(this.gapStart, x);
+        this.gapStart++;
+    }
+
+    @Override
+    public final T remove(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        this.moveGap(pos);
+        T x = this.read(this.gapEnd);
+        this.gapEnd++;
+        return x;
+    }
+
+    @Override
+    public final int length() {
+        return (int) (this.capacity - (this.gapEnd - this.gapStart));
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new OffHeapSequenceIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code OffHeapSequence}, decoding the records in order and skipping
+     * over the gap.
+     */
+    private final class OffHeapSequenceIterator implements Iterator<T> {
+
+        /**
+         * Index of the next record.
+         */
+        private long index;
+
+        /**
+         * No-argument constructor.
+         */
+        private OffHeapSequenceIterator() {
+            this.index = OffHeapSequence.this.indexOf(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.index < OffHeapSequence.this.capacity;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x = OffHeapSequence.this.read(this.index);
+            this.index++;
+            if (this.index == OffHeapSequence.this.gapStart) {
+                this.index = OffHeapSequence.this.gapEnd;
+            }
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @Override
+    public final T entry(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        return this.read(this.indexOf(pos));
+    }
+
+    @Override
+    public final T replaceEntry(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        long index = this.indexOf(pos);
+        T old = this.read(index);
+        this.write(index, x);
+        return old;
+    }
+
+    @Override
+    public final void flip() {
+        long length = this.length();
+        this.moveGap(length);
+        byte[] first = new byte[this.recordSize];
+        byte[] last = new byte[this.recordSize];
+        for (long i = 0, j = length - 1; i < j; i++, j--) {
+            this.segment(i).get(this.offset(i), first);
+            this.segment(j).get(this.offset(j), last);
+            this.segment(i).put(this.offset(i), last);
+            this.segment(j).put(this.offset(j), first);
+        }
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Reports whether {@code this} is mapped from a file.
+     *
+     * @return true iff this was made by {@code map} and not closed since
+     */
+    public final boolean isMapped() {
+        return this.channel != null;
+    }
+
+    /**
+     * Saves {@code this} in the file it is mapped from, if any: moves the gap
+     * to the end so the records are contiguous, records the length in the
+     * header, and writes the mapped pages to the file.
+     *
+     * @updates this
+     * @ensures this = #this
+     */
+    public final void force() {
+        if (this.channel != null) {
+            this.moveGap(this.length());
+            this.header.putLong(LENGTH_OFFSET, this.length());
+            for (int i = 0; i < this.segmentCount; i++) {
+                ((MappedByteBuffer) this.segments[i]).force();
+            }
+            this.header.force();
+        }
+    }
+
+    /**
+     * Saves {@code this} in its file if it is mapped, then releases its
+     * storage. The sequence is left empty and unmapped, and can still be used.
+     * The memory of the buffers is returned when they are garbage collected,
+     * since Java offers no way to free a direct or mapped buffer at once.
+     *
+     * @throws IOException
+     *             if the mapped file cannot be closed
+     * @clears this
+     */
+    @Override
+    public final void close() throws IOException {
+        FileChannel mapped = this.channel;
+        this.force();
+        this.createNewRep();
+        if (mapped != null) {
+            mapped.close();
+        }
+    }
+
+}
@@ -0,0 +1,697 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Immutable sequence of entries. The methods that would change a mutable
+ * sequence instead return a new {@code PersistentSequence} and leave this one
+ * as it was. The new sequence shares all but O(log |this|) of its nodes with
+ * the old one, so keeping any number of versions is cheap, and a version can
+ * be handed to other threads without copying or locking.
+ *
+ * It is represented, like {@code Sequence5}, as a treap with implicit keys,
+ * whose nodes are never changed once made: every operation copies the nodes
+ * on the paths it follows from the root.
+ *
+ * @param <T>
+ *            type of the entries
+ * @correspondence <pre>
+ * this = [in-order traversal of $this.root, where the subtree of a node
+ *         whose reversed flag is set is taken in reverse order]
+ * </pre>
+ *
+ * @author Nyja Gowda
+ *
+ */
+public final class PersistentSequence<T> implements Iterable<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Immutable node of the tree.
+     *
+     * @param <T>
+     *            type of the entry
+     */
+    private static final class Node<T> {
+
+        /**
+         * The entry.
+         */
+        private final T value;
+
+        /**
+         * Random priority, larger nearer the root.
+         */
+        private final int priority;
+
+        /**
+         * Number of nodes in the subtree.
+         */
+        private final int size;
+
+        /**
+         * Left subtree.
+         */
+        private final Node<T> left;
+
+        /**
+         * Right subtree.
+         */
+        private final Node<T> right;
+
+        /**
+         * Whether the order of the subtree is reversed, with the children not
+         * swapped.
+         */
+        private final boolean reversed;
+
+        /**
+         * Constructor.
+         *
+         * @param value
+         *            the entry
+         * @param priority
+         *            the priority
+         * @param left
+         *            the left subtree
+         * @param right
+         *            the right subtree
+         * @param reversed
+         *            whether the order of the subtree is reversed
+         */
+        Node(T value, int priority, Node<T> left, Node<T> right,
+                boolean reversed) {
+            this.value = value;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + size(left) + size(right);
+            this.reversed = reversed;
+        }
+
+    }
+
+    /**
+     * Result of {@code split}: the two trees of the split.
+     *
+     * @param <T>
+     *            type of the entries
+     */
+    private static final class Split<T> {
+
+        /**
+         * Tree of the entries before the split position.
+         */
+        private Node<T> left;
+
+        /**
+         * Tree of the entries from the split position on.
+         */
+        private Node<T> right;
+
+    }
+
+    /**
+     * The empty sequence.
+     */
+    private static final PersistentSequence<?> EMPTY = new PersistentSequence<>(
+            null);
+
+    /**
+     * Root of the tree, null for the empty sequence.
+     */
+    private final Node<T> root;
+
+    /**
+     * Constructor.
+     *
+     * @param root
+     *            root of the tree
+     */
+    private PersistentSequence(Node<T> root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns the number of nodes of the tree {@code n}.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param n
+     *            the tree, possibly null
+     * @return the size of n
+     */
+    private static <T> int size(Node<T> n) {
+        int size = 0;
+        if (n != null) {
+            size = n.size;
+        }
+        return size;
+    }
+
+    /**
+     * Returns a node with the same entry and priority as {@code n} and the
+     * given children.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param n
+     *            the node copied
+     * @param left
+     *            the left subtree
+     * @param right
+     *            the right subtree
+     * @return the new node
+     * @requires n is not reversed
+     */
+    private static <T> Node<T> copy(Node<T> n, Node<T> left, Node<T> right) {
+        return new Node<>(n.value, n.priority, left, right, false);
+    }
+
+    /**
+     * Returns the tree {@code n} in reverse order.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param n
+     *            the tree, possibly null
+     * @return the reversed tree
+     */
+    private static <T> Node<T> reversed(Node<T> n) {
+        Node<T> r = null;
+        if (n != null) {
+            r = new Node<>(n.value, n.priority, n.left, n.right,
+                    !n.reversed);
+        }
+        return r;
+    }
+
+    /**
+     * Returns a tree equal to {@code n} whose root has no pending reversal.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param n
+     *            the tree
+     * @return n, or a copy of its root with the reversal applied to the
+     *         children
+     */
+    private static <T> Node<T> pushDown(Node<T> n) {
+        Node<T> r = n;
+        if (n.reversed) {
+            r = copy(n, reversed(n.right), reversed(n.left));
+        }
+        return r;
+    }
+
+    /**
+     * Splits the tree {@code n} into the tree of its first {@code k} entries
+     * and the tree of the others, copying the nodes on the path.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param n
+     *            the tree, possibly null
+     * @param k
+     *            number of entries of the left tree
+     * @param result
+     *            receives the two trees
+     * @requires 0 <= k <= size(n)
+     */
+    private static <T> void split(Node<T> n, int k, Split<T> result) {
+        if (n == null) {
+            result.left = null;
+            result.right = null;
+        } else {
+            Node<T> p = pushDown(n);
+            if (k <= size(p.left)) {
+                split(p.left, k, result);
+                result.right = copy(p, result.right, p.right);
+            } else {
+                split(p.right, k - size(p.left) - 1, result);
+                result.left = copy(p, p.left, result.left);
+            }
+        }
+    }
+
+    /**
+     * Returns the tree of the entries of {@code a} followed by those of
+     * {@code b}, copying the nodes on the path.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param a
+     *            the left tree, possibly null
+     * @param b
+     *            the right tree, possibly null
+     * @return the merged tree
+     */
+    private static <T> Node<T> merge(Node<T> a, Node<T> b) {
+        Node<T> merged;
+        if (a == null) {
+            merged = b;
+        } else if (b == null) {
+            merged = a;
+        } else if (a.priority >= b.priority) {
+            Node<T> p = pushDown(a);
+            merged = copy(p, p.left, merge(p.right, b));
+        } else {
+            Node<T> p = pushDown(b);
+            merged = copy(p, merge(a, p.left), p.right);
+        }
+        return merged;
+    }
+
+    /**
+     * Returns the tree {@code n} with the entry at position {@code k}
+     * replaced by {@code x}, copying the nodes on the path.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param n
+     *            the tree
+     * @param k
+     *            the position
+     * @param x
+     *            the new entry
+     * @return the new tree
+     * @requires 0 <= k < size(n)
+     */
+    private static <T> Node<T> replaced(Node<T> n, int k, T x) {
+        Node<T> p = pushDown(n);
+        Node<T> r;
+        if (k < size(p.left)) {
+            r = copy(p, replaced(p.left, k, x), p.right);
+        } else if (k == size(p.left)) {
+            r = new Node<>(x, p.priority, p.left, p.right, false);
+        } else {
+            r = copy(p, p.left, replaced(p.right, k - size(p.left) - 1, x));
+        }
+        return r;
+    }
+
+    /*
+     * Factories --------------------------------------------------------------
+     */
+
+    /**
+     * Returns the empty sequence.
+     *
+     * @param <T>
+     *            type of the entries
+     * @return the empty sequence
+     * @ensures empty = <>
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentSequence<T> empty() {
+        return (PersistentSequence<T>) EMPTY;
+    }
+
+    /**
+     * Returns the sequence of the entries of {@code entries}, in order.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param entries
+     *            the entries
+     * @return the sequence
+     * @requires no entry of entries is null
+     * @ensures of = entries
+     */
+    public static <T> PersistentSequence<T> of(Iterable<T> entries) {
+        assert entries != null : "Violation of: entries is not null";
+        Node<T> root = null;
+        for (T x : entries) {
+            assert x != null : "Violation of: x is not null";
+            root = merge(root, new Node<>(x,
+                    ThreadLocalRandom.current().nextInt(), null, null, false));
+        }
+        return new PersistentSequence<>(root);
+    }
+
+    /*
+     * Queries ----------------------------------------------------------------
+     */
+
+    /**
+     * Reports the length of {@code this}.
+     *
+     * @return the length of this
+     * @ensures length = |this|
+     */
+    public int length() {
+        return size(this.root);
+    }
+
+    /**
+     * Reports the entry at position {@code pos} of {@code this}.
+     *
+     * @param pos
+     *            the position of the entry
+     * @return the entry at position pos
+     * @requires 0 <= pos and pos < |this|
+     * @ensures <entry> = this[pos, pos+1)
+     */
+    public T entry(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        Node<T> n = this.root;
+        boolean reversed = false;
+        int k = pos;
+        boolean found = false;
+        while (!found) {
+            reversed ^= n.reversed;
+            Node<T> before = n.left;
+            Node<T> after = n.right;
+            if (reversed) {
+                before = n.right;
+                after = n.left;
+            }
+            if (k < size(before)) {
+                n = before;
+            } else if (k == size(before)) {
+                found = true;
+            } else {
+                k -= size(before) + 1;
+                n = after;
+            }
+        }
+        return n.value;
+    }
+
+    /*
+     * Operations returning new sequences -------------------------------------
+     */
+
+    /**
+     * Returns {@code this} with {@code x} added at position {@code pos}.
+     *
+     * @param pos
+     *            the position at which to add
+     * @param x
+     *            the entry to be added
+     * @return the new sequence
+     * @requires x is not null and 0 <= pos and pos <= |this|
+     * @ensures add = this[0, pos) * <x> * this[pos, |this|)
+     */
+    public PersistentSequence<T> add(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos <= this.length() : "Violation of: pos <= |this|";
+
+        Split<T> parts = new Split<>();
+        split(this.root, pos, parts);
+        Node<T> node = new Node<>(x, ThreadLocalRandom.current().nextInt(),
+                null, null, false);
+        return new PersistentSequence<>(
+                merge(merge(parts.left, node), parts.right));
+    }
+
+    /**
+     * Returns {@code this} without the entry at position {@code pos}.
+     *
+     * @param pos
+     *            the position of the entry removed
+     * @return the new sequence
+     * @requires 0 <= pos and pos < |this|
+     * @ensures remove = this[0, pos) * this[pos+1, |this|)
+     */
+    public PersistentSequence<T> remove(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        Split<T> parts = new Split<>();
+        split(this.root, pos, parts);
+        Node<T> before = parts.left;
+        split(parts.right, 1, parts);
+        return new PersistentSequence<>(merge(before, parts.right));
+    }
+
+    /**
+     * Returns {@code this} with the entry at position {@code pos} replaced by
+     * {@code x}.
+     *
+     * @param pos
+     *            the position of the entry
+     * @param x
+     *            the new entry
+     * @return the new sequence
+     * @requires x is not null and 0 <= pos and pos < |this|
+     * @ensures replaceEntry = this[0, pos) * <x> * this[pos+1, |this|)
+     */
+    public PersistentSequence<T> replaceEntry(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        return new PersistentSequence<>(replaced(this.root, pos, x));
+    }
+
+    /**
+     * Returns {@code this} with the entries of {@code s} inserted at position
+     * {@code pos}.
+     *
+     * @param pos
+     *            the position at which to insert
+     * @param s
+     *            the entries inserted
+     * @return the new sequence
+     * @requires 0 <= pos and pos <= |this|
+     * @ensures insert = this[0, pos) * s * this[pos, |this|)
+     */
+    public PersistentSequence<T> insert(int pos, PersistentSequence<T> s) {
+        assert s != null : "Violation of: s is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos <= this.length() : "Violation of: pos <= |this|";
+
+        Split<T> parts = new Split<>();
+        split(this.root, pos, parts);
+        return new PersistentSequence<>(
+                merge(merge(parts.left, s.root), parts.right));
+    }
+
+    /**
+     * Returns {@code this} followed by {@code s}.
+     *
+     * @param s
+     *            the entries appended
+     * @return the new sequence
+     * @ensures append = this * s
+     */
+    public PersistentSequence<T> append(PersistentSequence<T> s) {
+        assert s != null : "Violation of: s is not null";
+        return new PersistentSequence<>(merge(this.root, s.root));
+    }
+
+    /**
+     * Returns the entries of {@code this} from position {@code pos1} up to
+     * but not including position {@code pos2}.
+     *
+     * @param pos1
+     *            the first position
+     * @param pos2
+     *            the position after the last
+     * @return the subsequence
+     * @requires 0 <= pos1 and pos1 <= pos2 and pos2 <= |this|
+     * @ensures subSequence = this[pos1, pos2)
+     */
+    public PersistentSequence<T> subSequence(int pos1, int pos2) {
+        assert 0 <= pos1 : "Violation of: 0 <= pos1";
+        assert pos1 <= pos2 : "Violation of: pos1 <= pos2";
+        assert pos2 <= this.length() : "Violation of: pos2 <= |this|";
+
+        Split<T> parts = new Split<>();
+        split(this.root, pos2, parts);
+        split(parts.left, pos1, parts);
+        return new PersistentSequence<>(parts.right);
+    }
+
+    /**
+     * Returns {@code this} without the entries from position {@code pos1} up
+     * to but not including position {@code pos2}.
+     *
+     * @param pos1
+     *            the first position removed
+     * @param pos2
+     *            the position after the last removed
+     * @return the new sequence
+     * @requires 0 <= pos1 and pos1 <= pos2 and pos2 <= |this|
+     * @ensures removeRange = this[0, pos1) * this[pos2, |this|)
+     */
+    public PersistentSequence<T> removeRange(int pos1, int pos2) {
+        assert 0 <= pos1 : "Violation of: 0 <= pos1";
+        assert pos1 <= pos2 : "Violation of: pos1 <= pos2";
+        assert pos2 <= this.length() : "Violation of: pos2 <= |this|";
+
+        Split<T> parts = new Split<>();
+        split(this.root, pos2, parts);
+        Node<T> after = parts.right;
+        split(parts.left, pos1, parts);
+        return new PersistentSequence<>(merge(parts.left, after));
+    }
+
+    /**
+     * Returns {@code this} in reverse order, in O(1) time.
+     *
+     * @return the new sequence
+     * @ensures flip = rev(this)
+     */
+    public PersistentSequence<T> flip() {
+        return new PersistentSequence<>(reversed(this.root));
+    }
+
+    /*
+     * Iteration and standard methods -----------------------------------------
+     */
+
+    @Override
+    public Iterator<T> iterator() {
+        return new PersistentSequenceIterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for
+     * {@code PersistentSequence}: an in-order traversal that follows pending
+     * reversals.
+     */
+    private final class PersistentSequenceIterator implements Iterator<T> {
+
+        /**
+         * Nodes whose entry and following subtree are still to be visited.
+         */
+        private Node<T>[] path;
+
+        /**
+         * Whether each node of path is reversed, counting the pending
+         * reversals of its ancestors.
+         */
+        private boolean[] pathReversed;
+
+        /**
+         * Number of nodes on path.
+         */
+        private int depth;
+
+        /**
+         * No-argument constructor.
+         */
+        @SuppressWarnings("unchecked")
+        private PersistentSequenceIterator() {
+            final int initialDepth = 32;
+            this.path = (Node<T>[]) new Node<?>[initialDepth];
+            this.pathReversed = new boolean[initialDepth];
+            this.depth = 0;
+            this.pushFirst(PersistentSequence.this.root, false);
+        }
+
+        /**
+         * Pushes {@code n} and the nodes down to the first entry of its
+         * subtree onto path.
+         *
+         * @param n
+         *            the subtree, possibly null
+         * @param parentReversed
+         *            whether the parent of n is reversed
+         */
+        private void pushFirst(Node<T> n, boolean parentReversed) {
+            Node<T> node = n;
+            boolean reversed = parentReversed;
+            while (node != null) {
+                reversed ^= node.reversed;
+                if (this.depth == this.path.length) {
+                    this.path = Arrays.copyOf(this.path, 2 * this.depth);
+                    this.pathReversed = Arrays.copyOf(this.pathReversed,
+                            2 * this.depth);
+                }
+                this.path[this.depth] = node;
+                this.pathReversed[this.depth] = reversed;
+                this.depth++;
+                if (reversed) {
+                    node = node.right;
+                } else {
+                    node = node.left;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.depth > 0;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            this.depth--;
+            Node<T> n = this.path[this.depth];
+            boolean reversed = this.pathReversed[this.depth];
+            this.path[this.depth] = null;
+            if (reversed) {
+                this.pushFirst(n.left, true);
+            } else {
+                this.pushFirst(n.right, false);
+            }
+            return n.value;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        boolean result = obj == this;
+        if (!result && obj instanceof PersistentSequence<?>) {
+            PersistentSequence<?> other = (PersistentSequence<?>) obj;
+            result = other.length() == this.length();
+            Iterator<T> it1 = this.iterator();
+            Iterator<?> it2 = other.iterator();
+            while (result && it1.hasNext()) {
+                result = it1.next().equals(it2.next());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        final int a = 37;
+        int result = 0;
+        for (T x : this) {
+            result = a * result + x.hashCode();
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("<");
+        Iterator<T> it = this.iterator();
+        while (it.hasNext()) {
+            result.append(it.next());
+            if (it.hasNext()) {
+                result.append(",");
+            }
+        }
+        result.append(">");
+        return result.toString();
+    }
+
+}
@@ -0,0 +1,134 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fixed-size binary encoding of the entries of an {@code OffHeapSequence}.
+ * Every entry takes exactly {@link #size()} bytes, so the entry at any
+ * position can be found without reading the others.
+ *
+ * @param <T>
+ *            type of the entries encoded
+ *
+ * @author Nyja Gowda
+ *
+ */
+public interface RecordCodec<T> {
+
+    /**
+     * Codec of {@code Integer}s, as 4 big-endian bytes.
+     */
+    RecordCodec<Integer> INT = new RecordCodec<Integer>() {
+
+        @Override
+        public int size() {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Integer x) {
+            buffer.putInt(offset, x);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buffer, int offset) {
+            return buffer.getInt(offset);
+        }
+
+    };
+
+    /**
+     * Codec of {@code Long}s, as 8 big-endian bytes.
+     */
+    RecordCodec<Long> LONG = new RecordCodec<Long>() {
+
+        @Override
+        public int size() {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Long x) {
+            buffer.putLong(offset, x);
+        }
+
+        @Override
+        public Long read(ByteBuffer buffer, int offset) {
+            return buffer.getLong(offset);
+        }
+
+    };
+
+    /**
+     * Returns a codec of {@code String}s of at most {@code maxBytes} bytes in
+     * UTF-8, stored as a 2 byte length followed by the bytes and padding.
+     *
+     * @param maxBytes
+     *            largest number of UTF-8 bytes of a string
+     * @return the codec
+     * @requires 0 < maxBytes <= Short.MAX_VALUE
+     */
+    static RecordCodec<String> utf8(int maxBytes) {
+        assert 0 < maxBytes
+                && maxBytes <= Short.MAX_VALUE : ""
+                        + "Violation of: 0 < maxBytes <= Short.MAX_VALUE";
+        return new RecordCodec<String>() {
+
+            @Override
+            public int size() {
+                return Short.BYTES + maxBytes;
+            }
+
+            @Override
+            public void write(ByteBuffer buffer, int offset, String x) {
+                byte[] bytes = x.getBytes(StandardCharsets.UTF_8);
+                assert bytes.length <= maxBytes : ""
+                        + "Violation of: |x in UTF-8| <= maxBytes";
+                buffer.putShort(offset, (short) bytes.length);
+                buffer.put(offset + Short.BYTES, bytes);
+            }
+
+            @Override
+            public String read(ByteBuffer buffer, int offset) {
+                byte[] bytes = new byte[buffer.getShort(offset)];
+                buffer.get(offset + Short.BYTES, bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+
+        };
+    }
+
+    /**
+     * Returns the number of bytes of every encoded entry.
+     *
+     * @return the size of a record
+     * @ensures size > 0
+     */
+    int size();
+
+    /**
+     * Encodes {@code x} into the {@code size()} bytes of {@code buffer}
+     * starting at {@code offset}, without changing its position.
+     *
+     * @param buffer
+     *            the buffer written
+     * @param offset
+     *            index of the first byte of the record
+     * @param x
+     *            the entry
+     * @requires x can be encoded in size() bytes
+     */
+    void write(ByteBuffer buffer, int offset, T x);
+
+    /**
+     * Decodes the entry in the {@code size()} bytes of {@code buffer}
+     * starting at {@code offset}, without changing its position.
+     *
+     * @param buffer
+     *            the buffer read
+     * @param offset
+     *            index of the first byte of the record
+     * @return the entry
+     */
+    T read(ByteBuffer buffer, int offset);
+
+}
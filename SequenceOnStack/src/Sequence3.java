@@ -1,4 +1,5 @@
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import components.sequence.Sequence;
 import components.sequence.SequenceSecondary;
@@ -183,13 +184,167 @@ public class Sequence3<T> extends SequenceSecondary<T> {
 
     @Override
     public final Iterator<T> iterator() {
-        setLengthOfLeftStack(this.left, this.right, 0);
-        return this.right.iterator();
+        return new Sequence3Iterator();
     }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Sequence3} that
+     * reads the entries where they are instead of moving them all onto the
+     * right stack: first the entries of the left stack from the bottom up,
+     * then those of the right stack from the top down.
+     */
+    private final class Sequence3Iterator implements Iterator<T> {
+
+        /**
+         * Entries of the left stack, from the bottom up, or null if it is
+         * empty. A {@code Stack} can only be iterated from the top down, so
+         * these are copied once when the iterator is made.
+         */
+        private final Object[] leftEntries;
+
+        /**
+         * Index in leftEntries of the next entry.
+         */
+        private int leftIndex;
+
+        /**
+         * Iterator of the right stack.
+         */
+        private final Iterator<T> rightIterator;
+
+        /**
+         * No-argument constructor.
+         */
+        private Sequence3Iterator() {
+            int leftLength = Sequence3.this.left.length();
+            if (leftLength == 0) {
+                this.leftEntries = null;
+            } else {
+                this.leftEntries = new Object[leftLength];
+                int i = leftLength;
+                for (T x : Sequence3.this.left) {
+                    i--;
+                    this.leftEntries[i] = x;
+                }
+            }
+            this.leftIndex = 0;
+            this.rightIterator = Sequence3.this.right.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return (this.leftEntries != null
+                    && this.leftIndex < this.leftEntries.length)
+                    || this.rightIterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            T x;
+            if (this.leftEntries != null
+                    && this.leftIndex < this.leftEntries.length) {
+                @SuppressWarnings("unchecked")
+                T leftEntry = (T) this.leftEntries[this.leftIndex];
+                x = leftEntry;
+                this.leftIndex++;
+            } else {
+                x = this.rightIterator.next();
+            }
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
     /*
      * Other methods (overridden for performance reasons) ---------------------
      */
 
+    @Override
+    public final T replaceEntry(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        setLengthOfLeftStack(this.left, this.right, pos);
+        return this.right.replaceTop(x);
+    }
+
+    @Override
+    public final void append(Sequence<T> s1) {
+        assert s1 != null : "Violation of: s1 is not null";
+        assert s1 != this : "Violation of: s1 is not this";
+
+        if (this.length() == 0 && s1 instanceof Sequence3<?>) {
+            //both stacks of s1 can be taken over as they are
+            this.transferFrom(s1);
+        } else {
+            this.insert(this.length(), s1);
+        }
+    }
+
+    @Override
+    public final void insert(int pos, Sequence<T> s1) {
+        assert s1 != null : "Violation of: s1 is not null";
+        assert s1 != this : "Violation of: s1 is not this";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos <= this.length() : "Violation of: pos <= |this|";
+
+        if (s1 instanceof Sequence3<?>) {
+            Sequence3<T> other = (Sequence3<T>) s1;
+            /*
+             * With the cursors of this at pos and of s1 at its start, the
+             * entries of s1 are pushed onto the left stack of this in order
+             */
+            setLengthOfLeftStack(this.left, this.right, pos);
+            setLengthOfLeftStack(other.left, other.right, 0);
+            while (other.right.length() > 0) {
+                this.left.push(other.right.pop());
+            }
+        } else {
+            super.insert(pos, s1);
+        }
+    }
+
+    @Override
+    public final void extract(int pos1, int pos2, Sequence<T> s1) {
+        assert s1 != null : "Violation of: s1 is not null";
+        assert s1 != this : "Violation of: s1 is not this";
+        assert 0 <= pos1 : "Violation of: 0 <= pos1";
+        assert pos1 <= pos2 : "Violation of: pos1 <= pos2";
+        assert pos2 <= this.length() : "Violation of: pos2 <= |this|";
+
+        if (s1 instanceof Sequence3<?>) {
+            Sequence3<T> other = (Sequence3<T>) s1;
+            other.createNewRep();
+            setLengthOfLeftStack(this.left, this.right, pos1);
+            if (pos2 == this.length()) {
+                //the whole right stack is extracted, so it is taken over
+                other.right.transferFrom(this.right);
+            } else {
+                for (int i = pos1; i < pos2; i++) {
+                    other.left.push(this.right.pop());
+                }
+            }
+        } else {
+            super.extract(pos1, pos2, s1);
+        }
+    }
+
     @Override
     public final void flip() {
         setLengthOfLeftStack(this.left, this.right,
@@ -205,9 +360,22 @@ public class Sequence3<T> extends SequenceSecondary<T> {
         assert 0 <= pos : "Violation of: 0 <= pos";
         assert pos < this.length() : "Violation of: pos < |this|";
 
-        setLengthOfLeftStack(this.left, this.right, pos);
-        T x = this.right.pop();
-        this.right.push(x);
-        return x;
+        /*
+         * Read the entry in place: rev(left) holds positions 0 to |left| - 1,
+         * so the entry at pos is |left| - 1 - pos entries below the top of
+         * left, or pos - |left| entries below the top of right.
+         */
+        Stack<T> stack = this.right;
+        int depth = pos - this.left.length();
+        if (depth < 0) {
+            stack = this.left;
+            depth = -depth - 1;
+        }
+        Iterator<T> it = stack.iterator();
+        while (depth > 0) {
+            it.next();
+            depth--;
+        }
+        return it.next();
     }
 }
@@ -0,0 +1,303 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.sequence.Sequence;
+import components.sequence.SequenceSecondary;
+
+/**
+ * {@code Sequence} represented as a gap buffer, an array with a movable gap of
+ * unused slots at the position of the last change, with implementations of
+ * primary methods.
+ *
+ * @param <T>
+ *            type of {@code Sequence} entries
+ * @convention <pre>
+ * 0 <= $this.gapStart <= $this.gapEnd <= |$this.entries|  and
+ * [entries of $this.entries in the gap are null]
+ * </pre>
+ * @correspondence <pre>
+ * this = [entries of $this.entries before $this.gapStart] *
+ *        [entries of $this.entries from $this.gapEnd on]
+ * </pre>
+ */
+public class Sequence4<T> extends SequenceSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Initial size of the array.
+     */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * Entries, with the gap between {@code gapStart} and {@code gapEnd}.
+     */
+    private Object[] entries;
+
+    /**
+     * Index of the first slot of the gap.
+     */
+    private int gapStart;
+
+    /**
+     * Index of the first slot after the gap.
+     */
+    private int gapEnd;
+
+    /**
+     * Moves the gap so that it starts at {@code pos}, keeping the entries in
+     * the same order.
+     *
+     * @param pos
+     *            new start of the gap
+     * @updates this
+     * @requires 0 <= pos <= |this|
+     * @ensures this = #this and $this.gapStart = pos
+     */
+    private void moveGap(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos <= this.length() : "Violation of: pos <= |this|";
+
+        int gapLength = this.gapEnd - this.gapStart;
+        if (pos < this.gapStart) {
+            int count = this.gapStart - pos;
+            System.arraycopy(this.entries, pos, this.entries,
+                    this.gapEnd - count, count);
+            Arrays.fill(this.entries, pos, Math.min(this.gapStart,
+                    this.gapEnd - count), null);
+        } else if (pos > this.gapStart) {
+            int count = pos - this.gapStart;
+            System.arraycopy(this.entries, this.gapEnd, this.entries,
+                    this.gapStart, count);
+            Arrays.fill(this.entries, Math.max(this.gapEnd, pos),
+                    this.gapEnd + count, null);
+        }
+        this.gapStart = pos;
+        this.gapEnd = pos + gapLength;
+    }
+
+    /**
+     * Makes the gap at least one slot long, doubling the size of the array if
+     * it is full.
+     *
+     * @updates this
+     * @ensures this = #this and $this.gapStart < $this.gapEnd
+     */
+    private void ensureGap() {
+        if (this.gapStart == this.gapEnd) {
+            int afterGap = this.entries.length - this.gapEnd;
+            Object[] grown = new Object[2 * this.entries.length];
+            System.arraycopy(this.entries, 0, grown, 0, this.gapStart);
+            System.arraycopy(this.entries, this.gapEnd, grown,
+                    grown.length - afterGap, afterGap);
+            this.gapEnd = grown.length - afterGap;
+            this.entries = grown;
+        }
+    }
+
+    /**
+     * Returns the index in {@code entries} of the entry at position
+     * {@code pos}.
+     *
+     * @param pos
+     *            the position
+     * @return the index of the entry
+     * @requires 0 <= pos < |this|
+     */
+    private int indexOf(int pos) {
+        int index = pos;
+        if (pos >= this.gapStart) {
+            index += this.gapEnd - this.gapStart;
+        }
+        return index;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.entries = new Object[INITIAL_CAPACITY];
+        this.gapStart = 0;
+        this.gapEnd = INITIAL_CAPACITY;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Sequence4() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Sequence<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Sequence<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Sequence4<?> : ""
+                + "Violation of: source is of dynamic type Sequence4<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Sequence4<?>,
+         * and the ? must be T or the call would not have compiled.
+         */
+        Sequence4<T> localSource = (Sequence4<T>) source;
+        this.entries = localSource.entries;
+        this.gapStart = localSource.gapStart;
+        this.gapEnd = localSource.gapEnd;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos <= this.length() : "Violation of: pos <= |this|";
+
+        this.moveGap(pos);
+        this.ensureGap();
+        this.entries[this.gapStart] = x;
+        this.gapStart++;
+    }
+
+    @Override
+    public final T remove(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        this.moveGap(pos);
+        @SuppressWarnings("unchecked")
+        T x = (T) this.entries[this.gapEnd];
+        this.entries[this.gapEnd] = null;
+        this.gapEnd++;
+        return x;
+    }
+
+    @Override
+    public final int length() {
+        return this.entries.length - (this.gapEnd - this.gapStart);
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Sequence4Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Sequence4},
+     * skipping over the gap.
+     */
+    private final class Sequence4Iterator implements Iterator<T> {
+
+        /**
+         * Index in {@code entries} of the next entry.
+         */
+        private int index;
+
+        /**
+         * No-argument constructor.
+         */
+        private Sequence4Iterator() {
+            this.index = Sequence4.this.indexOf(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.index < Sequence4.this.entries.length;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            @SuppressWarnings("unchecked")
+            T x = (T) Sequence4.this.entries[this.index];
+            this.index++;
+            if (this.index == Sequence4.this.gapStart) {
+                this.index = Sequence4.this.gapEnd;
+            }
+            return x;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final T entry(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        return (T) this.entries[this.indexOf(pos)];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final T replaceEntry(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        int index = this.indexOf(pos);
+        T old = (T) this.entries[index];
+        this.entries[index] = x;
+        return old;
+    }
+
+    @Override
+    public final void flip() {
+        int length = this.length();
+        this.moveGap(length);
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            Object x = this.entries[i];
+            this.entries[i] = this.entries[j];
+            this.entries[j] = x;
+        }
+    }
+
+}
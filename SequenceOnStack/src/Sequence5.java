@@ -0,0 +1,544 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import components.sequence.Sequence;
+import components.sequence.SequenceSecondary;
+
+/**
+ * {@code Sequence} represented as a treap with implicit keys: a binary tree
+ * whose in-order traversal is the sequence, with each node annotated with the
+ * size of its subtree so positions can be found by descending from the root,
+ * and kept balanced with high probability by random priorities. All
+ * positional operations take O(log |this|) expected time, and so do
+ * {@code append}, {@code insert} and {@code extract}, which split and merge
+ * whole subtrees. {@code flip} takes O(1) time, reversing subtrees lazily.
+ *
+ * @param <T>
+ *            type of {@code Sequence} entries
+ * @convention <pre>
+ * [$this.root is a treap: every node's priority is at least the priority
+ *  of its children]  and
+ * [every node's size is the number of nodes in its subtree]
+ * </pre>
+ * @correspondence <pre>
+ * this = [in-order traversal of $this.root, where the subtree of a node
+ *         whose reversed flag is set is taken in reverse order]
+ * </pre>
+ */
+public class Sequence5<T> extends SequenceSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Node of the tree.
+     *
+     * @param <T>
+     *            type of the entry
+     */
+    private static final class Node<T> {
+
+        /**
+         * The entry.
+         */
+        private T value;
+
+        /**
+         * Random priority, larger nearer the root.
+         */
+        private final int priority;
+
+        /**
+         * Number of nodes in the subtree.
+         */
+        private int size;
+
+        /**
+         * Left subtree.
+         */
+        private Node<T> left;
+
+        /**
+         * Right subtree.
+         */
+        private Node<T> right;
+
+        /**
+         * Whether the order of the subtree is reversed, with the children not
+         * swapped yet.
+         */
+        private boolean reversed;
+
+        /**
+         * Constructor.
+         *
+         * @param value
+         *            the entry
+         */
+        Node(T value) {
+            this.value = value;
+            this.priority = ThreadLocalRandom.current().nextInt();
+            this.size = 1;
+        }
+
+    }
+
+    /**
+     * Result of {@code split}: the two trees of the split.
+     *
+     * @param <T>
+     *            type of the entries
+     */
+    private static final class Split<T> {
+
+        /**
+         * Tree of the entries before the split position.
+         */
+        private Node<T> left;
+
+        /**
+         * Tree of the entries from the split position on.
+         */
+        private Node<T> right;
+
+    }
+
+    /**
+     * Root of the tree.
+     */
+    private Node<T> root;
+
+    /**
+     * Returns the number of nodes of the tree {@code n}.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param n
+     *            the tree, possibly null
+     * @return the size of n
+     */
+    private static <T> int size(Node<T> n) {
+        int size = 0;
+        if (n != null) {
+            size = n.size;
+        }
+        return size;
+    }
+
+    /**
+     * Recomputes the size of {@code n} from its children.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param n
+     *            the node
+     */
+    private static <T> void update(Node<T> n) {
+        n.size = 1 + size(n.left) + size(n.right);
+    }
+
+    /**
+     * Applies a pending reversal of {@code n} to its children.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param n
+     *            the node
+     */
+    private static <T> void pushDown(Node<T> n) {
+        if (n.reversed) {
+            Node<T> x = n.left;
+            n.left = n.right;
+            n.right = x;
+            if (n.left != null) {
+                n.left.reversed = !n.left.reversed;
+            }
+            if (n.right != null) {
+                n.right.reversed = !n.right.reversed;
+            }
+            n.reversed = false;
+        }
+    }
+
+    /**
+     * Splits the tree {@code n} into the tree of its first {@code k} entries
+     * and the tree of the others.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param n
+     *            the tree, possibly null
+     * @param k
+     *            number of entries of the left tree
+     * @param result
+     *            receives the two trees
+     * @requires 0 <= k <= size(n)
+     */
+    private static <T> void split(Node<T> n, int k, Split<T> result) {
+        if (n == null) {
+            result.left = null;
+            result.right = null;
+        } else {
+            pushDown(n);
+            if (k <= size(n.left)) {
+                split(n.left, k, result);
+                n.left = result.right;
+                update(n);
+                result.right = n;
+            } else {
+                split(n.right, k - size(n.left) - 1, result);
+                n.right = result.left;
+                update(n);
+                result.left = n;
+            }
+        }
+    }
+
+    /**
+     * Returns the tree of the entries of {@code a} followed by those of
+     * {@code b}.
+     *
+     * @param <T>
+     *            type of the entries
+     * @param a
+     *            the left tree, possibly null
+     * @param b
+     *            the right tree, possibly null
+     * @return the merged tree
+     */
+    private static <T> Node<T> merge(Node<T> a, Node<T> b) {
+        Node<T> merged;
+        if (a == null) {
+            merged = b;
+        } else if (b == null) {
+            merged = a;
+        } else if (a.priority >= b.priority) {
+            pushDown(a);
+            a.right = merge(a.right, b);
+            update(a);
+            merged = a;
+        } else {
+            pushDown(b);
+            b.left = merge(a, b.left);
+            update(b);
+            merged = b;
+        }
+        return merged;
+    }
+
+    /**
+     * Returns the node of the entry at position {@code pos}, without changing
+     * the tree.
+     *
+     * @param pos
+     *            the position
+     * @return the node
+     * @requires 0 <= pos < |this|
+     */
+    private Node<T> nodeAt(int pos) {
+        Node<T> n = this.root;
+        boolean reversed = false;
+        int k = pos;
+        boolean found = false;
+        while (!found) {
+            reversed ^= n.reversed;
+            Node<T> before = n.left;
+            Node<T> after = n.right;
+            if (reversed) {
+                before = n.right;
+                after = n.left;
+            }
+            if (k < size(before)) {
+                n = before;
+            } else if (k == size(before)) {
+                found = true;
+            } else {
+                k -= size(before) + 1;
+                n = after;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.root = null;
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public Sequence5() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Sequence<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Sequence<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof Sequence5<?> : ""
+                + "Violation of: source is of dynamic type Sequence5<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type Sequence5<?>,
+         * and the ? must be T or the call would not have compiled.
+         */
+        Sequence5<T> localSource = (Sequence5<T>) source;
+        this.root = localSource.root;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos <= this.length() : "Violation of: pos <= |this|";
+
+        Split<T> parts = new Split<>();
+        split(this.root, pos, parts);
+        this.root = merge(merge(parts.left, new Node<>(x)), parts.right);
+    }
+
+    @Override
+    public final T remove(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        Split<T> parts = new Split<>();
+        split(this.root, pos, parts);
+        Node<T> before = parts.left;
+        split(parts.right, 1, parts);
+        this.root = merge(before, parts.right);
+        return parts.left.value;
+    }
+
+    @Override
+    public final int length() {
+        return size(this.root);
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return new Sequence5Iterator();
+    }
+
+    /**
+     * Implementation of {@code Iterator} interface for {@code Sequence5}: an
+     * in-order traversal that follows pending reversals without applying
+     * them, so iterating never changes the tree.
+     */
+    private final class Sequence5Iterator implements Iterator<T> {
+
+        /**
+         * Nodes whose entry and following subtree are still to be visited.
+         */
+        private Node<T>[] path;
+
+        /**
+         * Whether each node of path is reversed, counting the pending
+         * reversals of its ancestors.
+         */
+        private boolean[] pathReversed;
+
+        /**
+         * Number of nodes on path.
+         */
+        private int depth;
+
+        /**
+         * No-argument constructor.
+         */
+        @SuppressWarnings("unchecked")
+        private Sequence5Iterator() {
+            final int initialDepth = 32;
+            this.path = (Node<T>[]) new Node<?>[initialDepth];
+            this.pathReversed = new boolean[initialDepth];
+            this.depth = 0;
+            this.pushFirst(Sequence5.this.root, false);
+        }
+
+        /**
+         * Pushes {@code n} and the nodes down to the first entry of its
+         * subtree onto path.
+         *
+         * @param n
+         *            the subtree, possibly null
+         * @param parentReversed
+         *            whether the parent of n is reversed
+         */
+        private void pushFirst(Node<T> n, boolean parentReversed) {
+            Node<T> node = n;
+            boolean reversed = parentReversed;
+            while (node != null) {
+                reversed ^= node.reversed;
+                if (this.depth == this.path.length) {
+                    this.path = Arrays.copyOf(this.path,
+                            2 * this.depth);
+                    this.pathReversed = Arrays.copyOf(this.pathReversed,
+                            2 * this.depth);
+                }
+                this.path[this.depth] = node;
+                this.pathReversed[this.depth] = reversed;
+                this.depth++;
+                if (reversed) {
+                    node = node.right;
+                } else {
+                    node = node.left;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.depth > 0;
+        }
+
+        @Override
+        public T next() {
+            assert this.hasNext() : "Violation of: ~this.unseen /= <>";
+            if (!this.hasNext()) {
+                /*
+                 * Exception is supposed to be thrown in this case, but with
+                 * assertion-checking enabled it cannot happen because of assert
+                 * above.
+                 */
+                throw new NoSuchElementException();
+            }
+            this.depth--;
+            Node<T> n = this.path[this.depth];
+            boolean reversed = this.pathReversed[this.depth];
+            this.path[this.depth] = null;
+            if (reversed) {
+                this.pushFirst(n.left, true);
+            } else {
+                this.pushFirst(n.right, false);
+            }
+            return n.value;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "remove operation not supported");
+        }
+
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @Override
+    public final T entry(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        return this.nodeAt(pos).value;
+    }
+
+    @Override
+    public final T replaceEntry(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        Node<T> n = this.nodeAt(pos);
+        T old = n.value;
+        n.value = x;
+        return old;
+    }
+
+    @Override
+    public final void append(Sequence<T> s1) {
+        assert s1 != null : "Violation of: s1 is not null";
+        assert s1 != this : "Violation of: s1 is not this";
+
+        if (s1 instanceof Sequence5<?>) {
+            Sequence5<T> other = (Sequence5<T>) s1;
+            this.root = merge(this.root, other.root);
+            other.createNewRep();
+        } else {
+            super.append(s1);
+        }
+    }
+
+    @Override
+    public final void insert(int pos, Sequence<T> s1) {
+        assert s1 != null : "Violation of: s1 is not null";
+        assert s1 != this : "Violation of: s1 is not this";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos <= this.length() : "Violation of: pos <= |this|";
+
+        if (s1 instanceof Sequence5<?>) {
+            Sequence5<T> other = (Sequence5<T>) s1;
+            Split<T> parts = new Split<>();
+            split(this.root, pos, parts);
+            this.root = merge(merge(parts.left, other.root), parts.right);
+            other.createNewRep();
+        } else {
+            super.insert(pos, s1);
+        }
+    }
+
+    @Override
+    public final void extract(int pos1, int pos2, Sequence<T> s1) {
+        assert s1 != null : "Violation of: s1 is not null";
+        assert s1 != this : "Violation of: s1 is not this";
+        assert 0 <= pos1 : "Violation of: 0 <= pos1";
+        assert pos1 <= pos2 : "Violation of: pos1 <= pos2";
+        assert pos2 <= this.length() : "Violation of: pos2 <= |this|";
+
+        if (s1 instanceof Sequence5<?>) {
+            Sequence5<T> other = (Sequence5<T>) s1;
+            Split<T> parts = new Split<>();
+            split(this.root, pos1, parts);
+            Node<T> before = parts.left;
+            split(parts.right, pos2 - pos1, parts);
+            other.root = parts.left;
+            this.root = merge(before, parts.right);
+        } else {
+            super.extract(pos1, pos2, s1);
+        }
+    }
+
+    @Override
+    public final void flip() {
+        if (this.root != null) {
+            this.root.reversed = !this.root.reversed;
+        }
+    }
+
+}
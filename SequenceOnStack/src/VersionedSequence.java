@@ -0,0 +1,221 @@
+import java.util.Iterator;
+
+import components.sequence.Sequence;
+import components.sequence.SequenceSecondary;
+
+/**
+ * {@code Sequence} represented as a {@code PersistentSequence} that is
+ * replaced by a new version on every change. It can be used wherever a
+ * {@code Sequence} is, and adds {@link #snapshot}, which returns the current
+ * version in O(1) time, and {@link #restore}, which makes a saved version
+ * current again, so undo and versioning need no copying. Positional
+ * operations take O(log |this|) expected time, and so do {@code append},
+ * {@code insert} and {@code extract} between {@code VersionedSequence}s.
+ *
+ * @param <T>
+ *            type of {@code Sequence} entries
+ * @correspondence this = $this.rep
+ */
+public class VersionedSequence<T> extends SequenceSecondary<T> {
+
+    /*
+     * Private members --------------------------------------------------------
+     */
+
+    /**
+     * Current version of the entries.
+     */
+    private PersistentSequence<T> rep;
+
+    /**
+     * Creator of initial representation.
+     */
+    private void createNewRep() {
+        this.rep = PersistentSequence.empty();
+    }
+
+    /*
+     * Constructors -----------------------------------------------------------
+     */
+
+    /**
+     * No-argument constructor.
+     */
+    public VersionedSequence() {
+        this.createNewRep();
+    }
+
+    /*
+     * Standard methods -------------------------------------------------------
+     */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final Sequence<T> newInstance() {
+        try {
+            return this.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(
+                    "Cannot construct object of type " + this.getClass());
+        }
+    }
+
+    @Override
+    public final void clear() {
+        this.createNewRep();
+    }
+
+    @Override
+    public final void transferFrom(Sequence<T> source) {
+        assert source != null : "Violation of: source is not null";
+        assert source != this : "Violation of: source is not this";
+        assert source instanceof VersionedSequence<?> : "Violation of: "
+                + "source is of dynamic type VersionedSequence<?>";
+        /*
+         * This cast cannot fail since the assert above would have stopped
+         * execution in that case: source must be of dynamic type
+         * VersionedSequence<?>, and the ? must be T or the call would not
+         * have compiled.
+         */
+        VersionedSequence<T> localSource = (VersionedSequence<T>) source;
+        this.rep = localSource.rep;
+        localSource.createNewRep();
+    }
+
+    /*
+     * Kernel methods ---------------------------------------------------------
+     */
+
+    @Override
+    public final void add(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos <= this.length() : "Violation of: pos <= |this|";
+
+        this.rep = this.rep.add(pos, x);
+    }
+
+    @Override
+    public final T remove(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        T x = this.rep.entry(pos);
+        this.rep = this.rep.remove(pos);
+        return x;
+    }
+
+    @Override
+    public final int length() {
+        return this.rep.length();
+    }
+
+    @Override
+    public final Iterator<T> iterator() {
+        return this.rep.iterator();
+    }
+
+    /*
+     * Other methods (overridden for performance reasons) ---------------------
+     */
+
+    @Override
+    public final T entry(int pos) {
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        return this.rep.entry(pos);
+    }
+
+    @Override
+    public final T replaceEntry(int pos, T x) {
+        assert x != null : "Violation of: x is not null";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos < this.length() : "Violation of: pos < |this|";
+
+        T old = this.rep.entry(pos);
+        this.rep = this.rep.replaceEntry(pos, x);
+        return old;
+    }
+
+    @Override
+    public final void append(Sequence<T> s1) {
+        assert s1 != null : "Violation of: s1 is not null";
+        assert s1 != this : "Violation of: s1 is not this";
+
+        if (s1 instanceof VersionedSequence<?>) {
+            VersionedSequence<T> other = (VersionedSequence<T>) s1;
+            this.rep = this.rep.append(other.rep);
+            other.createNewRep();
+        } else {
+            super.append(s1);
+        }
+    }
+
+    @Override
+    public final void insert(int pos, Sequence<T> s1) {
+        assert s1 != null : "Violation of: s1 is not null";
+        assert s1 != this : "Violation of: s1 is not this";
+        assert 0 <= pos : "Violation of: 0 <= pos";
+        assert pos <= this.length() : "Violation of: pos <= |this|";
+
+        if (s1 instanceof VersionedSequence<?>) {
+            VersionedSequence<T> other = (VersionedSequence<T>) s1;
+            this.rep = this.rep.insert(pos, other.rep);
+            other.createNewRep();
+        } else {
+            super.insert(pos, s1);
+        }
+    }
+
+    @Override
+    public final void extract(int pos1, int pos2, Sequence<T> s1) {
+        assert s1 != null : "Violation of: s1 is not null";
+        assert s1 != this : "Violation of: s1 is not this";
+        assert 0 <= pos1 : "Violation of: 0 <= pos1";
+        assert pos1 <= pos2 : "Violation of: pos1 <= pos2";
+        assert pos2 <= this.length() : "Violation of: pos2 <= |this|";
+
+        if (s1 instanceof VersionedSequence<?>) {
+            VersionedSequence<T> other = (VersionedSequence<T>) s1;
+            other.rep = this.rep.subSequence(pos1, pos2);
+            this.rep = this.rep.removeRange(pos1, pos2);
+        } else {
+            super.extract(pos1, pos2, s1);
+        }
+    }
+
+    @Override
+    public final void flip() {
+        this.rep = this.rep.flip();
+    }
+
+    /*
+     * Other methods ----------------------------------------------------------
+     */
+
+    /**
+     * Returns the current version of {@code this}, in O(1) time. Later changes
+     * to this do not change the version returned.
+     *
+     * @return the current entries
+     * @ensures snapshot = this
+     */
+    public final PersistentSequence<T> snapshot() {
+        return this.rep;
+    }
+
+    /**
+     * Makes {@code version} the current entries of {@code this}, in O(1) time.
+     *
+     * @param version
+     *            the entries, usually an earlier snapshot
+     * @replaces this
+     * @ensures this = version
+     */
+    public final void restore(PersistentSequence<T> version) {
+        assert version != null : "Violation of: version is not null";
+        this.rep = version;
+    }
+
+}
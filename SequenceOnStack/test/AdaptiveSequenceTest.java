@@ -0,0 +1,122 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.sequence.Sequence;
+import components.sequence.Sequence1L;
+
+/**
+ * Customized JUnit test fixture for {@code AdaptiveSequence}, with tests of
+ * the number of entries it moves.
+ */
+public class AdaptiveSequenceTest extends SequenceTest {
+
+    /**
+     * Length of the sequences in the tests of entries moved.
+     */
+    private static final int N = 10000;
+
+    @Override
+    protected final Sequence<String> constructorTest() {
+        return new AdaptiveSequence<String>();
+    }
+
+    @Override
+    protected final Sequence<String> constructorRef() {
+        return new Sequence1L<String>();
+    }
+
+    /**
+     * Creates and returns an {@code AdaptiveSequence} of N entries with its
+     * cursor in the middle and its counters reset.
+     *
+     * @return the sequence
+     */
+    private static AdaptiveSequence<String> middleCursor() {
+        AdaptiveSequence<String> s = new AdaptiveSequence<String>();
+        for (int i = 0; i < N; i++) {
+            s.add(i, "e" + i);
+        }
+        s.remove(N / 2);
+        s.add(N / 2, "e" + N / 2);
+        s.resetCounters();
+        return s;
+    }
+
+    /**
+     * Test that accesses alternating between the two ends move nothing.
+     */
+    @Test
+    public void testAlternatingEnds() {
+        AdaptiveSequence<String> s = middleCursor();
+        for (int i = 0; i < N; i++) {
+            s.add(0, "h" + i);
+            s.add(s.length(), "t" + i);
+            s.remove(0);
+            s.remove(s.length() - 1);
+        }
+        assertEquals(4L * N, s.operations());
+        assertEquals(0, s.elementsMoved());
+    }
+
+    /**
+     * Test that accesses near the ends walk in from them instead of moving
+     * the cursor.
+     */
+    @Test
+    public void testNearEnds() {
+        AdaptiveSequence<String> s = middleCursor();
+        for (int i = 0; i < N; i++) {
+            s.add(3, "h" + i);
+            assertTrue(s.movedByLastOperation() <= 2 * 3);
+            s.remove(s.length() - 3);
+            assertTrue(s.movedByLastOperation() <= 2 * 3);
+        }
+    }
+
+    /**
+     * Test that repeated accesses near one place far from the cursor park the
+     * cursor there.
+     */
+    @Test
+    public void testParking() {
+        AdaptiveSequence<String> s = middleCursor();
+        final int place = N / 10;
+        for (int i = 0; i < N; i++) {
+            s.add(place + i % 2, "x" + i);
+        }
+        assertTrue(s.elementsMoved() < 4L * N);
+    }
+
+    /**
+     * Test against {@code Sequence1L} with random operations.
+     */
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(1);
+        Sequence<String> s1 = this.constructorTest();
+        Sequence<String> s2 = this.constructorRef();
+        for (int i = 0; i < N; i++) {
+            int length = s2.length();
+            int choice = random.nextInt(4);
+            if (length == 0 || choice < 2) {
+                int pos = random.nextInt(length + 1);
+                s1.add(pos, "e" + i);
+                s2.add(pos, "e" + i);
+            } else if (choice == 2) {
+                int pos = random.nextInt(length);
+                assertEquals(s2.remove(pos), s1.remove(pos));
+            } else {
+                int pos = random.nextInt(length);
+                assertEquals(s2.entry(pos), s1.entry(pos));
+            }
+        }
+        s1.flip();
+        s2.flip();
+        assertEquals(s2, s1);
+    }
+
+}
@@ -0,0 +1,300 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import components.sequence.Sequence;
+import components.sequence.Sequence1L;
+
+/**
+ * Customized JUnit test fixture for {@code ConcurrentSequence}, with stress
+ * tests of concurrent readers and writers.
+ */
+public class ConcurrentSequenceTest extends SequenceTest {
+
+    /**
+     * Number of writer threads in the stress tests.
+     */
+    private static final int WRITERS = 4;
+
+    /**
+     * Number of reader threads in the stress tests.
+     */
+    private static final int READERS = 4;
+
+    /**
+     * Number of entries added by each writer.
+     */
+    private static final int ADDS_PER_WRITER = 5000;
+
+    @Override
+    protected final Sequence<String> constructorTest() {
+        return new ConcurrentSequence<String>();
+    }
+
+    @Override
+    protected final Sequence<String> constructorRef() {
+        return new Sequence1L<String>();
+    }
+
+    /**
+     * Starts {@code tasks} in their own threads at the same time, waits for
+     * them to finish, and rethrows the first failure of any of them.
+     *
+     * @param tasks
+     *            the tasks
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    private static void runConcurrently(List<Runnable> tasks)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (Runnable task : tasks) {
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run();
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+
+    /**
+     * Stress test: writers add entries at random positions while readers
+     * check that the length never decreases and that every snapshot they
+     * iterate is complete. In the end every entry added is there once.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    @Test
+    public void testConcurrentAdds() throws InterruptedException {
+        Sequence<String> s = this.constructorTest();
+        CountDownLatch writersDone = new CountDownLatch(WRITERS);
+        List<Runnable> tasks = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            final int writer = w;
+            tasks.add(() -> {
+                Random random = new Random(writer);
+                for (int i = 0; i < ADDS_PER_WRITER; i++) {
+                    s.add(random.nextInt(s.length() + 1), writer + ":" + i);
+                }
+                writersDone.countDown();
+            });
+        }
+        for (int r = 0; r < READERS; r++) {
+            final int reader = r;
+            tasks.add(() -> {
+                Random random = new Random(-1 - reader);
+                int lastLength = 0;
+                while (writersDone.getCount() > 0) {
+                    int length = s.length();
+                    assertTrue(length >= lastLength);
+                    lastLength = length;
+                    if (length > 0) {
+                        assertTrue(s.entry(random.nextInt(length)) != null);
+                    }
+                    int seen = 0;
+                    for (String x : s) {
+                        assertTrue(x != null);
+                        seen++;
+                    }
+                    assertTrue(seen >= lastLength);
+                }
+            });
+        }
+        runConcurrently(tasks);
+
+        List<String> expected = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            for (int i = 0; i < ADDS_PER_WRITER; i++) {
+                expected.add(w + ":" + i);
+            }
+        }
+        List<String> actual = new ArrayList<>();
+        for (String x : s) {
+            actual.add(x);
+        }
+        Collections.sort(expected);
+        Collections.sort(actual);
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Stress test: each writer moves the first entry to a random position,
+     * while other threads flip the sequence and move runs of it to another
+     * sequence and back. No entry is lost or duplicated.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    @Test
+    public void testConcurrentBulkOperations() throws InterruptedException {
+        final int initial = 1000;
+        final int run = 10;
+        /*
+         * every writer holds at most one entry out of s and the last task at
+         * most run entries, so positions below this one always exist; a
+         * position read from s.length() could be gone by the time it is used
+         */
+        final int alwaysValid = initial - WRITERS - run;
+        Sequence<String> s = this.constructorTest();
+        for (int i = 0; i < initial; i++) {
+            s.add(i, "e" + i);
+        }
+        List<Runnable> tasks = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            final int writer = w;
+            tasks.add(() -> {
+                Random random = new Random(writer);
+                for (int i = 0; i < ADDS_PER_WRITER; i++) {
+                    Sequence<String> one = new ConcurrentSequence<>();
+                    s.extract(0, 1, one);
+                    s.insert(random.nextInt(alwaysValid + 1), one);
+                    assertEquals(0, one.length());
+                }
+            });
+        }
+        tasks.add(() -> {
+            for (int i = 0; i < ADDS_PER_WRITER; i++) {
+                s.flip();
+            }
+        });
+        tasks.add(() -> {
+            for (int i = 0; i < ADDS_PER_WRITER; i++) {
+                Sequence<String> other = new ConcurrentSequence<>();
+                s.extract(0, run, other);
+                assertEquals(run, other.length());
+                s.append(other);
+            }
+        });
+        runConcurrently(tasks);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < initial; i++) {
+            expected.add("e" + i);
+        }
+        List<String> actual = new ArrayList<>();
+        for (String x : s) {
+            actual.add(x);
+        }
+        Collections.sort(expected);
+        Collections.sort(actual);
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Stress test: two threads move all the entries of one sequence to the
+     * other, in opposite directions, with append and insert. Each move locks
+     * both sequences, so this finishes, and no entry is lost or duplicated.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    @Test(timeout = 60000)
+    public void testOppositeMovesDoNotDeadlock() throws InterruptedException {
+        final int entries = 100;
+        Sequence<String> a = this.constructorTest();
+        Sequence<String> b = this.constructorTest();
+        for (int i = 0; i < entries; i++) {
+            a.add(i, "e" + i);
+        }
+        List<Runnable> tasks = new ArrayList<>();
+        tasks.add(() -> {
+            for (int i = 0; i < ADDS_PER_WRITER; i++) {
+                a.append(b);
+            }
+        });
+        tasks.add(() -> {
+            for (int i = 0; i < ADDS_PER_WRITER; i++) {
+                b.insert(0, a);
+            }
+        });
+        runConcurrently(tasks);
+
+        assertEquals(entries, a.length() + b.length());
+        List<String> actual = new ArrayList<>();
+        for (String x : a) {
+            actual.add(x);
+        }
+        for (String x : b) {
+            actual.add(x);
+        }
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < entries; i++) {
+            expected.add("e" + i);
+        }
+        Collections.sort(expected);
+        Collections.sort(actual);
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Test of insert at a position past the end: the precondition is checked
+     * before either sequence changes, so both are left as they were. Relies
+     * on assertions being enabled, as the other components tests do.
+     */
+    @Test
+    public void testInsertPastEndChangesNothing() {
+        Sequence<String> s = this.constructorTest();
+        s.add(0, "a");
+        Sequence<String> s1 = this.constructorTest();
+        s1.add(0, "b");
+        boolean failed = false;
+        try {
+            s.insert(2, s1);
+        } catch (AssertionError e) {
+            failed = true;
+        }
+        assertTrue(failed);
+        assertEquals(1, s.length());
+        assertEquals("a", s.entry(0));
+        assertEquals(1, s1.length());
+        assertEquals("b", s1.entry(0));
+    }
+
+    /**
+     * Test of extract of a range past the end: the precondition is checked
+     * before either sequence changes, so both are left as they were. Relies
+     * on assertions being enabled, as the other components tests do.
+     */
+    @Test
+    public void testExtractPastEndChangesNothing() {
+        Sequence<String> s = this.constructorTest();
+        s.add(0, "a");
+        Sequence<String> s1 = this.constructorTest();
+        s1.add(0, "b");
+        boolean failed = false;
+        try {
+            s.extract(0, 2, s1);
+        } catch (AssertionError e) {
+            failed = true;
+        }
+        assertTrue(failed);
+        assertEquals(1, s.length());
+        assertEquals("a", s.entry(0));
+        assertEquals(1, s1.length());
+        assertEquals("b", s1.entry(0));
+    }
+
+}
@@ -0,0 +1,163 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.PrimitiveIterator;
+
+import org.junit.Test;
+
+import components.sequence.Sequence;
+import components.sequence.Sequence1L;
+
+/**
+ * JUnit test fixture for {@code IntSequence}'s primitive and boxed methods.
+ */
+public class IntSequenceTest {
+
+    /**
+     * Creates and returns an {@code IntSequence} with the given entries.
+     *
+     * @param args
+     *            the entries for the sequence
+     * @return the constructed sequence
+     * @ensures createFromArgsTest = [entries in args]
+     */
+    private static IntSequence createFromArgsTest(int... args) {
+        IntSequence sequence = new IntSequence();
+        for (int x : args) {
+            sequence.addInt(sequence.length(), x);
+        }
+        return sequence;
+    }
+
+    /**
+     * Creates and returns a {@code Sequence1L<Integer>} with the given
+     * entries.
+     *
+     * @param args
+     *            the entries for the sequence
+     * @return the constructed sequence
+     * @ensures createFromArgsRef = [entries in args]
+     */
+    private static Sequence<Integer> createFromArgsRef(int... args) {
+        Sequence<Integer> sequence = new Sequence1L<Integer>();
+        for (int x : args) {
+            sequence.add(sequence.length(), x);
+        }
+        return sequence;
+    }
+
+    /**
+     * Test for the constructor.
+     */
+    @Test
+    public void testConstructor() {
+        IntSequence s1 = new IntSequence();
+        Sequence<Integer> s2 = createFromArgsRef();
+        assertEquals(s2, s1);
+    }
+
+    /**
+     * Test for addInt at the end and in the middle.
+     */
+    @Test
+    public void testAddInt() {
+        IntSequence s1 = createFromArgsTest(1, 2, 4);
+        Sequence<Integer> s2 = createFromArgsRef(0, 1, 2, 3, 4, 5);
+        s1.addInt(2, 3);
+        s1.addInt(0, 0);
+        s1.addInt(s1.length(), 5);
+        assertEquals(s2, s1);
+    }
+
+    /**
+     * Test for removeInt at both ends and in the middle.
+     */
+    @Test
+    public void testRemoveInt() {
+        IntSequence s1 = createFromArgsTest(1, 2, 3, 4, 5);
+        Sequence<Integer> s2 = createFromArgsRef(2, 4);
+        assertEquals(1, s1.removeInt(0));
+        assertEquals(5, s1.removeInt(s1.length() - 1));
+        assertEquals(3, s1.removeInt(1));
+        assertEquals(s2, s1);
+    }
+
+    /**
+     * Test for entryInt and replaceEntryInt on both sides of the gap.
+     */
+    @Test
+    public void testEntryInt() {
+        IntSequence s1 = createFromArgsTest(1, 2, 3, 4, 5);
+        s1.addInt(2, -1);
+        s1.removeInt(2);
+        Sequence<Integer> s2 = createFromArgsRef(1, 2, 30, 4, 5);
+        assertEquals(2, s1.entryInt(1));
+        assertEquals(4, s1.entryInt(3));
+        assertEquals(3, s1.replaceEntryInt(2, 30));
+        assertEquals(s2, s1);
+    }
+
+    /**
+     * Test for the boxed kernel methods.
+     */
+    @Test
+    public void testBoxed() {
+        Sequence<Integer> s1 = new IntSequence();
+        Sequence<Integer> s2 = createFromArgsRef(7, 8, 9);
+        s1.add(0, 9);
+        s1.add(0, 7);
+        s1.add(1, 8);
+        s1.add(1, 0);
+        assertEquals(Integer.valueOf(0), s1.remove(1));
+        assertEquals(Integer.valueOf(8), s1.entry(1));
+        assertEquals(s2, s1);
+    }
+
+    /**
+     * Test for growing past the initial capacity.
+     */
+    @Test
+    public void testGrow() {
+        final int n = 1000;
+        IntSequence s1 = new IntSequence();
+        Sequence<Integer> s2 = createFromArgsRef();
+        for (int i = 0; i < n; i++) {
+            s1.addInt(i / 2, i);
+            s2.add(i / 2, i);
+        }
+        assertEquals(s2, s1);
+    }
+
+    /**
+     * Test for flip.
+     */
+    @Test
+    public void testFlip() {
+        IntSequence s1 = createFromArgsTest(1, 2, 3, 4, 5);
+        Sequence<Integer> s2 = createFromArgsRef(5, 4, 3, 2, 1);
+        s1.addInt(1, 0);
+        s1.removeInt(1);
+        s1.flip();
+        assertEquals(s2, s1);
+    }
+
+    /**
+     * Test for intIterator and toArray.
+     */
+    @Test
+    public void testIteratorAndToArray() {
+        IntSequence s1 = createFromArgsTest(1, 2, 3, 4, 5);
+        s1.addInt(2, 0);
+        int[] expected = { 1, 2, 0, 3, 4, 5 };
+        int[] iterated = new int[s1.length()];
+        PrimitiveIterator.OfInt it = s1.intIterator();
+        for (int i = 0; i < iterated.length; i++) {
+            iterated[i] = it.nextInt();
+        }
+        assertFalse(it.hasNext());
+        assertArrayEquals(expected, iterated);
+        assertArrayEquals(expected, s1.toArray());
+    }
+
+}
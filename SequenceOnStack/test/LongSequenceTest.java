@@ -0,0 +1,163 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.PrimitiveIterator;
+
+import org.junit.Test;
+
+import components.sequence.Sequence;
+import components.sequence.Sequence1L;
+
+/**
+ * JUnit test fixture for {@code LongSequence}'s primitive and boxed methods.
+ */
+public class LongSequenceTest {
+
+    /**
+     * Creates and returns a {@code LongSequence} with the given entries.
+     *
+     * @param args
+     *            the entries for the sequence
+     * @return the constructed sequence
+     * @ensures createFromArgsTest = [entries in args]
+     */
+    private static LongSequence createFromArgsTest(long... args) {
+        LongSequence sequence = new LongSequence();
+        for (long x : args) {
+            sequence.addLong(sequence.length(), x);
+        }
+        return sequence;
+    }
+
+    /**
+     * Creates and returns a {@code Sequence1L<Long>} with the given
+     * entries.
+     *
+     * @param args
+     *            the entries for the sequence
+     * @return the constructed sequence
+     * @ensures createFromArgsRef = [entries in args]
+     */
+    private static Sequence<Long> createFromArgsRef(long... args) {
+        Sequence<Long> sequence = new Sequence1L<Long>();
+        for (long x : args) {
+            sequence.add(sequence.length(), x);
+        }
+        return sequence;
+    }
+
+    /**
+     * Test for the constructor.
+     */
+    @Test
+    public void testConstructor() {
+        LongSequence s1 = new LongSequence();
+        Sequence<Long> s2 = createFromArgsRef();
+        assertEquals(s2, s1);
+    }
+
+    /**
+     * Test for addLong at the end and in the middle.
+     */
+    @Test
+    public void testAddInt() {
+        LongSequence s1 = createFromArgsTest(1, 2, 4);
+        Sequence<Long> s2 = createFromArgsRef(0, 1, 2, 3, 4, 5);
+        s1.addLong(2, 3);
+        s1.addLong(0, 0);
+        s1.addLong(s1.length(), 5);
+        assertEquals(s2, s1);
+    }
+
+    /**
+     * Test for removeLong at both ends and in the middle.
+     */
+    @Test
+    public void testRemoveInt() {
+        LongSequence s1 = createFromArgsTest(1, 2, 3, 4, 5);
+        Sequence<Long> s2 = createFromArgsRef(2, 4);
+        assertEquals(1, s1.removeLong(0));
+        assertEquals(5, s1.removeLong(s1.length() - 1));
+        assertEquals(3, s1.removeLong(1));
+        assertEquals(s2, s1);
+    }
+
+    /**
+     * Test for entryLong and replaceEntryLong on both sides of the gap.
+     */
+    @Test
+    public void testEntryInt() {
+        LongSequence s1 = createFromArgsTest(1, 2, 3, 4, 5);
+        s1.addLong(2, -1);
+        s1.removeLong(2);
+        Sequence<Long> s2 = createFromArgsRef(1, 2, 30, 4, 5);
+        assertEquals(2, s1.entryLong(1));
+        assertEquals(4, s1.entryLong(3));
+        assertEquals(3, s1.replaceEntryLong(2, 30));
+        assertEquals(s2, s1);
+    }
+
+    /**
+     * Test for the boxed kernel methods.
+     */
+    @Test
+    public void testBoxed() {
+        Sequence<Long> s1 = new LongSequence();
+        Sequence<Long> s2 = createFromArgsRef(7, 8, 9);
+        s1.add(0, 9L);
+        s1.add(0, 7L);
+        s1.add(1, 8L);
+        s1.add(1, 0L);
+        assertEquals(Long.valueOf(0), s1.remove(1));
+        assertEquals(Long.valueOf(8), s1.entry(1));
+        assertEquals(s2, s1);
+    }
+
+    /**
+     * Test for growing past the initial capacity.
+     */
+    @Test
+    public void testGrow() {
+        final int n = 1000;
+        LongSequence s1 = new LongSequence();
+        Sequence<Long> s2 = createFromArgsRef();
+        for (int i = 0; i < n; i++) {
+            s1.addLong(i / 2, i);
+            s2.add(i / 2, (long) i);
+        }
+        assertEquals(s2, s1);
+    }
+
+    /**
+     * Test for flip.
+     */
+    @Test
+    public void testFlip() {
+        LongSequence s1 = createFromArgsTest(1, 2, 3, 4, 5);
+        Sequence<Long> s2 = createFromArgsRef(5, 4, 3, 2, 1);
+        s1.addLong(1, 0);
+        s1.removeLong(1);
+        s1.flip();
+        assertEquals(s2, s1);
+    }
+
+    /**
+     * Test for longIterator and toArray.
+     */
+    @Test
+    public void testIteratorAndToArray() {
+        LongSequence s1 = createFromArgsTest(1, 2, 3, 4, 5);
+        s1.addLong(2, 0);
+        long[] expected = { 1, 2, 0, 3, 4, 5 };
+        long[] iterated = new long[s1.length()];
+        PrimitiveIterator.OfLong it = s1.longIterator();
+        for (int i = 0; i < iterated.length; i++) {
+            iterated[i] = it.nextLong();
+        }
+        assertFalse(it.hasNext());
+        assertArrayEquals(expected, iterated);
+        assertArrayEquals(expected, s1.toArray());
+    }
+
+}
@@ -0,0 +1,107 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import components.sequence.Sequence;
+import components.sequence.Sequence1L;
+
+/**
+ * Customized JUnit test fixture for {@code OffHeapSequence}.
+ */
+public class OffHeapSequenceTest extends SequenceTest {
+
+    /**
+     * Largest number of UTF-8 bytes of the strings in the tests.
+     */
+    private static final int MAX_BYTES = 1024;
+
+    @Override
+    protected final Sequence<String> constructorTest() {
+        return new OffHeapSequence<String>(RecordCodec.utf8(MAX_BYTES));
+    }
+
+    @Override
+    protected final Sequence<String> constructorRef() {
+        return new Sequence1L<String>();
+    }
+
+    /**
+     * Test for entries spread over several segments, with the gap moving
+     * across segment boundaries.
+     */
+    @Test
+    public void testManySegments() {
+        final int n = 5000;
+        Sequence<String> s1 = this.constructorTest();
+        Sequence<String> s2 = this.constructorRef();
+        for (int i = 0; i < n; i++) {
+            s1.add(i / 3, "e" + i);
+            s2.add(i / 3, "e" + i);
+        }
+        for (int i = 0; i < n / 2; i++) {
+            assertEquals(s2.remove((7 * i) % s2.length()),
+                    s1.remove((7 * i) % s1.length()));
+        }
+        s1.flip();
+        s2.flip();
+        assertEquals(s2, s1);
+    }
+
+    /**
+     * Test for saving a mapped sequence and mapping it again.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test
+    public void testMapReload() throws IOException {
+        Path file = Files.createTempFile("sequence", ".bin");
+        Files.delete(file);
+        try {
+            Sequence<Long> s2 = new Sequence1L<Long>();
+            OffHeapSequence<Long> s1 = OffHeapSequence.map(file,
+                    RecordCodec.LONG);
+            assertTrue(s1.isMapped());
+            final long n = 300_000;
+            for (long i = 0; i < n; i++) {
+                s1.add((int) (i / 2), i);
+                s2.add((int) (i / 2), i);
+            }
+            s1.close();
+            assertEquals(0, s1.length());
+            OffHeapSequence<Long> s3 = OffHeapSequence.map(file,
+                    RecordCodec.LONG);
+            assertEquals(s2, s3);
+            s3.close();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Test that mapping a file saved with another record size fails.
+     *
+     * @throws IOException
+     *             if the temporary file cannot be used
+     */
+    @Test(expected = IOException.class)
+    public void testMapWrongRecordSize() throws IOException {
+        Path file = Files.createTempFile("sequence", ".bin");
+        Files.delete(file);
+        try {
+            OffHeapSequence<Integer> s1 = OffHeapSequence.map(file,
+                    RecordCodec.INT);
+            s1.add(0, 1);
+            s1.close();
+            OffHeapSequence.map(file, RecordCodec.LONG).close();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+}
@@ -0,0 +1,19 @@
+import components.sequence.Sequence;
+import components.sequence.Sequence1L;
+
+/**
+ * Customized JUnit test fixture for {@code Sequence5}.
+ */
+public class Sequence5Test extends SequenceTest {
+
+    @Override
+    protected final Sequence<String> constructorTest() {
+        return new Sequence5<String>();
+    }
+
+    @Override
+    protected final Sequence<String> constructorRef() {
+        return new Sequence1L<String>();
+    }
+
+}
@@ -155,4 +155,217 @@ public abstract class SequenceTest {
         assertEquals(s1, s2);
     }
 
+    /**
+     * Entries of the sequences of the tests of positional and bulk methods.
+     */
+    private static final String[] ENTRIES = {"a", "b", "c", "d", "e"};
+
+    /**
+     * Positions the cursor is left at before calling the method under test:
+     * at the start, in the middle and at the end of {@code ENTRIES}.
+     */
+    private static final int[] CURSORS = {0, 2, ENTRIES.length};
+
+    /**
+     * Adds an entry at {@code pos} and removes it again, which leaves the
+     * entries of {@code s} as they were, and leaves the cursor of an
+     * implementation that has one, such as {@code Sequence3}, at {@code pos}.
+     *
+     * @param s
+     *            the sequence
+     * @param pos
+     *            the position of the cursor
+     * @requires 0 <= pos <= |s|
+     */
+    private static void placeCursor(Sequence<String> s, int pos) {
+        s.add(pos, "cursor");
+        s.remove(pos);
+    }
+
+    /**
+     * Test for entry at every position, with the cursor at the start, in the
+     * middle and at the end.
+     */
+    @Test
+    public void testEntry() {
+        for (int cursor : CURSORS) {
+            Sequence<String> s1 = this.createFromArgsTest(ENTRIES);
+            Sequence<String> s2 = this.createFromArgsRef(ENTRIES);
+            placeCursor(s1, cursor);
+            for (int i = 0; i < ENTRIES.length; i++) {
+                assertEquals(ENTRIES[i], s1.entry(i));
+            }
+            assertEquals(s1, s2);
+        }
+    }
+
+    /**
+     * Test for iterating, with the cursor at the start, in the middle and at
+     * the end, so that the entries may be split between two stacks.
+     */
+    @Test
+    public void testIterator() {
+        for (int cursor : CURSORS) {
+            Sequence<String> s1 = this.createFromArgsTest(ENTRIES);
+            Sequence<String> s2 = this.createFromArgsRef(ENTRIES);
+            placeCursor(s1, cursor);
+            StringBuilder seen = new StringBuilder();
+            for (String x : s1) {
+                seen.append(x);
+            }
+            assertEquals("abcde", seen.toString());
+            assertEquals(s1, s2);
+        }
+    }
+
+    /**
+     * Test for iterating an empty sequence.
+     */
+    @Test
+    public void testIteratorEmpty() {
+        Sequence<String> s1 = this.createFromArgsTest();
+        assertEquals(false, s1.iterator().hasNext());
+    }
+
+    /**
+     * Test for replaceEntry at the start, in the middle and at the end, with
+     * the cursor at each of those places.
+     */
+    @Test
+    public void testReplaceEntry() {
+        for (int cursor : CURSORS) {
+            for (int pos : new int[] {0, 2, ENTRIES.length - 1}) {
+                Sequence<String> s1 = this.createFromArgsTest(ENTRIES);
+                Sequence<String> s2 = this.createFromArgsRef(ENTRIES);
+                placeCursor(s1, cursor);
+                assertEquals(ENTRIES[pos], s1.replaceEntry(pos, "x"));
+                s2.replaceEntry(pos, "x");
+                assertEquals(s1, s2);
+            }
+        }
+    }
+
+    /**
+     * Test for append of a non-empty and of an empty sequence, with the
+     * cursor of this at the start, in the middle and at the end.
+     */
+    @Test
+    public void testAppend() {
+        for (int cursor : CURSORS) {
+            Sequence<String> s1 = this.createFromArgsTest(ENTRIES);
+            Sequence<String> s2 = this.createFromArgsRef("a", "b", "c", "d",
+                    "e", "f", "g");
+            Sequence<String> other = this.createFromArgsTest("f", "g");
+            placeCursor(s1, cursor);
+            placeCursor(other, 1);
+            s1.append(other);
+            assertEquals(s1, s2);
+            assertEquals(0, other.length());
+
+            s1.append(other);
+            assertEquals(s1, s2);
+        }
+    }
+
+    /**
+     * Test for append to an empty sequence.
+     */
+    @Test
+    public void testAppendToEmpty() {
+        Sequence<String> s1 = this.createFromArgsTest();
+        Sequence<String> s2 = this.createFromArgsRef(ENTRIES);
+        Sequence<String> other = this.createFromArgsTest(ENTRIES);
+        placeCursor(other, 2);
+        s1.append(other);
+        assertEquals(s1, s2);
+        assertEquals(0, other.length());
+    }
+
+    /**
+     * Test for insert at the start, in the middle and at the end, with the
+     * cursor of this at each of those places.
+     */
+    @Test
+    public void testInsert() {
+        for (int cursor : CURSORS) {
+            for (int pos : CURSORS) {
+                Sequence<String> s1 = this.createFromArgsTest(ENTRIES);
+                Sequence<String> s2 = this.createFromArgsRef(ENTRIES);
+                Sequence<String> other = this.createFromArgsTest("x", "y",
+                        "z");
+                placeCursor(s1, cursor);
+                placeCursor(other, 1);
+                s1.insert(pos, other);
+                s2.add(pos, "z");
+                s2.add(pos, "y");
+                s2.add(pos, "x");
+                assertEquals(s1, s2);
+                assertEquals(0, other.length());
+            }
+        }
+    }
+
+    /**
+     * Test for insert of an empty sequence.
+     */
+    @Test
+    public void testInsertEmpty() {
+        for (int cursor : CURSORS) {
+            Sequence<String> s1 = this.createFromArgsTest(ENTRIES);
+            Sequence<String> s2 = this.createFromArgsRef(ENTRIES);
+            Sequence<String> other = this.createFromArgsTest();
+            placeCursor(s1, cursor);
+            s1.insert(2, other);
+            assertEquals(s1, s2);
+            assertEquals(0, other.length());
+        }
+    }
+
+    /**
+     * Test for extract of empty ranges, of the whole sequence and of ranges
+     * at the start, in the middle and at the end, with the cursor of this at
+     * the start, in the middle and at the end.
+     */
+    @Test
+    public void testExtract() {
+        int[][] ranges = {{0, 0}, {2, 2}, {5, 5}, {0, 5}, {0, 2}, {1, 4},
+                {3, 5}};
+        for (int cursor : CURSORS) {
+            for (int[] range : ranges) {
+                Sequence<String> s1 = this.createFromArgsTest(ENTRIES);
+                Sequence<String> s2 = this.createFromArgsRef(ENTRIES);
+                Sequence<String> extracted = this.createFromArgsTest("old");
+                Sequence<String> expected = this.createFromArgsRef();
+                placeCursor(s1, cursor);
+                s1.extract(range[0], range[1], extracted);
+                for (int i = range[0]; i < range[1]; i++) {
+                    expected.add(expected.length(), s2.remove(range[0]));
+                }
+                assertEquals(s1, s2);
+                assertEquals(extracted, expected);
+            }
+        }
+    }
+
+    /**
+     * Test that extracting a sequence and appending it back, and extracting
+     * it and inserting it back, leave the sequence as it was.
+     */
+    @Test
+    public void testExtractThenPutBack() {
+        for (int cursor : CURSORS) {
+            Sequence<String> s1 = this.createFromArgsTest(ENTRIES);
+            Sequence<String> s2 = this.createFromArgsRef(ENTRIES);
+            Sequence<String> middle = this.constructorTest();
+            placeCursor(s1, cursor);
+            s1.extract(1, 4, middle);
+            s1.insert(1, middle);
+            assertEquals(s1, s2);
+
+            s1.extract(3, 5, middle);
+            s1.append(middle);
+            assertEquals(s1, s2);
+        }
+    }
+
 }
@@ -0,0 +1,93 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.sequence.Sequence;
+import components.sequence.Sequence1L;
+
+/**
+ * Customized JUnit test fixture for {@code VersionedSequence}, with tests of
+ * its snapshots.
+ */
+public class VersionedSequenceTest extends SequenceTest {
+
+    @Override
+    protected final Sequence<String> constructorTest() {
+        return new VersionedSequence<String>();
+    }
+
+    @Override
+    protected final Sequence<String> constructorRef() {
+        return new Sequence1L<String>();
+    }
+
+    /**
+     * Test that a snapshot does not change when the sequence does.
+     */
+    @Test
+    public void testSnapshot() {
+        VersionedSequence<String> s1 = new VersionedSequence<String>();
+        s1.add(0, "a");
+        s1.add(1, "b");
+        PersistentSequence<String> v1 = s1.snapshot();
+        s1.add(1, "c");
+        s1.replaceEntry(0, "d");
+        PersistentSequence<String> v2 = s1.snapshot();
+        s1.flip();
+        s1.remove(0);
+        assertEquals("<a,b>", v1.toString());
+        assertEquals("<d,c,b>", v2.toString());
+        assertEquals("<c,d>", s1.snapshot().toString());
+    }
+
+    /**
+     * Test that restore brings back an earlier snapshot.
+     */
+    @Test
+    public void testRestore() {
+        VersionedSequence<String> s1 = new VersionedSequence<String>();
+        Sequence<String> s2 = new Sequence1L<String>();
+        for (int i = 0; i < 100; i++) {
+            s1.add(i / 2, "e" + i);
+            s2.add(i / 2, "e" + i);
+        }
+        PersistentSequence<String> saved = s1.snapshot();
+        s1.flip();
+        Sequence<String> middle = s1.newInstance();
+        s1.extract(10, 60, middle);
+        s1.insert(0, middle);
+        s1.restore(saved);
+        assertEquals(s2, s1);
+    }
+
+    /**
+     * Test for append, insert and extract between versioned sequences.
+     */
+    @Test
+    public void testBulkOperations() {
+        VersionedSequence<String> s1 = new VersionedSequence<String>();
+        Sequence<String> s2 = new Sequence1L<String>();
+        for (int i = 0; i < 50; i++) {
+            s1.add(i, "e" + i);
+            s2.add(i, "e" + i);
+        }
+        Sequence<String> part1 = s1.newInstance();
+        Sequence<String> part2 = s2.newInstance();
+        s1.extract(5, 20, part1);
+        s2.extract(5, 20, part2);
+        assertEquals(part2, part1);
+        part1.flip();
+        part2.flip();
+        s1.insert(30, part1);
+        s2.insert(30, part2);
+        assertEquals(0, part1.length());
+        Sequence<String> tail1 = s1.newInstance();
+        Sequence<String> tail2 = s2.newInstance();
+        s1.extract(0, 3, tail1);
+        s2.extract(0, 3, tail2);
+        s1.append(tail1);
+        s2.append(tail2);
+        assertEquals(s2, s1);
+    }
+
+}
@@ -0,0 +1,648 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import components.map.Map;
+import components.map.Map1L;
+import components.queue.Queue;
+import components.queue.Queue1L;
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * Benchmarks of the stages of the {@code WordCounter} pipeline on synthetic
+ * Zipf corpora. Every stage is measured on its own, with its input prepared
+ * beforehand, for a number of warmup and measurement iterations. Results are
+ * written as JSON in the layout of the JMH JSON result format, so they can be
+ * compared between releases with the usual JMH tooling.
+ *
+ * Usage: {@code WordCounterBenchmark [--sizes 1MB,100MB,1GB] [--seed 42]
+ * [--warmup 3] [--iterations 5] [--dir corpora] [--out results.json]
+ * [--only name,name]}
+ *
+ * {@code bench/run.sh} compiles the sources and this benchmark against the
+ * components jar named by {@code OSU_CSE_LIBRARY} and runs it.
+ *
+ * @author Nyja Gowda
+ *
+ */
+public final class WordCounterBenchmark {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private WordCounterBenchmark() {
+    }
+
+    /**
+     * Rough heap needed per word held in a {@code Queue1L<String>}: a node,
+     * a {@code String} and its bytes.
+     */
+    private static final long BYTES_PER_QUEUED_WORD = 96;
+
+    /**
+     * Rough heap needed per byte of text held as line strings.
+     */
+    private static final long BYTES_PER_TEXT_BYTE = 3;
+
+    /**
+     * Average number of bytes of text per word in the corpora, separator
+     * included.
+     */
+    private static final long TEXT_BYTES_PER_WORD = 7;
+
+    /**
+     * Number of bytes in a megabyte.
+     */
+    private static final long MEGABYTE = 1L << 20;
+
+    /**
+     * Values returned by the stages, kept so the JIT cannot drop the work.
+     */
+    private static long sink;
+
+    /**
+     * One stage of the pipeline being measured.
+     */
+    private abstract static class Stage {
+
+        /**
+         * Name of the stage in the results.
+         */
+        private final String name;
+
+        /**
+         * Constructor.
+         *
+         * @param name
+         *            name of the stage in the results
+         */
+        Stage(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns the name of the stage in the results.
+         *
+         * @return the name
+         */
+        final String name() {
+            return this.name;
+        }
+
+        /**
+         * Returns the heap the stage needs for a corpus of the given size, to
+         * skip sizes that cannot fit instead of running out of memory.
+         *
+         * @param corpusBytes
+         *            size of the corpus
+         * @return estimated heap needed in bytes
+         */
+        abstract long heapNeeded(long corpusBytes);
+
+        /**
+         * Prepares the input of the stage, not measured.
+         *
+         * @param corpus
+         *            the corpus file
+         * @throws IOException
+         *             if the corpus cannot be read
+         */
+        abstract void setUp(Path corpus) throws IOException;
+
+        /**
+         * Prepares one iteration, not measured. Most stages have nothing to
+         * do.
+         */
+        void setUpIteration() {
+        }
+
+        /**
+         * Runs the stage once, measured.
+         *
+         * @return a value derived from the result
+         */
+        abstract long run();
+
+        /**
+         * Releases the input of the stage.
+         */
+        abstract void tearDown();
+    }
+
+    /**
+     * Reads all the lines of the corpus.
+     *
+     * @param corpus
+     *            the corpus file
+     * @return the lines
+     * @throws IOException
+     *             if the corpus cannot be read
+     */
+    private static String[] readLines(Path corpus) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(corpus,
+                StandardCharsets.US_ASCII)) {
+            String line = in.readLine();
+            while (line != null) {
+                lines.add(line);
+                line = in.readLine();
+            }
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    /**
+     * Returns the stages of the pipeline.
+     *
+     * @param scratch
+     *            directory for files written by the stages
+     * @return the stages
+     */
+    private static List<Stage> stages(Path scratch) {
+        List<Stage> stages = new ArrayList<>();
+
+        stages.add(new Stage("nextWordOrSeparator.set") {
+            private String[] lines;
+            private Set<Character> separators;
+
+            @Override
+            long heapNeeded(long corpusBytes) {
+                return BYTES_PER_TEXT_BYTE * corpusBytes;
+            }
+
+            @Override
+            void setUp(Path corpus) throws IOException {
+                this.lines = readLines(corpus);
+                this.separators = new Set1L<>();
+                for (char c : " ,-.!?;:\n\t\r/#$&@%{}[]=^|<>+'".toCharArray()) {
+                    this.separators.add(c);
+                }
+            }
+
+            @Override
+            long run() {
+                long tokens = 0;
+                for (String line : this.lines) {
+                    int position = 0;
+                    while (position < line.length()) {
+                        position += WordCounter.nextWordOrSeparator(line,
+                                position, this.separators).length();
+                        tokens++;
+                    }
+                }
+                return tokens;
+            }
+
+            @Override
+            void tearDown() {
+                this.lines = null;
+            }
+        });
+
+        stages.add(new Stage("nextWordOrSeparator.table") {
+            private String[] lines;
+
+            @Override
+            long heapNeeded(long corpusBytes) {
+                return BYTES_PER_TEXT_BYTE * corpusBytes;
+            }
+
+            @Override
+            void setUp(Path corpus) throws IOException {
+                this.lines = readLines(corpus);
+            }
+
+            @Override
+            long run() {
+                long tokens = 0;
+                for (String line : this.lines) {
+                    int position = 0;
+                    while (position < line.length()) {
+                        position += WordCounter.nextWordOrSeparator(line,
+                                position, WordCounter.SEPARATOR_SET).length();
+                        tokens++;
+                    }
+                }
+                return tokens;
+            }
+
+            @Override
+            void tearDown() {
+                this.lines = null;
+            }
+        });
+
+        stages.add(new Stage("wordSeparator") {
+            private String[] lines;
+
+            @Override
+            long heapNeeded(long corpusBytes) {
+                return BYTES_PER_TEXT_BYTE * corpusBytes + BYTES_PER_QUEUED_WORD
+                        * (corpusBytes / TEXT_BYTES_PER_WORD);
+            }
+
+            @Override
+            void setUp(Path corpus) throws IOException {
+                this.lines = readLines(corpus);
+            }
+
+            @Override
+            long run() {
+                Queue<String> words = new Queue1L<>();
+                for (String line : this.lines) {
+                    WordCounter.wordSeparator(line, words);
+                }
+                return words.length();
+            }
+
+            @Override
+            void tearDown() {
+                this.lines = null;
+            }
+        });
+
+        stages.add(new Stage("getWords") {
+            private String file;
+
+            @Override
+            long heapNeeded(long corpusBytes) {
+                return BYTES_PER_QUEUED_WORD
+                        * (corpusBytes / TEXT_BYTES_PER_WORD);
+            }
+
+            @Override
+            void setUp(Path corpus) {
+                this.file = corpus.toString();
+            }
+
+            @Override
+            long run() {
+                return WordCounter.getWords(this.file).length();
+            }
+
+            @Override
+            void tearDown() {
+            }
+        });
+
+        stages.add(new Stage("wordCount.map") {
+            private Queue<String> words;
+
+            @Override
+            long heapNeeded(long corpusBytes) {
+                return BYTES_PER_QUEUED_WORD
+                        * (corpusBytes / TEXT_BYTES_PER_WORD);
+            }
+
+            @Override
+            void setUp(Path corpus) {
+                this.words = WordCounter.getWords(corpus.toString());
+            }
+
+            @Override
+            long run() {
+                Map<String, Integer> map = new Map1L<>();
+                WordCounter.wordCount(map, this.words);
+                return map.size();
+            }
+
+            @Override
+            void tearDown() {
+                this.words = null;
+            }
+        });
+
+        stages.add(new Stage("wordCount.wordCounts") {
+            private Queue<String> words;
+
+            @Override
+            long heapNeeded(long corpusBytes) {
+                return BYTES_PER_QUEUED_WORD
+                        * (corpusBytes / TEXT_BYTES_PER_WORD);
+            }
+
+            @Override
+            void setUp(Path corpus) {
+                this.words = WordCounter.getWords(corpus.toString());
+            }
+
+            @Override
+            long run() {
+                WordCounts counts = new WordCounts();
+                WordCounter.wordCount(counts, this.words);
+                return counts.size();
+            }
+
+            @Override
+            void tearDown() {
+                this.words = null;
+            }
+        });
+
+        stages.add(new Stage("queueSort") {
+            private Queue<String> words;
+            private Queue<String> toSort;
+
+            @Override
+            long heapNeeded(long corpusBytes) {
+                return 2 * BYTES_PER_QUEUED_WORD
+                        * (corpusBytes / TEXT_BYTES_PER_WORD);
+            }
+
+            @Override
+            void setUp(Path corpus) {
+                this.words = WordCounter.getWords(corpus.toString());
+            }
+
+            @Override
+            void setUpIteration() {
+                //sorting works in place, so each iteration gets a fresh copy
+                this.toSort = new Queue1L<>();
+                for (String word : this.words) {
+                    this.toSort.enqueue(word);
+                }
+            }
+
+            @Override
+            long run() {
+                this.toSort.sort(new WordCounter.StringLT());
+                return this.toSort.length();
+            }
+
+            @Override
+            void tearDown() {
+                this.words = null;
+                this.toSort = null;
+            }
+        });
+
+        stages.add(new Stage("createOpen") {
+            private WordCounts counts;
+            private int[] order;
+            private String out;
+
+            @Override
+            long heapNeeded(long corpusBytes) {
+                return 0;
+            }
+
+            @Override
+            void setUp(Path corpus) {
+                this.counts = WordCounter.getWordCounts(corpus.toString(),
+                        WordCounter.SEPARATOR_SET);
+                this.order = this.counts.sorted(WordOrder.FOLDED_KEY);
+                this.out = scratch.resolve("createOpen.html").toString();
+            }
+
+            @Override
+            long run() {
+                WordCounter.createOpen(this.counts, this.order, this.out,
+                        "corpus");
+                return this.order.length;
+            }
+
+            @Override
+            void tearDown() {
+                this.counts = null;
+                this.order = null;
+            }
+        });
+
+        return stages;
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread, or
+     * -1 if the JVM cannot tell.
+     *
+     * @return allocated bytes
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory
+                .getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Parses a size such as "1MB", "100MB" or "1GB".
+     *
+     * @param size
+     *            the size
+     * @return the number of bytes
+     */
+    private static long parseSize(String size) {
+        String s = size.trim().toUpperCase(Locale.ROOT);
+        long unit = 1;
+        if (s.endsWith("GB")) {
+            unit = MEGABYTE * 1024;
+        } else if (s.endsWith("MB")) {
+            unit = MEGABYTE;
+        } else if (s.endsWith("KB")) {
+            unit = 1024;
+        }
+        return Long.parseLong(s.replaceAll("[A-Z]", "")) * unit;
+    }
+
+    /**
+     * Appends a JSON array of numbers to json.
+     *
+     * @param json
+     *            the JSON being built
+     * @param values
+     *            the numbers
+     */
+    private static void jsonArray(StringBuilder json, double[] values) {
+        json.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                json.append(", ");
+            }
+            json.append(String.format(Locale.ROOT, "%.3f", values[i]));
+        }
+        json.append(']');
+    }
+
+    /**
+     * Returns the mean of values.
+     *
+     * @param values
+     *            the values
+     * @return the mean
+     */
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double v : values) {
+            sum += v;
+        }
+        return sum / values.length;
+    }
+
+    /**
+     * Returns the half width of a 99.9% confidence interval of the mean of
+     * values, using the normal approximation JMH also falls back to.
+     *
+     * @param values
+     *            the values
+     * @return the error of the mean
+     */
+    private static double error(double[] values) {
+        if (values.length < 2) {
+            return Double.NaN;
+        }
+        double m = mean(values);
+        double sum = 0;
+        for (double v : values) {
+            sum += (v - m) * (v - m);
+        }
+        double stdev = Math.sqrt(sum / (values.length - 1));
+        final double z = 3.29;
+        return z * stdev / Math.sqrt(values.length);
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments
+     * @throws IOException
+     *             if a corpus or the results cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        String sizes = "1MB,100MB,1GB";
+        long seed = 42;
+        int warmup = 3;
+        int iterations = 5;
+        Path dir = Paths.get("corpora");
+        Path out = Paths.get("results.json");
+        String only = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--sizes":
+                    sizes = args[i + 1];
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--dir":
+                    dir = Paths.get(args[i + 1]);
+                    break;
+                case "--out":
+                    out = Paths.get(args[i + 1]);
+                    break;
+                case "--only":
+                    only = "," + args[i + 1] + ",";
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    break;
+            }
+        }
+        Files.createDirectories(dir);
+
+        StringBuilder json = new StringBuilder("[\n");
+        boolean first = true;
+        for (String size : sizes.split(",")) {
+            long bytes = parseSize(size);
+            Path corpus = dir.resolve("zipf-" + size.trim() + "-" + seed
+                    + ".txt");
+            if (!Files.exists(corpus) || Files.size(corpus) < bytes) {
+                System.out.println("generating " + corpus);
+                new ZipfCorpus(ZipfCorpus.DEFAULT_VOCABULARY,
+                        ZipfCorpus.DEFAULT_EXPONENT, seed).write(corpus, bytes);
+            }
+            for (Stage stage : stages(dir)) {
+                if (only != null && !only.contains("," + stage.name() + ",")) {
+                    continue;
+                }
+                String label = stage.name() + " @ " + size.trim();
+                if (stage.heapNeeded(bytes) > Runtime.getRuntime()
+                        .maxMemory()) {
+                    System.out.println(label + ": skipped, needs about "
+                            + stage.heapNeeded(bytes) / MEGABYTE
+                            + "MB of heap");
+                    continue;
+                }
+                stage.setUp(corpus);
+                double[] times = new double[iterations];
+                double[] allocations = new double[iterations];
+                for (int i = -warmup; i < iterations; i++) {
+                    stage.setUpIteration();
+                    long allocatedBefore = allocatedBytes();
+                    long start = System.nanoTime();
+                    sink += stage.run();
+                    long elapsed = System.nanoTime() - start;
+                    long allocated = allocatedBytes() - allocatedBefore;
+                    if (i >= 0) {
+                        times[i] = elapsed / 1e6;
+                        allocations[i] = (double) allocated / bytes;
+                    }
+                }
+                stage.tearDown();
+                System.out.println(String.format(Locale.ROOT,
+                        "%s: %.3f ms/op, %.2f MB/s, %.2f B allocated/B", label,
+                        mean(times), bytes / MEGABYTE / (mean(times) / 1e3),
+                        mean(allocations)));
+
+                if (!first) {
+                    json.append(",\n");
+                }
+                first = false;
+                json.append("  {\n");
+                json.append("    \"benchmark\": \"WordCounterBenchmark.")
+                        .append(stage.name()).append("\",\n");
+                json.append("    \"mode\": \"avgt\",\n");
+                json.append("    \"threads\": 1,\n");
+                json.append("    \"forks\": 0,\n");
+                json.append("    \"warmupIterations\": ").append(warmup)
+                        .append(",\n");
+                json.append("    \"measurementIterations\": ")
+                        .append(iterations).append(",\n");
+                json.append("    \"params\": { \"size\": \"")
+                        .append(size.trim()).append("\", \"seed\": \"")
+                        .append(seed).append("\" },\n");
+                json.append("    \"primaryMetric\": {\n");
+                json.append(String.format(Locale.ROOT,
+                        "      \"score\": %.3f,%n      \"scoreError\": %.3f,%n",
+                        mean(times), error(times)).replace("NaN", "null"));
+                json.append("      \"scoreUnit\": \"ms/op\",\n");
+                json.append("      \"rawData\": [ ");
+                jsonArray(json, times);
+                json.append(" ]\n    },\n");
+                json.append("    \"secondaryMetrics\": {\n");
+                json.append("      \"alloc.rate.norm\": {\n");
+                json.append(String.format(Locale.ROOT,
+                        "        \"score\": %.3f,%n", mean(allocations)));
+                json.append("        \"scoreUnit\": \"B/B of input\",\n");
+                json.append("        \"rawData\": [ ");
+                jsonArray(json, allocations);
+                json.append(" ]\n      }\n    }\n  }");
+            }
+        }
+        json.append("\n]\n");
+        try (PrintWriter writer = new PrintWriter(
+                Files.newBufferedWriter(out, StandardCharsets.UTF_8))) {
+            writer.print(json);
+        }
+        System.out.println("results written to " + out + " (" + sink + ")");
+    }
+
+}
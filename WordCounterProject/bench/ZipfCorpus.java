@@ -0,0 +1,167 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generator of synthetic text whose word frequencies follow a Zipf
+ * distribution, like natural language. The same seed, size and parameters
+ * always give the same file, so benchmark runs are comparable.
+ *
+ * @author Nyja Gowda
+ *
+ */
+public final class ZipfCorpus {
+
+    /**
+     * Default number of distinct words.
+     */
+    public static final int DEFAULT_VOCABULARY = 100_000;
+
+    /**
+     * Default Zipf exponent, about the one of English text.
+     */
+    public static final double DEFAULT_EXPONENT = 1.0;
+
+    /**
+     * Length of the lines written, in characters.
+     */
+    private static final int LINE_LENGTH = 80;
+
+    /**
+     * Separators put between words, most often a space.
+     */
+    private static final String SEPARATORS = "      ,.;!?-";
+
+    /**
+     * Letters the words are made of.
+     */
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    /**
+     * Longest word generated.
+     */
+    private static final int MAX_WORD_LENGTH = 12;
+
+    /**
+     * The distinct words, most frequent first.
+     */
+    private final String[] words;
+
+    /**
+     * Cumulative probability of the words, in the order of words.
+     */
+    private final double[] cumulative;
+
+    /**
+     * Random numbers used to pick words and separators.
+     */
+    private final Random random;
+
+    /**
+     * Constructor.
+     *
+     * @param vocabulary
+     *            number of distinct words
+     * @param exponent
+     *            Zipf exponent, the word of rank r has probability
+     *            proportional to 1 / r^exponent
+     * @param seed
+     *            seed of the random numbers
+     * @requires vocabulary > 0 and exponent > 0
+     */
+    public ZipfCorpus(int vocabulary, double exponent, long seed) {
+        assert vocabulary > 0 : "Violation of: vocabulary > 0";
+        assert exponent > 0 : "Violation of: exponent > 0";
+        this.random = new Random(seed);
+        this.words = new String[vocabulary];
+        this.cumulative = new double[vocabulary];
+        Set<String> seen = new HashSet<>();
+        double sum = 0;
+        for (int r = 0; r < vocabulary; r++) {
+            String word;
+            do {
+                word = this.randomWord(r);
+            } while (!seen.add(word));
+            this.words[r] = word;
+            sum += 1 / Math.pow(r + 1, exponent);
+            this.cumulative[r] = sum;
+        }
+        for (int r = 0; r < vocabulary; r++) {
+            this.cumulative[r] /= sum;
+        }
+    }
+
+    /**
+     * Returns a random word, shorter on average for frequent ranks, and
+     * capitalized now and then.
+     *
+     * @param rank
+     *            rank of the word, 0 for the most frequent
+     * @return the word
+     */
+    private String randomWord(int rank) {
+        int maxLength = Math.min(MAX_WORD_LENGTH,
+                2 + (int) (Math.log(rank + 2) / Math.log(2)));
+        int length = 1 + this.random.nextInt(maxLength);
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append(LETTERS.charAt(this.random.nextInt(LETTERS.length())));
+        }
+        if (this.random.nextInt(8) == 0) {
+            word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+        }
+        return word.toString();
+    }
+
+    /**
+     * Returns a random word drawn from the Zipf distribution.
+     *
+     * @return the word
+     */
+    public String nextWord() {
+        int r = Arrays.binarySearch(this.cumulative, this.random.nextDouble());
+        if (r < 0) {
+            r = -r - 1;
+        }
+        return this.words[Math.min(r, this.words.length - 1)];
+    }
+
+    /**
+     * Writes about {@code bytes} bytes of text to {@code file}.
+     *
+     * @param file
+     *            the file to write
+     * @param bytes
+     *            size of the file wanted
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    public void write(Path file, long bytes) throws IOException {
+        long written = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(file,
+                StandardCharsets.US_ASCII)) {
+            int lineLength = 0;
+            while (written < bytes) {
+                String word = this.nextWord();
+                out.write(word);
+                char sep = SEPARATORS
+                        .charAt(this.random.nextInt(SEPARATORS.length()));
+                lineLength += word.length() + 1;
+                if (lineLength >= LINE_LENGTH) {
+                    out.write('\n');
+                    lineLength = 0;
+                } else {
+                    out.write(sep);
+                }
+                written += word.length() + 1;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,364 @@
+import java.io.IOException;
+
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program that counts the words of an input stream approximately, in memory
+ * that does not grow with the vocabulary: a {@code CountMinSketch} estimates
+ * the count of any word, a {@code HyperLogLog} estimates the number of distinct
+ * words and a {@code SpaceSaving} tracker finds the most frequent words for
+ * the table. It can also compare these estimates with exact counting.
+ *
+ * @author Nyja Gowda
+ *
+ */
+public final class ApproximateWordCounter {
+
+    /**
+     * Default error bound of the sketch, as a fraction of the number of words.
+     */
+    public static final double DEFAULT_EPSILON = 0.001;
+
+    /**
+     * Default probability that a sketch estimate goes over its bound.
+     */
+    public static final double DEFAULT_DELTA = 0.01;
+
+    /**
+     * Default relative standard error of the distinct word estimate.
+     */
+    public static final double DEFAULT_DISTINCT_ERROR = 0.01;
+
+    /**
+     * Default number of rows of the table.
+     */
+    public static final int DEFAULT_TOP = 100;
+
+    /**
+     * Number of words tracked by the heavy hitters tracker per row of the
+     * table, so that the rows near the bottom are still reliable.
+     */
+    private static final int CAPACITY_PER_ROW = 10;
+
+    /**
+     * Input file compared with exact counting when none is given.
+     */
+    private static final String DEFAULT_COMPARE_FILE = "data/nyja.txt";
+
+    /**
+     * Estimates of the count of every word.
+     */
+    private final CountMinSketch sketch;
+
+    /**
+     * Estimate of the number of distinct words.
+     */
+    private final HyperLogLog distinct;
+
+    /**
+     * The most frequent words.
+     */
+    private final SpaceSaving heavyHitters;
+
+    /**
+     * Constructor.
+     *
+     * @param epsilon
+     *            error bound of the count estimates, as a fraction of the
+     *            number of words
+     * @param delta
+     *            probability that a count estimate goes over its bound
+     * @param distinctError
+     *            relative standard error of the distinct word estimate
+     * @param top
+     *            number of most frequent words wanted
+     * @requires 0 < epsilon, delta, distinctError < 1 and top > 0
+     */
+    public ApproximateWordCounter(double epsilon, double delta,
+            double distinctError, int top) {
+        this.sketch = new CountMinSketch(epsilon, delta);
+        this.distinct = new HyperLogLog(
+                HyperLogLog.precisionFor(distinctError));
+        this.heavyHitters = new SpaceSaving(CAPACITY_PER_ROW * top);
+    }
+
+    /**
+     * Adds one occurrence of {@code word}.
+     *
+     * @param word
+     *            the word
+     */
+    public void add(String word) {
+        this.sketch.add(word, 1);
+        this.distinct.add(word);
+        this.heavyHitters.add(word);
+    }
+
+    /**
+     * Adds every word of a line of text.
+     *
+     * @param testStr
+     *            a line of text from the input
+     * @param separators
+     *            table of all separators
+     */
+    public void countWords(String testStr, SeparatorSet separators) {
+        int position = 0;
+        while (position < testStr.length()) {
+            int end = separators.endOfRun(testStr, position);
+            if (!separators.isSeparatorAt(testStr, position)) {
+                this.add(testStr.substring(position, end));
+            }
+            position = end;
+        }
+    }
+
+    /**
+     * Reads from the input file line by line and adds all its words.
+     *
+     * @param fileName
+     *            the input file which contains text
+     */
+    public void countFile(String fileName) {
+        SimpleReader inFile = new SimpleReader1L(fileName);
+        while (!inFile.atEOS()) {
+            this.countWords(inFile.nextLine(), WordCounter.SEPARATOR_SET);
+        }
+        inFile.close();
+    }
+
+    /**
+     * Returns the estimates of the count of every word.
+     *
+     * @return the sketch
+     */
+    public CountMinSketch sketch() {
+        return this.sketch;
+    }
+
+    /**
+     * Returns the estimate of the number of distinct words.
+     *
+     * @return the distinct word estimator
+     */
+    public HyperLogLog distinct() {
+        return this.distinct;
+    }
+
+    /**
+     * Returns the most frequent words.
+     *
+     * @return the heavy hitters tracker
+     */
+    public SpaceSaving heavyHitters() {
+        return this.heavyHitters;
+    }
+
+    /**
+     * Writes the table of the k most frequent words, most frequent first, with
+     * their estimated counts.
+     *
+     * @param k
+     *            number of rows
+     * @param outFile
+     *            the name of the file to which the HTML script is being written
+     * @param inFile
+     *            the name of the file that contains the text and is mentioned
+     *            in the heading and title.
+     * @throws IOException
+     *             if outFile cannot be written
+     */
+    public void createOpen(int k, String outFile, String inFile)
+            throws IOException {
+        long[] counts = new long[k];
+        long[] errors = new long[k];
+        String[] words = this.heavyHitters.top(k, counts, errors);
+        try (HtmlReportWriter out = new HtmlReportWriter(outFile, inFile)) {
+            for (int i = 0; i < words.length; i++) {
+                out.writeRow(words[i], counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Counts fileName both exactly and approximately and writes a report
+     * comparing the two to out.
+     *
+     * @param fileName
+     *            the input file which contains text
+     * @param approx
+     *            an approximate counter that has not counted anything yet
+     * @param k
+     *            number of most frequent words compared
+     * @param out
+     *            the output stream
+     */
+    public static void compare(String fileName, ApproximateWordCounter approx,
+            int k, SimpleWriter out) {
+        WordCounts exact = WordCounter.getWordCounts(fileName,
+                WordCounter.SEPARATOR_SET);
+        approx.countFile(fileName);
+        CountMinSketch sketch = approx.sketch();
+
+        out.println("Approximate vs exact counts of " + fileName);
+        out.println();
+        out.println("words:            " + sketch.total());
+        long distinctEstimate = approx.distinct().estimate();
+        out.println("distinct words:   exact " + exact.size() + ", estimated "
+                + distinctEstimate + " (relative error "
+                + String.format("%.4f", relativeError(distinctEstimate,
+                        exact.size()))
+                + ", standard error "
+                + String.format("%.4f", approx.distinct().standardError())
+                + ")");
+
+        long maxOver = 0;
+        long sumOver = 0;
+        int overBound = 0;
+        for (int n = 0; n < exact.size(); n++) {
+            long over = sketch.estimate(exact.word(n)) - exact.count(n);
+            maxOver = Math.max(maxOver, over);
+            sumOver += over;
+            if (over > sketch.errorBound()) {
+                overBound++;
+            }
+        }
+        out.println("count estimates:  bound " + String.format("%.2f",
+                sketch.errorBound()) + " with probability "
+                + (1 - sketch.delta()) + ", largest overestimate " + maxOver
+                + ", mean overestimate "
+                + String.format("%.4f",
+                        exact.size() == 0 ? 0.0
+                                : (double) sumOver / exact.size())
+                + ", over the bound " + overBound + " of " + exact.size());
+
+        int[] exactTop = WordCounter.topWords(exact, k);
+        long[] counts = new long[k];
+        long[] errors = new long[k];
+        String[] approxTop = approx.heavyHitters().top(k, counts, errors);
+        int found = 0;
+        for (String word : approxTop) {
+            for (int n : exactTop) {
+                if (exact.word(n).equals(word)) {
+                    found++;
+                }
+            }
+        }
+        out.println("top " + k + " words:      " + found + " of "
+                + exactTop.length + " found by the heavy hitters tracker");
+        out.println();
+        out.println("rank\texact word\tcount\tapprox word\tcount\terror");
+        for (int i = 0; i < Math.max(exactTop.length, approxTop.length); i++) {
+            StringBuilder row = new StringBuilder().append(i + 1).append('\t');
+            if (i < exactTop.length) {
+                row.append(exact.word(exactTop[i])).append('\t')
+                        .append(exact.count(exactTop[i]));
+            } else {
+                row.append('\t');
+            }
+            row.append('\t');
+            if (i < approxTop.length) {
+                row.append(approxTop[i]).append('\t').append(counts[i])
+                        .append('\t').append(errors[i]);
+            }
+            out.println(row.toString());
+        }
+    }
+
+    /**
+     * Returns |estimate - exact| / exact, or 0 when both are 0.
+     *
+     * @param estimate
+     *            the estimated value
+     * @param exact
+     *            the exact value
+     * @return the relative error of estimate
+     */
+    private static double relativeError(long estimate, long exact) {
+        if (exact == 0) {
+            return estimate == 0 ? 0 : 1;
+        }
+        return Math.abs(estimate - exact) / (double) exact;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: either input file and output file
+     *            to write the table of the most frequent words, or "--compare"
+     *            and optionally an input file (data/nyja.txt by default) to
+     *            compare with exact counting. Both may be followed by
+     *            "--top k", "--epsilon e", "--delta d" and
+     *            "--distinct-error r".
+     */
+    public static void main(String[] args) {
+        SimpleReader in = new SimpleReader1L();
+        SimpleWriter out = new SimpleWriter1L();
+        double epsilon = DEFAULT_EPSILON;
+        double delta = DEFAULT_DELTA;
+        double distinctError = DEFAULT_DISTINCT_ERROR;
+        int top = DEFAULT_TOP;
+        boolean compare = false;
+        String[] files = new String[2];
+        int fileCount = 0;
+        int i = 0;
+        while (i < args.length) {
+            if (args[i].equals("--compare")) {
+                compare = true;
+            } else if (args[i].startsWith("--") && i + 1 < args.length) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--top":
+                        top = Integer.parseInt(value);
+                        break;
+                    case "--epsilon":
+                        epsilon = Double.parseDouble(value);
+                        break;
+                    case "--delta":
+                        delta = Double.parseDouble(value);
+                        break;
+                    case "--distinct-error":
+                        distinctError = Double.parseDouble(value);
+                        break;
+                    default:
+                        out.println("Unknown option " + args[i]);
+                        break;
+                }
+                i++;
+            } else if (fileCount < files.length) {
+                files[fileCount] = args[i];
+                fileCount++;
+            }
+            i++;
+        }
+        ApproximateWordCounter approx = new ApproximateWordCounter(epsilon,
+                delta, distinctError, top);
+        if (compare) {
+            String inFile = DEFAULT_COMPARE_FILE;
+            if (fileCount > 0) {
+                inFile = files[0];
+            }
+            compare(inFile, approx, top, out);
+        } else {
+            if (fileCount < 2) {
+                out.print("Enter input file name:- ");
+                files[0] = in.nextLine();
+                out.print("Enter output file name:- ");
+                files[1] = in.nextLine();
+            }
+            approx.countFile(files[0]);
+            try {
+                approx.createOpen(top, files[1], files[0]);
+            } catch (IOException e) {
+                out.println("Cannot write " + files[1] + ": " + e.getMessage());
+            }
+        }
+        in.close();
+        out.close();
+    }
+
+}
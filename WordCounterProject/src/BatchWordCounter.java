@@ -0,0 +1,447 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program that counts the words of many input files: every file of a
+ * directory tree, or every file matching a glob such as
+ * {@code logs/**}{@code /*.txt}. The files are counted on a work-stealing
+ * fork/join pool. A task splits its list of files in two until it is left
+ * with a batch of files small enough in total, which it counts one after the
+ * other, so that thousands of small files do not each pay for a task of their
+ * own. It can write a report per file, with the same layout as the one of
+ * {@code WordCounter}, and one merged report of all the files, in which words
+ * are in the same order as if the files had been concatenated in path order.
+ * It runs without asking anything:
+ *
+ * {@code BatchWordCounter <directory or glob> [--reports <directory>]
+ * [--merged <file>] [--threads <n>]}
+ *
+ * @author Nyja Gowda
+ *
+ */
+public final class BatchWordCounter {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private BatchWordCounter() {
+    }
+
+    /**
+     * Largest total size of a batch of files counted by one task, in bytes. A
+     * larger single file is still counted by one task.
+     */
+    private static final long BATCH_SIZE = 1 << 22;
+
+    /**
+     * Extension of the per-file reports.
+     */
+    private static final String REPORT_EXTENSION = ".html";
+
+    /**
+     * Files to count and where to write the reports.
+     */
+    private static final class Job {
+
+        /**
+         * The files, in path order.
+         */
+        private final List<Path> files;
+
+        /**
+         * Size of each file, by index in files.
+         */
+        private final long[] sizes;
+
+        /**
+         * Directory the input files are under, used to name the per-file
+         * reports.
+         */
+        private final Path base;
+
+        /**
+         * Directory of the per-file reports, or null for none.
+         */
+        private final Path reports;
+
+        /**
+         * Whether the counts of all the files are merged.
+         */
+        private final boolean merge;
+
+        /**
+         * Constructor.
+         *
+         * @param files
+         *            the files, in path order
+         * @param base
+         *            directory the input files are under
+         * @param reports
+         *            directory of the per-file reports, or null for none
+         * @param merge
+         *            whether the counts of all the files are merged
+         * @throws IOException
+         *             if the size of a file cannot be read
+         */
+        Job(List<Path> files, Path base, Path reports, boolean merge)
+                throws IOException {
+            this.files = files;
+            this.sizes = new long[files.size()];
+            for (int i = 0; i < this.sizes.length; i++) {
+                this.sizes[i] = Files.size(files.get(i));
+            }
+            this.base = base;
+            this.reports = reports;
+            this.merge = merge;
+        }
+    }
+
+    /**
+     * Task counting the files {@code [first, last)} of a job. It counts them
+     * itself if they make a small enough batch, and otherwise splits itself
+     * in two.
+     */
+    private static final class CountTask extends RecursiveTask<WordCounts> {
+
+        /**
+         * Serial version id, this class is never serialized.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The job.
+         */
+        private final transient Job job;
+
+        /**
+         * Index of the first file of this task.
+         */
+        private final int first;
+
+        /**
+         * Index one past the last file of this task.
+         */
+        private final int last;
+
+        /**
+         * Constructor.
+         *
+         * @param job
+         *            the job
+         * @param first
+         *            index of the first file of this task
+         * @param last
+         *            index one past the last file of this task
+         */
+        CountTask(Job job, int first, int last) {
+            this.job = job;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected WordCounts compute() {
+            long total = 0;
+            for (int i = this.first; i < this.last; i++) {
+                total += this.job.sizes[i];
+            }
+            if (this.last - this.first == 1 || total <= BATCH_SIZE) {
+                return countBatch(this.job, this.first, this.last);
+            }
+            /*
+             * split where the bytes, not the files, are halved, so that a few
+             * large files do not all end up on one side
+             */
+            int mid = this.first + 1;
+            long half = 0;
+            while (mid < this.last - 1
+                    && half + this.job.sizes[mid - 1] < total / 2) {
+                half += this.job.sizes[mid - 1];
+                mid++;
+            }
+            CountTask left = new CountTask(this.job, this.first, mid);
+            CountTask right = new CountTask(this.job, mid, this.last);
+            left.fork();
+            WordCounts rightCounts = right.compute();
+            WordCounts leftCounts = left.join();
+            if (!this.job.merge) {
+                return null;
+            }
+            /*
+             * left comes first in path order, so merging right into left keeps
+             * the same order of first occurrence as counting the files one
+             * after the other
+             */
+            leftCounts.addAll(rightCounts);
+            return leftCounts;
+        }
+    }
+
+    /**
+     * Counts the files {@code [first, last)} of {@code job} one after the
+     * other, writing the report of each if the job has per-file reports.
+     *
+     * @param job
+     *            the job
+     * @param first
+     *            index of the first file
+     * @param last
+     *            index one past the last file
+     * @return the counts of all the files, or null if the job does not merge
+     */
+    private static WordCounts countBatch(Job job, int first, int last) {
+        Charset charset = Charset.defaultCharset();
+        WordCounts merged = null;
+        if (job.merge) {
+            merged = new WordCounts();
+        }
+        try {
+            for (int i = first; i < last; i++) {
+                Path file = job.files.get(i);
+                String text = new String(Files.readAllBytes(file), charset);
+                if (job.reports == null) {
+                    WordCounter.countWords(text, merged,
+                            WordCounter.SEPARATOR_SET);
+                } else {
+                    WordCounts counts = new WordCounts();
+                    WordCounter.countWords(text, counts,
+                            WordCounter.SEPARATOR_SET);
+                    Path report = job.reports.resolve(job.base.relativize(file)
+                            + REPORT_EXTENSION);
+                    Files.createDirectories(report.getParent());
+                    WordCounter.createOpen(counts,
+                            counts.sorted(WordOrder.FOLDED_KEY),
+                            report.toString(), file.toString());
+                    if (merged != null) {
+                        merged.addAll(counts);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return merged;
+    }
+
+    /**
+     * Reports whether {@code c} has a special meaning in a glob.
+     *
+     * @param c
+     *            the character
+     * @return true iff c is a glob metacharacter
+     */
+    private static boolean isGlobCharacter(char c) {
+        return "*?[]{}".indexOf(c) >= 0;
+    }
+
+    /**
+     * Reports whether {@code input} has any glob metacharacter.
+     *
+     * @param input
+     *            the input
+     * @return true iff input has a glob metacharacter
+     */
+    private static boolean isGlob(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            if (isGlobCharacter(input.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the directory all the files named by {@code input} are under:
+     * input itself if it is a directory, otherwise the longest directory
+     * prefix of the glob without any glob metacharacter.
+     *
+     * @param input
+     *            a directory or a glob
+     * @return the base directory
+     * @requires input is a directory or has a glob metacharacter
+     */
+    public static Path baseDirectory(String input) {
+        Path path = Paths.get(input);
+        if (Files.isDirectory(path)) {
+            return path;
+        }
+        assert isGlob(input) : "Violation of: input is a directory or a glob";
+        int end = 0;
+        while (end < input.length() && !isGlobCharacter(input.charAt(end))) {
+            end++;
+        }
+        int slash = input.lastIndexOf('/', end - 1);
+        if (slash < 0) {
+            return Paths.get(".");
+        }
+        return Paths.get(input.substring(0, Math.max(1, slash)));
+    }
+
+    /**
+     * Returns every regular file named by {@code input}, in path order:
+     * every file under input if it is a directory, otherwise every file
+     * matching input as a glob.
+     *
+     * @param input
+     *            a directory or a glob
+     * @return the files
+     * @throws IOException
+     *             if input is neither a directory nor a glob, or if a
+     *             directory cannot be read
+     */
+    public static List<Path> listFiles(String input) throws IOException {
+        assert input != null : "Violation of: input is not null";
+        PathMatcher matcher;
+        if (Files.isDirectory(Paths.get(input))) {
+            matcher = path -> true;
+        } else if (!isGlob(input)) {
+            /*
+             * without this a missing directory would be taken for a glob
+             * matching only itself, and its whole parent walked for nothing
+             */
+            if (Files.exists(Paths.get(input))) {
+                throw new FileSystemException(input, null,
+                        "Not a directory or a glob");
+            }
+            throw new NoSuchFileException(input, null, "No such directory");
+        } else {
+            PathMatcher glob = FileSystems.getDefault()
+                    .getPathMatcher("glob:" + input);
+            matcher = path -> glob.matches(path);
+        }
+        Path base = baseDirectory(input);
+        /*
+         * files under "." are walked as "./x", which the glob "x" would not
+         * match
+         */
+        boolean relativeToCurrent = base.equals(Paths.get("."))
+                && !input.startsWith(".");
+        try (Stream<Path> walk = Files.walk(base)) {
+            return walk.filter(Files::isRegularFile)
+                    .filter(path -> matcher.matches(relativeToCurrent
+                            ? base.relativize(path)
+                            : path))
+                    .sorted().collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            /*
+             * Files.walk reports the directories it cannot read while walking
+             * this way
+             */
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Counts every file named by {@code input} on a pool of {@code threads}
+     * threads, writing a report per file to {@code reports} unless it is
+     * null, and returns the merged counts if {@code merge} is true.
+     *
+     * @param input
+     *            a directory or a glob
+     * @param reports
+     *            directory of the per-file reports, or null for none
+     * @param merge
+     *            whether to merge the counts of all the files
+     * @param threads
+     *            number of threads
+     * @return the counts of all the files, in order of first occurrence when
+     *         the files are read in path order, or null if merge is false
+     * @throws IOException
+     *             if a file cannot be read or a report cannot be written
+     * @requires input!=NULL and threads>0 and (reports!=NULL or merge)
+     */
+    public static WordCounts count(String input, Path reports, boolean merge,
+            int threads) throws IOException {
+        assert input != null : "Violation of: input is not null";
+        assert threads > 0 : "Violation of: threads > 0";
+        assert reports != null
+                || merge : "Violation of: reports!=NULL or merge";
+        List<Path> files = listFiles(input);
+        if (files.isEmpty()) {
+            return merge ? new WordCounts() : null;
+        }
+        Job job = new Job(files, baseDirectory(input), reports, merge);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new CountTask(job, 0, files.size()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: a directory or a glob, and then
+     *            any of "--reports" and the directory of the per-file reports,
+     *            "--merged" and the file of the merged report, "--threads" and
+     *            the number of threads
+     */
+    public static void main(String[] args) {
+        SimpleWriter out = new SimpleWriter1L();
+        Path reports = null;
+        String merged = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean usable = args.length >= 1 && args.length % 2 == 1;
+        for (int i = 1; usable && i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--reports":
+                    reports = Paths.get(args[i + 1]);
+                    break;
+                case "--merged":
+                    merged = args[i + 1];
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    usable = false;
+                    break;
+            }
+        }
+        if (!usable || (reports == null && merged == null)) {
+            out.println("Usage: BatchWordCounter <directory or glob>"
+                    + " [--reports <directory>] [--merged <file>]"
+                    + " [--threads <n>]");
+            out.println("At least one of --reports and --merged is needed.");
+        } else {
+            String input = args[0];
+            try {
+                long start = System.nanoTime();
+                WordCounts counts = count(input, reports, merged != null,
+                        threads);
+                if (merged != null) {
+                    WordCounter.createOpen(counts,
+                            counts.sorted(WordOrder.FOLDED_KEY), merged,
+                            input);
+                }
+                final long nanosPerMilli = 1_000_000;
+                out.println("Counted " + input + " in "
+                        + (System.nanoTime() - start) / nanosPerMilli + " ms");
+            } catch (IOException e) {
+                out.println("Cannot count " + input + ": " + e.getMessage());
+            }
+        }
+        out.close();
+    }
+
+}
@@ -0,0 +1,150 @@
+/**
+ * Count-Min Sketch of word frequencies. It uses a fixed amount of memory no
+ * matter how many distinct words there are. An estimate is never below the true
+ * count, and with probability at least {@code 1 - delta} it is at most
+ * {@code epsilon * total()} above it.
+ *
+ * @author Nyja Gowda
+ *
+ */
+public final class CountMinSketch {
+
+    /**
+     * Counters, one row of {@code width} counters per hash function.
+     */
+    private final long[][] rows;
+
+    /**
+     * Number of counters in a row.
+     */
+    private final int width;
+
+    /**
+     * Relative error bound the sketch was sized for.
+     */
+    private final double epsilon;
+
+    /**
+     * Failure probability the sketch was sized for.
+     */
+    private final double delta;
+
+    /**
+     * Sum of all the counts added.
+     */
+    private long total;
+
+    /**
+     * Constructor.
+     *
+     * @param epsilon
+     *            bound on the error of an estimate, as a fraction of total()
+     * @param delta
+     *            probability that an estimate goes over that bound
+     * @requires 0 < epsilon < 1 and 0 < delta < 1
+     * @ensures width = ceiling(e / epsilon) and depth = ceiling(ln(1 / delta))
+     */
+    public CountMinSketch(double epsilon, double delta) {
+        assert 0 < epsilon && epsilon < 1 : "Violation of: 0 < epsilon < 1";
+        assert 0 < delta && delta < 1 : "Violation of: 0 < delta < 1";
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.width = (int) Math.ceil(Math.E / epsilon);
+        int depth = (int) Math.ceil(Math.log(1 / delta));
+        this.rows = new long[Math.max(1, depth)][this.width];
+        this.total = 0;
+    }
+
+    /**
+     * Returns the counter of row {@code i} for a word with the given hash.
+     * Each row uses h1 + i * h2 from the two halves of the hash, which is as
+     * good as independent hash functions for this purpose.
+     *
+     * @param hash
+     *            64-bit hash of the word
+     * @param i
+     *            the row
+     * @return index of the counter in row i
+     */
+    private int column(long hash, int i) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        int combined = h1 + i * h2;
+        return (combined & Integer.MAX_VALUE) % this.width;
+    }
+
+    /**
+     * Adds {@code count} occurrences of {@code word}.
+     *
+     * @param word
+     *            the word
+     * @param count
+     *            number of occurrences
+     * @requires word!=NULL and count>0
+     */
+    public void add(String word, long count) {
+        assert word != null : "Violation of: word is not null";
+        assert count > 0 : "Violation of: count > 0";
+        long hash = WordHash.hash64(word);
+        for (int i = 0; i < this.rows.length; i++) {
+            this.rows[i][this.column(hash, i)] += count;
+        }
+        this.total += count;
+    }
+
+    /**
+     * Returns the estimated count of {@code word}.
+     *
+     * @param word
+     *            the word
+     * @return the smallest of the counters of word
+     * @requires word!=NULL
+     */
+    public long estimate(String word) {
+        assert word != null : "Violation of: word is not null";
+        long hash = WordHash.hash64(word);
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < this.rows.length; i++) {
+            min = Math.min(min, this.rows[i][this.column(hash, i)]);
+        }
+        return min;
+    }
+
+    /**
+     * Returns the sum of all the counts added.
+     *
+     * @return the total count
+     */
+    public long total() {
+        return this.total;
+    }
+
+    /**
+     * Returns the largest amount an estimate should exceed the true count by,
+     * with probability at least {@code 1 - delta}.
+     *
+     * @return epsilon * total()
+     */
+    public double errorBound() {
+        return this.epsilon * this.total;
+    }
+
+    /**
+     * Returns the failure probability the sketch was sized for.
+     *
+     * @return delta
+     */
+    public double delta() {
+        return this.delta;
+    }
+
+    /**
+     * Returns the number of bytes used by the counters.
+     *
+     * @return size of the counters in bytes
+     */
+    public long sizeInBytes() {
+        return (long) Long.BYTES * this.rows.length * this.width;
+    }
+
+}
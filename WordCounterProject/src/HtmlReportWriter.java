@@ -0,0 +1,219 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writer for the HTML table of words and counts. Rows are appended to one
+ * reusable character buffer and written to the file channel through a byte
+ * buffer in large batches, instead of one small write per line. Words are HTML
+ * escaped. The layout is the one of {@code expected.html}.
+ *
+ * @author Nyja Gowda
+ *
+ */
+public final class HtmlReportWriter implements Closeable {
+
+    /**
+     * Number of characters collected before they are encoded and written.
+     */
+    private static final int BATCH_SIZE = 1 << 16;
+
+    /**
+     * Line separator of the report.
+     */
+    private static final char NEW_LINE = '\n';
+
+    /**
+     * Channel of the output file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Encoder for the characters of the report.
+     */
+    private final CharsetEncoder encoder;
+
+    /**
+     * Characters not written yet.
+     */
+    private final StringBuilder pending;
+
+    /**
+     * Buffer the pending characters are encoded into.
+     */
+    private final ByteBuffer bytes;
+
+    /**
+     * Constructor, opens outFile and writes everything that comes before the
+     * rows of the table.
+     *
+     * @param outFile
+     *            the name of the file to which the HTML script is being written
+     * @param inFile
+     *            the name of the file that contains the text and is mentioned
+     *            in the heading and title.
+     * @throws IOException
+     *             if outFile cannot be written
+     */
+    public HtmlReportWriter(String outFile, String inFile) throws IOException {
+        assert outFile != null : "Violation of: outFile is not null";
+        assert inFile != null : "Violation of: inFile is not null";
+        this.channel = FileChannel.open(Paths.get(outFile),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.encoder = Charset.defaultCharset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.pending = new StringBuilder(BATCH_SIZE + BATCH_SIZE / 4);
+        /*
+         * a heap buffer, not a direct one: many writers can be open at once,
+         * and direct memory is limited and only freed once a writer is
+         * collected
+         */
+        this.bytes = ByteBuffer.allocate(
+                (int) (BATCH_SIZE * this.encoder.maxBytesPerChar()));
+
+        this.line("");
+        this.line("<html>");
+        this.line("<head>");
+        this.pending.append("<title>Words Counted in ");
+        escape(inFile, this.pending);
+        this.line("</title>");
+        this.line("</head>");
+        this.line("<body>");
+        this.pending.append("<h2>Words Counted in ");
+        escape(inFile, this.pending);
+        this.line("</h2>");
+        this.line("<hr />");
+        this.line("<table border=\"1\">");
+        this.line("<tr>");
+        this.line("<th>Words</th>");
+        this.line("<th>Counts</th>");
+        this.line("</tr>");
+    }
+
+    /**
+     * Appends {@code text} and a new line to the pending characters.
+     *
+     * @param text
+     *            the text of the line
+     */
+    private void line(String text) {
+        this.pending.append(text).append(NEW_LINE);
+    }
+
+    /**
+     * Appends {@code text} to {@code out} with the HTML special characters
+     * replaced by their entities.
+     *
+     * @param text
+     *            the text to escape
+     * @param out
+     *            where the escaped text goes
+     */
+    public static void escape(CharSequence text, StringBuilder out) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&':
+                    out.append("&amp;");
+                    break;
+                case '<':
+                    out.append("&lt;");
+                    break;
+                case '>':
+                    out.append("&gt;");
+                    break;
+                case '"':
+                    out.append("&quot;");
+                    break;
+                case '\'':
+                    out.append("&#39;");
+                    break;
+                default:
+                    out.append(c);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Writes one row of the table.
+     *
+     * @param word
+     *            the word
+     * @param count
+     *            the number of times word appears in the document
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    public void writeRow(String word, long count) throws IOException {
+        this.pending.append("<tr>").append(NEW_LINE).append("<td>");
+        escape(word, this.pending);
+        this.pending.append("</td>").append(NEW_LINE).append("<td>")
+                .append(count).append("</td>").append(NEW_LINE).append("</tr>")
+                .append(NEW_LINE);
+        if (this.pending.length() >= BATCH_SIZE) {
+            this.flush();
+        }
+    }
+
+    /**
+     * Encodes and writes all the pending characters.
+     *
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    private void flush() throws IOException {
+        CharBuffer chars = CharBuffer.wrap(this.pending);
+        CoderResult result;
+        do {
+            result = this.encoder.encode(chars, this.bytes, false);
+            this.bytes.flip();
+            while (this.bytes.hasRemaining()) {
+                this.channel.write(this.bytes);
+            }
+            this.bytes.clear();
+        } while (result.isOverflow());
+        /*
+         * an unpaired high surrogate at the very end stays in chars until the
+         * next batch completes it
+         */
+        this.pending.delete(0, chars.position());
+    }
+
+    /**
+     * Writes everything that comes after the rows of the table and closes the
+     * file.
+     *
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            this.line("</table>");
+            this.line("</body>");
+            this.line("</html>");
+            this.flush();
+            CharBuffer rest = CharBuffer.wrap(this.pending);
+            this.encoder.encode(rest, this.bytes, true);
+            this.encoder.flush(this.bytes);
+            this.bytes.flip();
+            while (this.bytes.hasRemaining()) {
+                this.channel.write(this.bytes);
+            }
+        } finally {
+            this.channel.close();
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+/**
+ * HyperLogLog estimate of the number of distinct words, using
+ * {@code 2^precision} one byte registers. The relative standard error of the
+ * estimate is about {@code 1.04 / sqrt(2^precision)}.
+ *
+ * @author Nyja Gowda
+ *
+ */
+public final class HyperLogLog {
+
+    /**
+     * Smallest precision supported.
+     */
+    public static final int MIN_PRECISION = 4;
+
+    /**
+     * Largest precision supported.
+     */
+    public static final int MAX_PRECISION = 18;
+
+    /**
+     * Constant of the standard error, {@code 1.04 / sqrt(m)}.
+     */
+    private static final double ERROR_FACTOR = 1.04;
+
+    /**
+     * Number of bits of the hash that pick the register.
+     */
+    private final int precision;
+
+    /**
+     * Registers, each the largest rank seen for its bucket.
+     */
+    private final byte[] registers;
+
+    /**
+     * Constructor.
+     *
+     * @param precision
+     *            number of bits of the hash that pick a register
+     * @requires MIN_PRECISION <= precision <= MAX_PRECISION
+     */
+    public HyperLogLog(int precision) {
+        assert MIN_PRECISION <= precision && precision <= MAX_PRECISION : ""
+                + "Violation of: MIN_PRECISION <= precision <= MAX_PRECISION";
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Returns the smallest precision whose standard error is at most
+     * {@code relativeError}.
+     *
+     * @param relativeError
+     *            the wanted relative standard error
+     * @return the precision to use
+     * @requires 0 < relativeError < 1
+     */
+    public static int precisionFor(double relativeError) {
+        assert 0 < relativeError
+                && relativeError < 1 : "Violation of: 0 < relativeError < 1";
+        double m = Math.pow(ERROR_FACTOR / relativeError, 2);
+        int p = (int) Math.ceil(Math.log(m) / Math.log(2));
+        return Math.max(MIN_PRECISION, Math.min(MAX_PRECISION, p));
+    }
+
+    /**
+     * Adds {@code word} to the set of words seen.
+     *
+     * @param word
+     *            the word
+     * @requires word!=NULL
+     */
+    public void add(String word) {
+        assert word != null : "Violation of: word is not null";
+        long hash = WordHash.hash64(word);
+        int index = (int) (hash >>> (Long.SIZE - this.precision));
+        /*
+         * the rank is the position of the first 1 bit in the bits left after
+         * the index, the sentinel bit caps it when they are all 0
+         */
+        long rest = (hash << this.precision) | (1L << (this.precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > this.registers[index]) {
+            this.registers[index] = rank;
+        }
+    }
+
+    /**
+     * Returns the estimated number of distinct words added.
+     *
+     * @return the estimated cardinality
+     */
+    public long estimate() {
+        int m = this.registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte r : this.registers) {
+            sum += Math.scalb(1.0, -r);
+            if (r == 0) {
+                zeros++;
+            }
+        }
+        double alpha;
+        switch (m) {
+            case 16:
+                alpha = 0.673;
+                break;
+            case 32:
+                alpha = 0.697;
+                break;
+            case 64:
+                alpha = 0.709;
+                break;
+            default:
+                alpha = 0.7213 / (1 + 1.079 / m);
+                break;
+        }
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            //linear counting is more accurate for small cardinalities
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Returns the relative standard error of the estimate.
+     *
+     * @return 1.04 / sqrt(2^precision)
+     */
+    public double standardError() {
+        return ERROR_FACTOR / Math.sqrt(this.registers.length);
+    }
+
+    /**
+     * Returns the number of bytes used by the registers.
+     *
+     * @return size of the registers in bytes
+     */
+    public int sizeInBytes() {
+        return this.registers.length;
+    }
+
+}
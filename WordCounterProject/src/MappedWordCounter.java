@@ -0,0 +1,346 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import components.map.Map;
+import components.queue.Queue;
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program that counts the words of an input file by memory mapping it and
+ * tokenizing the mapped bytes directly. No line strings or substrings are
+ * built: a {@code String} is only created the first time a distinct word is
+ * seen. The HTML table written is the same as the one written by
+ * {@code WordCounter}.
+ *
+ * @author Nyja Gowda
+ *
+ */
+public final class MappedWordCounter {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private MappedWordCounter() {
+    }
+
+    /**
+     * Largest part of the file mapped at once, in bytes.
+     */
+    private static final int WINDOW_SIZE = 1 << 28;
+
+    /**
+     * Open addressing hash table from the bytes of a word to its count. Words
+     * are numbered in order of first occurrence and the table stores these
+     * numbers, so iterating the numbers gives the words in that order.
+     */
+    private static final class WordTable {
+
+        /**
+         * Initial number of slots, a power of two.
+         */
+        private static final int INITIAL_CAPACITY = 1 << 10;
+
+        /**
+         * Charset the file is decoded with.
+         */
+        private final Charset charset = Charset.defaultCharset();
+
+        /**
+         * Slots of the table, each holding 1 + the number of a word, or 0 when
+         * empty.
+         */
+        private int[] slots = new int[INITIAL_CAPACITY];
+
+        /**
+         * Hash of each word, by number.
+         */
+        private int[] hashes = new int[INITIAL_CAPACITY];
+
+        /**
+         * Encoded bytes of each word, by number.
+         */
+        private byte[][] keys = new byte[INITIAL_CAPACITY][];
+
+        /**
+         * Decoded text of each word, by number.
+         */
+        private String[] words = new String[INITIAL_CAPACITY];
+
+        /**
+         * Count of each word, by number.
+         */
+        private long[] counts = new long[INITIAL_CAPACITY];
+
+        /**
+         * Number of distinct words in the table.
+         */
+        private int size = 0;
+
+        /**
+         * Reports whether the bytes {@code [start, start + length)} of
+         * {@code buffer} are the bytes of {@code key}.
+         *
+         * @param key
+         *            bytes of a word in the table
+         * @param buffer
+         *            the mapped file
+         * @param start
+         *            index of the first byte of the word in buffer
+         * @param length
+         *            number of bytes of the word
+         * @return true iff the bytes are equal
+         */
+        private static boolean matches(byte[] key, MappedByteBuffer buffer,
+                int start, int length) {
+            if (key.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (key[i] != buffer.get(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Adds one to the count of the word made of the bytes
+         * {@code [start, start + length)} of {@code buffer}, adding the word
+         * with a count of 1 if it is not in the table yet.
+         *
+         * @param buffer
+         *            the mapped file
+         * @param start
+         *            index of the first byte of the word in buffer
+         * @param length
+         *            number of bytes of the word
+         * @param hash
+         *            hash of the bytes of the word
+         */
+        void increment(MappedByteBuffer buffer, int start, int length,
+                int hash) {
+            int mask = this.slots.length - 1;
+            int slot = hash & mask;
+            while (this.slots[slot] != 0) {
+                int n = this.slots[slot] - 1;
+                if (this.hashes[n] == hash
+                        && matches(this.keys[n], buffer, start, length)) {
+                    this.counts[n]++;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            /*
+             * first time this word is seen, this is the only place its bytes
+             * are copied and decoded
+             */
+            byte[] key = new byte[length];
+            for (int i = 0; i < length; i++) {
+                key[i] = buffer.get(start + i);
+            }
+            int n = this.size;
+            this.hashes[n] = hash;
+            this.keys[n] = key;
+            this.words[n] = new String(key, this.charset);
+            this.counts[n] = 1;
+            this.slots[slot] = n + 1;
+            this.size++;
+            if (2 * this.size > this.slots.length) {
+                this.grow();
+            }
+        }
+
+        /**
+         * Doubles the number of slots and the room for words.
+         */
+        private void grow() {
+            int capacity = 2 * this.slots.length;
+            this.hashes = Arrays.copyOf(this.hashes, capacity);
+            this.keys = Arrays.copyOf(this.keys, capacity);
+            this.words = Arrays.copyOf(this.words, capacity);
+            this.counts = Arrays.copyOf(this.counts, capacity);
+            this.slots = new int[capacity];
+            int mask = capacity - 1;
+            for (int n = 0; n < this.size; n++) {
+                int slot = this.hashes[n] & mask;
+                while (this.slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                this.slots[slot] = n + 1;
+            }
+        }
+    }
+
+    /**
+     * Reports whether byte {@code b} is one of the separators.
+     *
+     * @param b
+     *            the byte to check
+     * @return true iff b is the encoding of a separator character
+     */
+    private static boolean isSeparator(byte b) {
+        /*
+         * all separators are ASCII, and getWordCounts only tokenizes bytes in
+         * a charset where no byte of a multi-byte character is in the ASCII
+         * range, so tokenizing bytes gives the same words as tokenizing the
+         * decoded text
+         */
+        return WordCounter.SEPARATOR_SET.containsByte(b);
+    }
+
+    /**
+     * Tokenizes the mapped bytes {@code [0, limit)} of {@code buffer} into
+     * {@code table}. A word that runs into {@code limit} is left for the next
+     * window unless {@code last} is true.
+     *
+     * @param buffer
+     *            the mapped window of the file
+     * @param limit
+     *            number of bytes of the window
+     * @param last
+     *            whether the window reaches the end of the file
+     * @param table
+     *            table the words are counted into
+     * @return index in the window of the first byte that was not tokenized
+     */
+    private static int countWindow(MappedByteBuffer buffer, int limit,
+            boolean last, WordTable table) {
+        int i = 0;
+        while (i < limit) {
+            byte b = buffer.get(i);
+            if (isSeparator(b)) {
+                i++;
+            } else {
+                int start = i;
+                int hash = 0;
+                while (i < limit && !isSeparator(buffer.get(i))) {
+                    hash = 31 * hash + buffer.get(i);
+                    i++;
+                }
+                if (i == limit && !last && start > 0) {
+                    /*
+                     * the word may go on in the next window, which will start
+                     * at this word
+                     */
+                    return start;
+                }
+                table.increment(buffer, start, i - start, hash ^ (hash >>> 16));
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Counts every word of the file by tokenizing its memory mapped bytes. The
+     * result is the same as the one of {@code WordCounter.getWordCounts}.
+     *
+     * @param fileName
+     *            the input file which contains text
+     * @param map
+     *            map that receives all the words in the file and the count of
+     *            the number of times they appear in the file.
+     * @return queue of all the distinct words in the file, in order of first
+     *         occurrence.
+     * @throws IOException
+     *             if the file cannot be read
+     *
+     * @replaces map
+     * @requires fileName!=NULL and map!=NULL
+     * @ensures map holds the count of every word in inFile
+     */
+    public static Queue<String> getWordCounts(String fileName,
+            Map<String, Integer> map) throws IOException {
+        assert map != null : "Violation of: map is not null";
+        WordCounts counts = getWordCounts(fileName);
+        counts.toMap(map);
+        return counts.words();
+    }
+
+    /**
+     * Counts every word of the file by tokenizing its memory mapped bytes. The
+     * result is the same as the one of {@code WordCounter.getWordCounts}. In
+     * a default charset where the bytes of a separator can occur inside
+     * another character, such as Shift_JIS or GBK, the decoded text is
+     * counted with {@code WordCounter.getWordCounts} instead.
+     *
+     * @param fileName
+     *            the input file which contains text
+     * @return the words in the file and the count of the number of times they
+     *         appear in the file, numbered in order of first occurrence.
+     * @throws IOException
+     *             if the file cannot be read
+     *
+     * @requires fileName!=NULL
+     */
+    public static WordCounts getWordCounts(String fileName)
+            throws IOException {
+        assert fileName != null : "Violation of: fileName is not null";
+        WordTable table = new WordTable();
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName),
+                StandardOpenOption.READ)) {
+            if (!SeparatorSet.canSearchBytes(table.charset)) {
+                return WordCounter.getWordCounts(fileName,
+                        WordCounter.SEPARATOR_SET);
+            }
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                int limit = (int) Math.min(WINDOW_SIZE, size - position);
+                boolean last = position + limit == size;
+                MappedByteBuffer buffer = channel
+                        .map(FileChannel.MapMode.READ_ONLY, position, limit);
+                position += countWindow(buffer, limit, last, table);
+            }
+        }
+        /*
+         * the table tells words apart by their bytes, but different byte
+         * sequences, malformed ones or ones the charset cannot map, can
+         * decode to the same word, whose counts must then be added together
+         */
+        WordCounts counts = new WordCounts();
+        for (int n = 0; n < table.size; n++) {
+            counts.add(table.words[n], table.counts[n]);
+        }
+        return counts;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: input file and output file
+     */
+    public static void main(String[] args) {
+        SimpleReader in = new SimpleReader1L();
+        SimpleWriter out = new SimpleWriter1L();
+        String inFile;
+        String outFile;
+        if (args.length >= 2) {
+            inFile = args[0];
+            outFile = args[1];
+        } else {
+            out.print("Enter input file name:- ");
+            inFile = in.nextLine();
+            out.print("Enter output file name:- ");
+            outFile = in.nextLine();
+        }
+        try {
+            WordCounts counts = getWordCounts(inFile);
+            WordCounter.createOpen(counts, counts.sorted(WordOrder.FOLDED_KEY),
+                    outFile, inFile);
+        } catch (IOException e) {
+            out.println("Cannot read " + inFile + ": " + e.getMessage());
+        }
+        in.close();
+        out.close();
+    }
+
+}
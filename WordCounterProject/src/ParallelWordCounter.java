@@ -0,0 +1,363 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import components.map.Map;
+import components.queue.Queue;
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program that counts the words of an input file in parallel. The file is split
+ * into byte ranges that start on a separator, each range is counted on a
+ * fork/join pool and the per-range counts are merged at the end. The HTML table
+ * written is the same as the one written by {@code WordCounter}.
+ *
+ * @author Nyja Gowda
+ *
+ */
+public final class ParallelWordCounter {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private ParallelWordCounter() {
+    }
+
+    /**
+     * Smallest range of the file worth counting on its own, in bytes.
+     */
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * Largest range of the file counted by one task, in bytes. Each range is
+     * decoded into a single string so it has to stay well under 2GB.
+     */
+    private static final int MAX_CHUNK_SIZE = 1 << 26;
+
+    /**
+     * Number of ranges handed out per thread, so that threads which finish
+     * early can steal work from slower ones.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Size of the buffer used when looking for the separator that starts a
+     * range.
+     */
+    private static final int SCAN_BUFFER_SIZE = 4096;
+
+    /**
+     * Task that counts the ranges {@code [first, last)} of the file, splitting
+     * itself in two until it is left with a single range.
+     */
+    private static final class CountTask extends RecursiveTask<WordCounts> {
+
+        /**
+         * Serial version id, this class is never serialized.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Channel of the input file.
+         */
+        private final transient FileChannel channel;
+
+        /**
+         * Starting offsets of the ranges, followed by the file size.
+         */
+        private final long[] bounds;
+
+        /**
+         * Index of the first range of this task.
+         */
+        private final int first;
+
+        /**
+         * Index one past the last range of this task.
+         */
+        private final int last;
+
+        /**
+         * Constructor.
+         *
+         * @param channel
+         *            channel of the input file
+         * @param bounds
+         *            starting offsets of the ranges followed by the file size
+         * @param first
+         *            index of the first range of this task
+         * @param last
+         *            index one past the last range of this task
+         */
+        CountTask(FileChannel channel, long[] bounds, int first, int last) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected WordCounts compute() {
+            if (this.last - this.first == 1) {
+                return countRange(this.channel, this.bounds[this.first],
+                        this.bounds[this.last]);
+            }
+            int mid = (this.first + this.last) >>> 1;
+            CountTask left = new CountTask(this.channel, this.bounds,
+                    this.first, mid);
+            CountTask right = new CountTask(this.channel, this.bounds, mid,
+                    this.last);
+            left.fork();
+            WordCounts rightCounts = right.compute();
+            WordCounts leftCounts = left.join();
+            /*
+             * left comes first in the file, so merging right into left keeps
+             * the same order of first occurrence as reading sequentially
+             */
+            leftCounts.addAll(rightCounts);
+            return leftCounts;
+        }
+    }
+
+    /**
+     * Reports whether byte {@code b} is one of the separators.
+     *
+     * @param b
+     *            the byte to check
+     * @return true iff b is the encoding of a separator character
+     */
+    private static boolean isSeparator(byte b) {
+        /*
+         * all separators are ASCII, and getWordCounts only splits files in a
+         * charset where no byte of a multi-byte character is in the ASCII
+         * range
+         */
+        return WordCounter.SEPARATOR_SET.containsByte(b);
+    }
+
+    /**
+     * Reads and counts the words of the range {@code [start, end)} of the file.
+     *
+     * @param channel
+     *            channel of the input file
+     * @param start
+     *            offset of the first byte of the range
+     * @param end
+     *            offset one past the last byte of the range
+     * @return the counts of the range
+     */
+    private static WordCounts countRange(FileChannel channel, long start,
+            long end) {
+        byte[] bytes = new byte[(int) (end - start)];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, start + buffer.position());
+                if (read < 0) {
+                    throw new IOException("file shrank while being read");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        WordCounts counts = new WordCounts();
+        WordCounter.countWords(new String(bytes, Charset.defaultCharset()),
+                counts, WordCounter.SEPARATOR_SET);
+        return counts;
+    }
+
+    /**
+     * Moves {@code offset} forward to the first separator at or after it, so
+     * that no word is split between two ranges.
+     *
+     * @param channel
+     *            channel of the input file
+     * @param offset
+     *            candidate starting offset of a range
+     * @param size
+     *            size of the file
+     * @return offset of the first separator at or after offset, or size if
+     *         there is none
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    private static long alignToSeparator(FileChannel channel, long offset,
+            long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long position = offset;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (isSeparator(buffer.get(i))) {
+                    return position + i;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Splits a file of the given size into ranges for {@code threads} threads.
+     *
+     * @param channel
+     *            channel of the input file
+     * @param size
+     *            size of the file
+     * @param threads
+     *            number of threads that will count the ranges
+     * @return starting offsets of the ranges in increasing order, followed by
+     *         size
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    private static long[] splitIntoRanges(FileChannel channel, long size,
+            int threads) throws IOException {
+        long wanted = Math.max((long) threads * CHUNKS_PER_THREAD,
+                (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+        long chunks = Math.max(1,
+                Math.min(wanted, (size + MIN_CHUNK_SIZE - 1) / MIN_CHUNK_SIZE));
+        long[] candidates = new long[(int) chunks + 1];
+        int count = 1;
+        for (int i = 1; i < chunks; i++) {
+            long offset = alignToSeparator(channel, size * i / chunks, size);
+            /*
+             * a very long word can swallow the next candidate, such ranges are
+             * dropped rather than counted twice
+             */
+            if (offset > candidates[count - 1] && offset < size) {
+                candidates[count] = offset;
+                count++;
+            }
+        }
+        long[] bounds = new long[count + 1];
+        System.arraycopy(candidates, 0, bounds, 0, count);
+        bounds[count] = size;
+        return bounds;
+    }
+
+    /**
+     * Counts every word of the file using {@code threads} threads. The result
+     * is the same as the one of {@code WordCounter.getWordCounts}.
+     *
+     * @param fileName
+     *            the input file which contains text
+     * @param map
+     *            map that receives all the words in the file and the count of
+     *            the number of times they appear in the file.
+     * @param threads
+     *            number of threads to count with
+     * @return queue of all the distinct words in the file, in order of first
+     *         occurrence.
+     * @throws IOException
+     *             if the file cannot be read
+     *
+     * @replaces map
+     * @requires fileName!=NULL and map!=NULL and threads>0
+     * @ensures map holds the count of every word in inFile
+     */
+    public static Queue<String> getWordCounts(String fileName,
+            Map<String, Integer> map, int threads) throws IOException {
+        assert map != null : "Violation of: map is not null";
+        WordCounts counts = getWordCounts(fileName, threads);
+        counts.toMap(map);
+        return counts.words();
+    }
+
+    /**
+     * Counts every word of the file using {@code threads} threads. The result
+     * is the same as the one of {@code WordCounter.getWordCounts}. Ranges
+     * start where a separator byte is, so in a default charset where that is
+     * not reliable, such as Shift_JIS or GBK, the file is counted by one
+     * thread with {@code WordCounter.getWordCounts}.
+     *
+     * @param fileName
+     *            the input file which contains text
+     * @param threads
+     *            number of threads to count with
+     * @return the words in the file and the count of the number of times they
+     *         appear in the file, numbered in order of first occurrence.
+     * @throws IOException
+     *             if the file cannot be read
+     *
+     * @requires fileName!=NULL and threads>0
+     */
+    public static WordCounts getWordCounts(String fileName, int threads)
+            throws IOException {
+        assert fileName != null : "Violation of: fileName is not null";
+        assert threads > 0 : "Violation of: threads > 0";
+        WordCounts counts;
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName),
+                StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return new WordCounts();
+            }
+            if (!SeparatorSet.canSearchBytes(Charset.defaultCharset())) {
+                return WordCounter.getWordCounts(fileName,
+                        WordCounter.SEPARATOR_SET);
+            }
+            long[] bounds = splitIntoRanges(channel, size, threads);
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                counts = pool.invoke(
+                        new CountTask(channel, bounds, 0, bounds.length - 1));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                pool.shutdown();
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: input file, output file and
+     *            optionally the number of threads
+     */
+    public static void main(String[] args) {
+        SimpleReader in = new SimpleReader1L();
+        SimpleWriter out = new SimpleWriter1L();
+        String inFile;
+        String outFile;
+        if (args.length >= 2) {
+            inFile = args[0];
+            outFile = args[1];
+        } else {
+            out.print("Enter input file name:- ");
+            inFile = in.nextLine();
+            out.print("Enter output file name:- ");
+            outFile = in.nextLine();
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (args.length >= 3) {
+            threads = Integer.parseInt(args[2]);
+        }
+        try {
+            WordCounts counts = getWordCounts(inFile, threads);
+            WordCounter.createOpen(counts, counts.sorted(WordOrder.FOLDED_KEY),
+                    outFile, inFile);
+        } catch (IOException e) {
+            out.println("Cannot read " + inFile + ": " + e.getMessage());
+        }
+        in.close();
+        out.close();
+    }
+
+}
@@ -0,0 +1,702 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program that counts the words of an input file with a pipeline of stages
+ * running at the same time, so that reading the file overlaps tokenizing it.
+ * A reader stage reads the file in large blocks that end on a separator,
+ * tokenizer workers count the words of each block, and a counting stage
+ * merges the counts of the blocks in file order. The stages are connected by
+ * bounded queues: a stage that gets ahead blocks until the next one catches
+ * up. The counts of a block tokenized out of order wait for the blocks
+ * before it, so the number of blocks read but not yet merged is bounded too,
+ * and memory stays bounded whatever the size of the file. The depth of each
+ * queue and the time each stage spends working and waiting are recorded in a
+ * {@code Statistics}, which shows the slowest stage. The HTML table written
+ * is the same as the one written by {@code WordCounter}.
+ *
+ * @author Nyja Gowda
+ *
+ */
+public final class PipelinedWordCounter {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private PipelinedWordCounter() {
+    }
+
+    /**
+     * Size of the blocks read by the reader stage, in bytes.
+     */
+    private static final int BLOCK_SIZE = 1 << 22;
+
+    /**
+     * Number of blocks each queue can hold per tokenizer worker.
+     */
+    private static final int QUEUE_SLOTS_PER_WORKER = 2;
+
+    /**
+     * A block of the file, or the end of the file when {@code bytes} is null.
+     */
+    private static final class Block {
+
+        /**
+         * Number of the block in file order.
+         */
+        private final int number;
+
+        /**
+         * Bytes of the block.
+         */
+        private final byte[] bytes;
+
+        /**
+         * Number of bytes of the block in {@code bytes}.
+         */
+        private final int length;
+
+        /**
+         * Constructor.
+         *
+         * @param number
+         *            number of the block in file order
+         * @param bytes
+         *            bytes of the block
+         * @param length
+         *            number of bytes of the block in bytes
+         */
+        Block(int number, byte[] bytes, int length) {
+            this.number = number;
+            this.bytes = bytes;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Counts of one block, or the end of the file when {@code counts} is
+     * null.
+     */
+    private static final class BlockCounts {
+
+        /**
+         * Number of the block in file order.
+         */
+        private final int number;
+
+        /**
+         * Counts of the words of the block.
+         */
+        private final WordCounts counts;
+
+        /**
+         * Constructor.
+         *
+         * @param number
+         *            number of the block in file order
+         * @param counts
+         *            counts of the words of the block
+         */
+        BlockCounts(int number, WordCounts counts) {
+            this.number = number;
+            this.counts = counts;
+        }
+    }
+
+    /**
+     * Statistics of a queue between two stages.
+     */
+    public static final class QueueStatistics {
+
+        /**
+         * Name of the queue.
+         */
+        private final String name;
+
+        /**
+         * Capacity of the queue.
+         */
+        private final int capacity;
+
+        /**
+         * Number of items put in the queue.
+         */
+        private long puts;
+
+        /**
+         * Sum of the depths of the queue right after each put.
+         */
+        private long depthSum;
+
+        /**
+         * Largest depth of the queue.
+         */
+        private int maxDepth;
+
+        /**
+         * Time producers spent waiting for room in the queue, in nanoseconds.
+         */
+        private long putWaitNanos;
+
+        /**
+         * Time consumers spent waiting for items in the queue, in nanoseconds.
+         */
+        private long takeWaitNanos;
+
+        /**
+         * Constructor.
+         *
+         * @param name
+         *            name of the queue
+         * @param capacity
+         *            capacity of the queue
+         */
+        QueueStatistics(String name, int capacity) {
+            this.name = name;
+            this.capacity = capacity;
+        }
+
+        /**
+         * Records a put.
+         *
+         * @param depth
+         *            depth of the queue right after the put
+         * @param waitNanos
+         *            time the producer waited for room
+         */
+        synchronized void recordPut(int depth, long waitNanos) {
+            this.puts++;
+            this.depthSum += depth;
+            this.maxDepth = Math.max(this.maxDepth, depth);
+            this.putWaitNanos += waitNanos;
+        }
+
+        /**
+         * Records a take.
+         *
+         * @param waitNanos
+         *            time the consumer waited for an item
+         */
+        synchronized void recordTake(long waitNanos) {
+            this.takeWaitNanos += waitNanos;
+        }
+
+        /**
+         * Returns the capacity of the queue.
+         *
+         * @return the capacity
+         */
+        public int capacity() {
+            return this.capacity;
+        }
+
+        /**
+         * Returns the average depth of the queue right after a put. Close to
+         * the capacity, the stage reading the queue is the slower one; close
+         * to 1, the stage filling it is.
+         *
+         * @return the average depth
+         */
+        public synchronized double averageDepth() {
+            if (this.puts == 0) {
+                return 0;
+            }
+            return (double) this.depthSum / this.puts;
+        }
+
+        /**
+         * Returns the largest depth of the queue.
+         *
+         * @return the largest depth
+         */
+        public synchronized int maxDepth() {
+            return this.maxDepth;
+        }
+
+        /**
+         * Returns the time producers spent blocked on a full queue, in
+         * nanoseconds.
+         *
+         * @return the time blocked putting
+         */
+        public synchronized long putWaitNanos() {
+            return this.putWaitNanos;
+        }
+
+        /**
+         * Returns the time consumers spent blocked on an empty queue, in
+         * nanoseconds.
+         *
+         * @return the time blocked taking
+         */
+        public synchronized long takeWaitNanos() {
+            return this.takeWaitNanos;
+        }
+
+        @Override
+        public synchronized String toString() {
+            final double nanosPerMilli = 1e6;
+            return String.format(
+                    "%s: depth %.1f average, %d max of %d; "
+                            + "producers waited %.0f ms, consumers %.0f ms",
+                    this.name, this.averageDepth(), this.maxDepth,
+                    this.capacity, this.putWaitNanos / nanosPerMilli,
+                    this.takeWaitNanos / nanosPerMilli);
+        }
+    }
+
+    /**
+     * Statistics of a run of the pipeline: the two queues and the time each
+     * stage spent working.
+     */
+    public static final class Statistics {
+
+        /**
+         * Queue from the reader to the tokenizers.
+         */
+        private QueueStatistics toTokenizers;
+
+        /**
+         * Queue from the tokenizers to the counting stage.
+         */
+        private QueueStatistics toCounter;
+
+        /**
+         * Time the reader spent reading, in nanoseconds.
+         */
+        private long readNanos;
+
+        /**
+         * Time the tokenizers spent tokenizing, added over all of them, in
+         * nanoseconds.
+         */
+        private long tokenizeNanos;
+
+        /**
+         * Time the counting stage spent merging, in nanoseconds.
+         */
+        private long countNanos;
+
+        /**
+         * Number of tokenizer workers.
+         */
+        private int tokenizers;
+
+        /**
+         * Adds to the time the tokenizers spent tokenizing.
+         *
+         * @param nanos
+         *            the time to add
+         */
+        private synchronized void addTokenizeNanos(long nanos) {
+            this.tokenizeNanos += nanos;
+        }
+
+        /**
+         * Returns the statistics of the queue from the reader to the
+         * tokenizers.
+         *
+         * @return the queue statistics
+         */
+        public QueueStatistics toTokenizers() {
+            return this.toTokenizers;
+        }
+
+        /**
+         * Returns the statistics of the queue from the tokenizers to the
+         * counting stage.
+         *
+         * @return the queue statistics
+         */
+        public QueueStatistics toCounter() {
+            return this.toCounter;
+        }
+
+        /**
+         * Returns the time the reader spent reading, in nanoseconds.
+         *
+         * @return the time reading
+         */
+        public synchronized long readNanos() {
+            return this.readNanos;
+        }
+
+        /**
+         * Returns the time the tokenizers spent tokenizing, added over all of
+         * them, in nanoseconds.
+         *
+         * @return the time tokenizing
+         */
+        public synchronized long tokenizeNanos() {
+            return this.tokenizeNanos;
+        }
+
+        /**
+         * Returns the time the counting stage spent merging, in nanoseconds.
+         *
+         * @return the time counting
+         */
+        public synchronized long countNanos() {
+            return this.countNanos;
+        }
+
+        @Override
+        public synchronized String toString() {
+            final double nanosPerMilli = 1e6;
+            return String.format(
+                    "read %.0f ms, tokenize %.0f ms per worker (%d workers),"
+                            + " count %.0f ms%n%s%n%s",
+                    this.readNanos / nanosPerMilli,
+                    this.tokenizeNanos / nanosPerMilli / this.tokenizers,
+                    this.tokenizers, this.countNanos / nanosPerMilli,
+                    this.toTokenizers, this.toCounter);
+        }
+    }
+
+    /**
+     * Puts {@code item} in {@code queue}, waiting for room if it is full, and
+     * records the put in {@code stats}.
+     *
+     * @param <T>
+     *            type of the items
+     * @param queue
+     *            the queue
+     * @param item
+     *            the item
+     * @param stats
+     *            statistics of the queue
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    private static <T> void put(BlockingQueue<T> queue, T item,
+            QueueStatistics stats) throws InterruptedException {
+        long start = System.nanoTime();
+        queue.put(item);
+        long waited = System.nanoTime() - start;
+        stats.recordPut(queue.size(), waited);
+    }
+
+    /**
+     * Takes an item from {@code queue}, waiting for one if it is empty, and
+     * records the take in {@code stats}.
+     *
+     * @param <T>
+     *            type of the items
+     * @param queue
+     *            the queue
+     * @param stats
+     *            statistics of the queue
+     * @return the item
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    private static <T> T take(BlockingQueue<T> queue, QueueStatistics stats)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        T item = queue.take();
+        stats.recordTake(System.nanoTime() - start);
+        return item;
+    }
+
+    /**
+     * Reader stage: reads the file in blocks that end on a separator
+     * character, so that no word or character is split between two blocks,
+     * and puts them in {@code blocks}, followed by one end marker per
+     * tokenizer. A permit of {@code inFlight} is acquired for each block
+     * before it is put.
+     *
+     * @param channel
+     *            channel of the input file
+     * @param blocks
+     *            queue to the tokenizers
+     * @param inFlight
+     *            permits for the blocks read but not yet merged
+     * @param tokenizers
+     *            number of tokenizers
+     * @param stats
+     *            statistics of the run
+     * @throws IOException
+     *             if the file cannot be read
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    private static void read(FileChannel channel, BlockingQueue<Block> blocks,
+            Semaphore inFlight, int tokenizers, Statistics stats)
+            throws IOException, InterruptedException {
+        Charset charset = Charset.defaultCharset();
+        byte[] buffer = new byte[BLOCK_SIZE];
+        int filled = 0;
+        int number = 0;
+        boolean atEnd = false;
+        while (!atEnd) {
+            long start = System.nanoTime();
+            int read = channel.read(
+                    ByteBuffer.wrap(buffer, filled, buffer.length - filled));
+            synchronized (stats) {
+                stats.readNanos += System.nanoTime() - start;
+            }
+            if (read < 0) {
+                atEnd = true;
+            } else {
+                filled += read;
+            }
+            if (atEnd || filled == buffer.length) {
+                int end = filled;
+                if (!atEnd) {
+                    /*
+                     * in a charset such as Shift_JIS a separator byte can be
+                     * part of another character, the block is then decoded to
+                     * find where it can end
+                     */
+                    end = WordCounter.SEPARATOR_SET.endOfLastSeparator(
+                            buffer, filled, charset);
+                }
+                if (end == 0 && !atEnd) {
+                    /*
+                     * a single word fills the whole buffer, make room for the
+                     * rest of it
+                     */
+                    buffer = Arrays.copyOf(buffer,
+                            2 * buffer.length);
+                } else if (end > 0) {
+                    byte[] next = new byte[Math.max(BLOCK_SIZE,
+                            filled - end + 1)];
+                    System.arraycopy(buffer, end, next, 0, filled - end);
+                    inFlight.acquire();
+                    put(blocks, new Block(number, buffer, end),
+                            stats.toTokenizers);
+                    number++;
+                    buffer = next;
+                    filled -= end;
+                }
+            }
+        }
+        for (int i = 0; i < tokenizers; i++) {
+            put(blocks, new Block(-1, null, 0), stats.toTokenizers);
+        }
+    }
+
+    /**
+     * Tokenizer stage: counts the words of each block taken from
+     * {@code blocks} and puts the counts in {@code counted}, until it takes
+     * an end marker, which it passes on.
+     *
+     * @param blocks
+     *            queue from the reader
+     * @param counted
+     *            queue to the counting stage
+     * @param stats
+     *            statistics of the run
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    private static void tokenize(BlockingQueue<Block> blocks,
+            BlockingQueue<BlockCounts> counted, Statistics stats)
+            throws InterruptedException {
+        Charset charset = Charset.defaultCharset();
+        Block block = take(blocks, stats.toTokenizers);
+        while (block.bytes != null) {
+            long start = System.nanoTime();
+            WordCounts counts = new WordCounts();
+            WordCounter.countWords(
+                    new String(block.bytes, 0, block.length, charset), counts,
+                    WordCounter.SEPARATOR_SET);
+            stats.addTokenizeNanos(System.nanoTime() - start);
+            put(counted, new BlockCounts(block.number, counts),
+                    stats.toCounter);
+            block = take(blocks, stats.toTokenizers);
+        }
+        put(counted, new BlockCounts(-1, null), stats.toCounter);
+    }
+
+    /**
+     * Counting stage: merges the counts taken from {@code counted} in file
+     * order, holding on to the counts of blocks that arrive early, until it
+     * has taken one end marker per tokenizer. A permit of {@code inFlight} is
+     * released for each block merged.
+     *
+     * @param counted
+     *            queue from the tokenizers
+     * @param inFlight
+     *            permits for the blocks read but not yet merged
+     * @param tokenizers
+     *            number of tokenizers
+     * @param stats
+     *            statistics of the run
+     * @return the counts of the whole file
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    private static WordCounts count(BlockingQueue<BlockCounts> counted,
+            Semaphore inFlight, int tokenizers, Statistics stats)
+            throws InterruptedException {
+        WordCounts total = new WordCounts();
+        Map<Integer, WordCounts> early = new HashMap<>();
+        int next = 0;
+        int ended = 0;
+        while (ended < tokenizers) {
+            BlockCounts blockCounts = take(counted, stats.toCounter);
+            long start = System.nanoTime();
+            if (blockCounts.counts == null) {
+                ended++;
+            } else {
+                early.put(blockCounts.number, blockCounts.counts);
+                WordCounts counts = early.remove(next);
+                while (counts != null) {
+                    total.addAll(counts);
+                    inFlight.release();
+                    next++;
+                    counts = early.remove(next);
+                }
+            }
+            synchronized (stats) {
+                stats.countNanos += System.nanoTime() - start;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Counts every word of the file with a pipeline of a reader, {@code
+     * tokenizers} tokenizer workers and a counting stage, recording the queue
+     * depths and stage times in {@code stats}. The result is the same as the
+     * one of {@code WordCounter.getWordCounts}.
+     *
+     * @param fileName
+     *            the input file which contains text
+     * @param tokenizers
+     *            number of tokenizer workers
+     * @param stats
+     *            receives the statistics of the run
+     * @return the words in the file and the count of the number of times they
+     *         appear in the file, numbered in order of first occurrence.
+     * @throws IOException
+     *             if the file cannot be read
+     *
+     * @requires fileName!=NULL and tokenizers>0 and stats!=NULL
+     */
+    public static WordCounts getWordCounts(String fileName, int tokenizers,
+            Statistics stats) throws IOException {
+        assert fileName != null : "Violation of: fileName is not null";
+        assert tokenizers > 0 : "Violation of: tokenizers > 0";
+        assert stats != null : "Violation of: stats is not null";
+        int capacity = QUEUE_SLOTS_PER_WORKER * tokenizers;
+        BlockingQueue<Block> blocks = new ArrayBlockingQueue<>(capacity);
+        BlockingQueue<BlockCounts> counted = new ArrayBlockingQueue<>(
+                capacity);
+        stats.toTokenizers = new QueueStatistics("reader -> tokenizers",
+                capacity);
+        stats.toCounter = new QueueStatistics("tokenizers -> counter",
+                capacity);
+        stats.tokenizers = tokenizers;
+        /*
+         * while the counting stage waits for a slow block, the counts of the
+         * blocks after it pile up; the reader stops reading once twice as many
+         * blocks as the queues and the tokenizers hold are not merged yet
+         */
+        Semaphore inFlight = new Semaphore(2 * (2 * capacity + tokenizers));
+        ExecutorService pool = Executors.newFixedThreadPool(tokenizers + 2);
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName),
+                StandardOpenOption.READ)) {
+            CompletionService<WordCounts> stages =
+                    new ExecutorCompletionService<>(pool);
+            stages.submit(() -> {
+                read(channel, blocks, inFlight, tokenizers, stats);
+                return null;
+            });
+            for (int i = 0; i < tokenizers; i++) {
+                stages.submit(() -> {
+                    tokenize(blocks, counted, stats);
+                    return null;
+                });
+            }
+            stages.submit(() -> count(counted, inFlight, tokenizers, stats));
+            /*
+             * stages are waited for in the order they finish, so a stage that
+             * fails is seen at once, even while the others are blocked
+             */
+            WordCounts counts = null;
+            for (int i = 0; i < tokenizers + 2; i++) {
+                WordCounts result = stages.take().get();
+                if (result != null) {
+                    counts = result;
+                }
+            }
+            return counts;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while counting " + fileName, e);
+        } finally {
+            /*
+             * if a stage failed, the others may be blocked on a queue that
+             * will never move again
+             */
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: input file, output file and
+     *            optionally the number of tokenizer workers
+     */
+    public static void main(String[] args) {
+        SimpleReader in = new SimpleReader1L();
+        SimpleWriter out = new SimpleWriter1L();
+        String inFile;
+        String outFile;
+        if (args.length >= 2) {
+            inFile = args[0];
+            outFile = args[1];
+        } else {
+            out.print("Enter input file name:- ");
+            inFile = in.nextLine();
+            out.print("Enter output file name:- ");
+            outFile = in.nextLine();
+        }
+        int tokenizers = Math.max(1,
+                Runtime.getRuntime().availableProcessors() - 2);
+        if (args.length >= 3) {
+            tokenizers = Integer.parseInt(args[2]);
+        }
+        try {
+            Statistics stats = new Statistics();
+            WordCounts counts = getWordCounts(inFile, tokenizers, stats);
+            WordCounter.createOpen(counts, counts.sorted(WordOrder.FOLDED_KEY),
+                    outFile, inFile);
+            out.println(stats.toString());
+        } catch (IOException e) {
+            out.println("Cannot read " + inFile + ": " + e.getMessage());
+        }
+        in.close();
+        out.close();
+    }
+
+}
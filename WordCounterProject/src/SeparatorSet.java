@@ -0,0 +1,263 @@
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import components.set.Set;
+
+/**
+ * Immutable set of separator characters, built once and then shared by all the
+ * tokenizing code. ASCII separators are looked up in a table and any other
+ * separators in a sorted array of code points, so checking a character never
+ * allocates or boxes.
+ *
+ * @author Nyja Gowda
+ *
+ */
+public final class SeparatorSet {
+
+    /**
+     * Number of code points covered by the lookup table.
+     */
+    private static final int ASCII_LIMIT = 128;
+
+    /**
+     * Lookup table for the ASCII separators, indexed by character.
+     */
+    private final boolean[] ascii = new boolean[ASCII_LIMIT];
+
+    /**
+     * The non-ASCII separators, as sorted code points without duplicates.
+     */
+    private final int[] others;
+
+    /**
+     * Constructor from a string holding every separator.
+     *
+     * @param separators
+     *            string whose characters are the separators
+     * @requires separators!=NULL
+     */
+    public SeparatorSet(String separators) {
+        assert separators != null : "Violation of: separators is not null";
+        this.others = this.fill(separators.codePoints().toArray());
+    }
+
+    /**
+     * Constructor from a set of separator characters.
+     *
+     * @param separators
+     *            set of characters that contains all separators
+     * @requires separators!=NULL
+     */
+    public SeparatorSet(Set<Character> separators) {
+        assert separators != null : "Violation of: separators is not null";
+        int[] codePoints = new int[separators.size()];
+        int i = 0;
+        for (char c : separators) {
+            codePoints[i] = c;
+            i++;
+        }
+        this.others = this.fill(codePoints);
+    }
+
+    /**
+     * Puts the ASCII code points in the lookup table and returns the others.
+     *
+     * @param codePoints
+     *            the separators
+     * @return the non-ASCII separators, sorted and without duplicates
+     */
+    private int[] fill(int[] codePoints) {
+        int[] rest = new int[codePoints.length];
+        int count = 0;
+        for (int cp : codePoints) {
+            if (cp < ASCII_LIMIT) {
+                this.ascii[cp] = true;
+            } else {
+                rest[count] = cp;
+                count++;
+            }
+        }
+        return Arrays.stream(rest, 0, count).sorted().distinct().toArray();
+    }
+
+    /**
+     * Reports whether the code point {@code codePoint} is a separator.
+     *
+     * @param codePoint
+     *            the code point to check
+     * @return true iff codePoint is a separator
+     */
+    public boolean contains(int codePoint) {
+        if (codePoint < ASCII_LIMIT) {
+            return codePoint >= 0 && this.ascii[codePoint];
+        }
+        return this.others.length > 0
+                && Arrays.binarySearch(this.others, codePoint) >= 0;
+    }
+
+    /**
+     * Reports whether the byte {@code b} is the encoding of a separator. Only
+     * meaningful when {@code isAscii()} and the bytes are in a charset for
+     * which {@code canSearchBytes} holds, since then no byte of a multi-byte
+     * character can be mistaken for a separator.
+     *
+     * @param b
+     *            the byte to check
+     * @return true iff b is an ASCII separator
+     */
+    public boolean containsByte(byte b) {
+        return b >= 0 && this.ascii[b];
+    }
+
+    /**
+     * Reports whether text encoded in {@code charset} can be tokenized by
+     * looking for ASCII separators in its bytes: every ASCII character is its
+     * own single byte, and no byte of any other character is in the ASCII
+     * range. This holds for UTF-8, US-ASCII and ISO-8859-1, but not for
+     * Shift_JIS or GBK, whose two-byte characters can end with the byte of an
+     * ASCII separator, nor for UTF-16.
+     *
+     * @param charset
+     *            the charset
+     * @return true iff separators can be found in bytes encoded in charset
+     * @requires charset!=NULL
+     */
+    public static boolean canSearchBytes(Charset charset) {
+        assert charset != null : "Violation of: charset is not null";
+        return charset.equals(StandardCharsets.UTF_8)
+                || charset.equals(StandardCharsets.US_ASCII)
+                || charset.equals(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Returns the index one past the last separator in
+     * {@code bytes[0, length)}, or 0 if there is none, for bytes encoded in
+     * {@code charset} that start on a character. The result is always on a
+     * character boundary, so bytes cut there decode to whole characters. The
+     * bytes are searched directly when {@code canSearchBytes(charset)} and all
+     * the separators are ASCII, and are decoded one character at a time
+     * otherwise.
+     *
+     * @param bytes
+     *            the bytes
+     * @param length
+     *            number of bytes to look at
+     * @param charset
+     *            charset of the bytes
+     * @return the end of the last separator
+     * @requires 0 <= length <= |bytes| and charset!=NULL
+     */
+    public int endOfLastSeparator(byte[] bytes, int length,
+            Charset charset) {
+        assert charset != null : "Violation of: charset is not null";
+        if (this.isAscii() && canSearchBytes(charset)) {
+            int i = length;
+            while (i > 0 && !this.containsByte(bytes[i - 1])) {
+                i--;
+            }
+            return i;
+        }
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer in = ByteBuffer.wrap(bytes, 0, length);
+        CharBuffer out = CharBuffer.allocate(2);
+        int end = 0;
+        boolean more = true;
+        while (more) {
+            out.clear().limit(1);
+            CoderResult result = decoder.decode(in, out, false);
+            if (out.position() == 0 && result.isOverflow()) {
+                /*
+                 * a supplementary character needs room for both surrogates
+                 */
+                out.limit(2);
+                decoder.decode(in, out, false);
+            }
+            if (out.position() == 0) {
+                /*
+                 * what is left, if anything, is not a whole character yet
+                 */
+                more = false;
+            } else if (this.contains(
+                    Character.codePointAt(out.array(), 0, out.position()))) {
+                end = in.position();
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Reports whether all the separators are ASCII characters, which is what
+     * allows tokenizing encoded bytes instead of decoded text.
+     *
+     * @return true iff there are no non-ASCII separators
+     */
+    public boolean isAscii() {
+        return this.others.length == 0;
+    }
+
+    /**
+     * Reports whether the character of {@code text} at {@code position} is a
+     * separator.
+     *
+     * @param text
+     *            the text
+     * @param position
+     *            index of the character in text
+     * @return true iff the code point at position is a separator
+     * @requires 0 <= position < |text|
+     */
+    public boolean isSeparatorAt(CharSequence text, int position) {
+        char c = text.charAt(position);
+        if (c < ASCII_LIMIT) {
+            return this.ascii[c];
+        }
+        return this.contains(Character.codePointAt(text, position));
+    }
+
+    /**
+     * Returns the end of the run of words characters, or of separators,
+     * starting at {@code position} in {@code text}.
+     *
+     * @param text
+     *            the text
+     * @param position
+     *            index where the run starts
+     * @return index one past the last character of the run
+     * @requires 0 <= position < |text|
+     * @ensures <pre>
+     * text[position, endOfRun) is made only of separators or only of
+     * non-separators, the same as text[position, position + 1), and
+     * endOfRun = |text| or text[endOfRun, endOfRun + 1) is not
+     * </pre>
+     */
+    public int endOfRun(CharSequence text, int position) {
+        boolean sep = this.isSeparatorAt(text, position);
+        int length = text.length();
+        int index = position;
+        while (index < length) {
+            char c = text.charAt(index);
+            if (c < ASCII_LIMIT) {
+                if (this.ascii[c] != sep) {
+                    break;
+                }
+                index++;
+            } else {
+                int cp = Character.codePointAt(text, index);
+                if (this.contains(cp) != sep) {
+                    break;
+                }
+                index += Character.charCount(cp);
+            }
+        }
+        return index;
+    }
+
+}
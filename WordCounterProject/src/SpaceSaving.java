@@ -0,0 +1,196 @@
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Space-Saving heavy hitters tracker: keeps at most {@code capacity} words and
+ * their counts. When a new word arrives and the tracker is full, it takes over
+ * the slot of the word with the smallest count, inheriting that count as its
+ * possible overestimate. Every word whose true count is above
+ * {@code total / capacity} is guaranteed to be tracked.
+ *
+ * @author Nyja Gowda
+ *
+ */
+public final class SpaceSaving {
+
+    /**
+     * Tracked words, as a min-heap on their counts.
+     */
+    private final String[] words;
+
+    /**
+     * Count of each tracked word, by heap position. Never below the true
+     * count.
+     */
+    private final long[] counts;
+
+    /**
+     * Largest overestimate of each count, by heap position.
+     */
+    private final long[] errors;
+
+    /**
+     * Heap position of each tracked word.
+     */
+    private final HashMap<String, Integer> positions;
+
+    /**
+     * Number of tracked words.
+     */
+    private int size;
+
+    /**
+     * Sum of all the counts added.
+     */
+    private long total;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity
+     *            the largest number of words tracked
+     * @requires capacity > 0
+     */
+    public SpaceSaving(int capacity) {
+        assert capacity > 0 : "Violation of: capacity > 0";
+        this.words = new String[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.positions = new HashMap<>(2 * capacity);
+        this.size = 0;
+        this.total = 0;
+    }
+
+    /**
+     * Adds one occurrence of {@code word}.
+     *
+     * @param word
+     *            the word
+     * @requires word!=NULL
+     */
+    public void add(String word) {
+        assert word != null : "Violation of: word is not null";
+        this.total++;
+        Integer position = this.positions.get(word);
+        if (position != null) {
+            this.counts[position]++;
+            this.siftDown(position);
+        } else if (this.size < this.words.length) {
+            int i = this.size;
+            this.size++;
+            this.words[i] = word;
+            this.counts[i] = 1;
+            this.errors[i] = 0;
+            this.positions.put(word, i);
+            this.siftUp(i);
+        } else {
+            //the word with the smallest count gives its slot to the new one
+            this.positions.remove(this.words[0]);
+            this.words[0] = word;
+            this.errors[0] = this.counts[0];
+            this.counts[0]++;
+            this.positions.put(word, 0);
+            this.siftDown(0);
+        }
+    }
+
+    /**
+     * Swaps the entries at heap positions i and j.
+     *
+     * @param i
+     *            first position
+     * @param j
+     *            second position
+     */
+    private void swap(int i, int j) {
+        String w = this.words[i];
+        this.words[i] = this.words[j];
+        this.words[j] = w;
+        long c = this.counts[i];
+        this.counts[i] = this.counts[j];
+        this.counts[j] = c;
+        long e = this.errors[i];
+        this.errors[i] = this.errors[j];
+        this.errors[j] = e;
+        this.positions.put(this.words[i], i);
+        this.positions.put(this.words[j], j);
+    }
+
+    /**
+     * Moves the entry at position i up while its parent has a larger count.
+     *
+     * @param i
+     *            the position
+     */
+    private void siftUp(int i) {
+        int child = i;
+        while (child > 0 && this.counts[(child - 1) / 2] > this.counts[child]) {
+            this.swap(child, (child - 1) / 2);
+            child = (child - 1) / 2;
+        }
+    }
+
+    /**
+     * Moves the entry at position i down while a child has a smaller count.
+     *
+     * @param i
+     *            the position
+     */
+    private void siftDown(int i) {
+        int parent = i;
+        while (2 * parent + 1 < this.size) {
+            int child = 2 * parent + 1;
+            if (child + 1 < this.size
+                    && this.counts[child + 1] < this.counts[child]) {
+                child++;
+            }
+            if (this.counts[child] >= this.counts[parent]) {
+                break;
+            }
+            this.swap(child, parent);
+            parent = child;
+        }
+    }
+
+    /**
+     * Returns the tracked words with the k largest counts, largest first, as
+     * their counts and error bounds in {@code topCounts} and
+     * {@code topErrors}.
+     *
+     * @param k
+     *            the number of words wanted
+     * @param topCounts
+     *            receives the estimated count of each word returned
+     * @param topErrors
+     *            receives the largest overestimate of each count
+     * @return the min(k, number of tracked words) words with the largest
+     *         counts
+     * @requires topCounts and topErrors have room for the words returned
+     */
+    public String[] top(int k, long[] topCounts, long[] topErrors) {
+        Integer[] order = new Integer[this.size];
+        for (int i = 0; i < this.size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order,
+                (a, b) -> Long.compare(this.counts[b], this.counts[a]));
+        int n = Math.min(k, this.size);
+        String[] top = new String[n];
+        for (int i = 0; i < n; i++) {
+            top[i] = this.words[order[i]];
+            topCounts[i] = this.counts[order[i]];
+            topErrors[i] = this.errors[order[i]];
+        }
+        return top;
+    }
+
+    /**
+     * Returns the sum of all the counts added.
+     *
+     * @return the total count
+     */
+    public long total() {
+        return this.total;
+    }
+
+}
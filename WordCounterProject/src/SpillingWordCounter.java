@@ -0,0 +1,674 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Program that counts the words of an input file in bounded memory, however
+ * many distinct words it has. Words are counted in memory until the estimated
+ * size of the counts reaches a budget; the counts are then sorted in
+ * {@code StringLT} order, spilled to a run file on disk and dropped. At the
+ * end, a k-way merge of the runs streams the words, with their counts added
+ * over all the runs, straight into an {@code HtmlReportWriter}. The report is
+ * the same as the one written by {@code WordCounter}: words that
+ * {@code StringLT} finds equal keep their order of first occurrence.
+ *
+ * A run is a sequence of entries, each made of the length of the UTF-8
+ * encoding of a word, the encoding, the count of the word and the position of
+ * its first occurrence in the file, with the numbers written as
+ * variable-length integers.
+ *
+ * @author Nyja Gowda
+ *
+ */
+public final class SpillingWordCounter {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private SpillingWordCounter() {
+    }
+
+    /**
+     * Default memory budget for the counts, in bytes.
+     */
+    public static final long DEFAULT_BUDGET = 64L << 20;
+
+    /**
+     * Estimated memory used by a distinct word besides its characters, in
+     * bytes: the {@code String} and its array, the slots of the tables and the
+     * position of its first occurrence.
+     */
+    private static final int WORD_OVERHEAD = 96;
+
+    /**
+     * Number of characters of the input file read at once.
+     */
+    private static final int READ_SIZE = 1 << 16;
+
+    /**
+     * Largest number of runs merged at once. More runs are first merged into
+     * longer runs, so the number of open files stays bounded.
+     */
+    private static final int MAX_FAN_IN = 64;
+
+    /**
+     * Size of the buffer of each run file, in bytes.
+     */
+    private static final int RUN_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Order of the words in the runs: {@code StringLT}, with words it finds
+     * equal ordered by {@code compareTo}, so that equal words are next to
+     * each other.
+     */
+    private static final Comparator<String> RUN_ORDER =
+            new WordCounter.StringLT()
+                    .thenComparing(Comparator.naturalOrder());
+
+    /**
+     * Receiver of the entries of a merge, in run order, each word once.
+     */
+    private interface EntrySink {
+
+        /**
+         * Receives an entry.
+         *
+         * @param word
+         *            the word
+         * @param count
+         *            the count of the word
+         * @param firstSeen
+         *            position of the first occurrence of the word
+         * @throws IOException
+         *             if the entry cannot be written
+         */
+        void accept(String word, long count, long firstSeen)
+                throws IOException;
+    }
+
+    /**
+     * Writes {@code value} as a variable-length integer: seven bits per byte,
+     * low bits first, with the high bit set on every byte but the last.
+     *
+     * @param out
+     *            the stream
+     * @param value
+     *            the value
+     * @throws IOException
+     *             if the value cannot be written
+     * @requires value >= 0
+     */
+    private static void writeVarLong(DataOutputStream out, long value)
+            throws IOException {
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    /**
+     * Reads a variable-length integer written by {@code writeVarLong}.
+     *
+     * @param in
+     *            the stream
+     * @return the value
+     * @throws IOException
+     *             if the value cannot be read
+     */
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b = in.readUnsignedByte();
+        while ((b & 0x80) != 0) {
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+            b = in.readUnsignedByte();
+        }
+        return value | ((long) b << shift);
+    }
+
+    /**
+     * Writer of a run file.
+     */
+    private static final class RunWriter implements EntrySink {
+
+        /**
+         * Stream of the run file.
+         */
+        private final DataOutputStream out;
+
+        /**
+         * Constructor, creates the run file.
+         *
+         * @param file
+         *            the run file
+         * @throws IOException
+         *             if the file cannot be created
+         */
+        RunWriter(Path file) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(file), RUN_BUFFER_SIZE));
+        }
+
+        @Override
+        public void accept(String word, long count, long firstSeen)
+                throws IOException {
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(this.out, bytes.length);
+            this.out.write(bytes);
+            writeVarLong(this.out, count);
+            writeVarLong(this.out, firstSeen);
+        }
+
+        /**
+         * Closes the run file.
+         *
+         * @throws IOException
+         *             if the file cannot be written
+         */
+        void close() throws IOException {
+            this.out.close();
+        }
+    }
+
+    /**
+     * Reader of a run file, positioned on its current entry.
+     */
+    private static final class RunReader {
+
+        /**
+         * Stream of the run file.
+         */
+        private final DataInputStream in;
+
+        /**
+         * Word of the current entry, null once the run is exhausted.
+         */
+        private String word;
+
+        /**
+         * Count of the current entry.
+         */
+        private long count;
+
+        /**
+         * Position of the first occurrence of the word of the current entry.
+         */
+        private long firstSeen;
+
+        /**
+         * Constructor, opens the run file and reads its first entry.
+         *
+         * @param file
+         *            the run file
+         * @throws IOException
+         *             if the file cannot be read
+         */
+        RunReader(Path file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(
+                    Files.newInputStream(file), RUN_BUFFER_SIZE));
+            this.advance();
+        }
+
+        /**
+         * Reads the next entry, or sets {@code word} to null at the end of
+         * the run.
+         *
+         * @throws IOException
+         *             if the file cannot be read
+         */
+        void advance() throws IOException {
+            int length;
+            try {
+                length = (int) readVarLong(this.in);
+            } catch (EOFException e) {
+                this.word = null;
+                return;
+            }
+            byte[] bytes = new byte[length];
+            this.in.readFully(bytes);
+            this.word = new String(bytes, StandardCharsets.UTF_8);
+            this.count = readVarLong(this.in);
+            this.firstSeen = readVarLong(this.in);
+        }
+
+        /**
+         * Closes the run file.
+         *
+         * @throws IOException
+         *             if the file cannot be read
+         */
+        void close() throws IOException {
+            this.in.close();
+        }
+    }
+
+    /**
+     * Writes the words of a merge to the report. Words that {@code StringLT}
+     * finds equal arrive next to each other; they are held back until the
+     * last of them arrives and then written in order of first occurrence.
+     */
+    private static final class ReportSink implements EntrySink {
+
+        /**
+         * The report.
+         */
+        private final HtmlReportWriter report;
+
+        /**
+         * Comparator of the words.
+         */
+        private final Comparator<String> order = new WordCounter.StringLT();
+
+        /**
+         * Words held back, all equal under {@code StringLT}.
+         */
+        private final List<String> words = new ArrayList<>();
+
+        /**
+         * Counts of the words held back.
+         */
+        private final List<Long> counts = new ArrayList<>();
+
+        /**
+         * Positions of the first occurrences of the words held back.
+         */
+        private final List<Long> firstSeen = new ArrayList<>();
+
+        /**
+         * Constructor.
+         *
+         * @param report
+         *            the report
+         */
+        ReportSink(HtmlReportWriter report) {
+            this.report = report;
+        }
+
+        @Override
+        public void accept(String word, long count, long first)
+                throws IOException {
+            if (!this.words.isEmpty()
+                    && this.order.compare(this.words.get(0), word) != 0) {
+                this.flush();
+            }
+            this.words.add(word);
+            this.counts.add(count);
+            this.firstSeen.add(first);
+        }
+
+        /**
+         * Writes the words held back in order of first occurrence.
+         *
+         * @throws IOException
+         *             if the report cannot be written
+         */
+        void flush() throws IOException {
+            Integer[] byFirstSeen = new Integer[this.words.size()];
+            for (int i = 0; i < byFirstSeen.length; i++) {
+                byFirstSeen[i] = i;
+            }
+            Arrays.sort(byFirstSeen,
+                    Comparator.comparingLong(i -> this.firstSeen.get(i)));
+            for (int i : byFirstSeen) {
+                this.report.writeRow(this.words.get(i), this.counts.get(i));
+            }
+            this.words.clear();
+            this.counts.clear();
+            this.firstSeen.clear();
+        }
+    }
+
+    /**
+     * Words counted in memory since the last spill, with the position of the
+     * first occurrence of each.
+     */
+    private static final class Batch {
+
+        /**
+         * Counts of the words.
+         */
+        private WordCounts counts = new WordCounts();
+
+        /**
+         * Position of the first occurrence of each word, by number.
+         */
+        private long[] firstSeen = new long[1 << 10];
+
+        /**
+         * Estimated memory used by the counts, in bytes.
+         */
+        private long estimatedBytes = 0;
+
+        /**
+         * Counts the word made of the characters {@code [start, end)} of
+         * {@code text}.
+         *
+         * @param text
+         *            the text the word occurs in
+         * @param start
+         *            index of the first character of the word
+         * @param end
+         *            index one past the last character of the word
+         * @param position
+         *            position of the occurrence in the file, in words
+         */
+        void add(CharSequence text, int start, int end, long position) {
+            int n = this.counts.increment(text, start, end);
+            if (this.counts.count(n) == 1) {
+                if (n == this.firstSeen.length) {
+                    this.firstSeen = Arrays.copyOf(this.firstSeen, 2 * n);
+                }
+                this.firstSeen[n] = position;
+                this.estimatedBytes += WORD_OVERHEAD + 2L * (end - start);
+            }
+        }
+
+        /**
+         * Writes the words to a new run file in run order and empties this.
+         *
+         * @param file
+         *            the run file
+         * @throws IOException
+         *             if the file cannot be written
+         */
+        void spill(Path file) throws IOException {
+            int[] numbers = this.counts.sorted(WordOrder.STRING_LT);
+            /*
+             * words StringLT finds equal are next to each other in order of
+             * first occurrence, they still have to be put in run order
+             */
+            Comparator<String> order = new WordCounter.StringLT();
+            int groupStart = 0;
+            for (int i = 1; i <= numbers.length; i++) {
+                if (i == numbers.length
+                        || order.compare(this.counts.word(numbers[groupStart]),
+                                this.counts.word(numbers[i])) != 0) {
+                    for (int j = groupStart + 1; j < i; j++) {
+                        int n = numbers[j];
+                        String word = this.counts.word(n);
+                        int k = j;
+                        while (k > groupStart && this.counts
+                                .word(numbers[k - 1]).compareTo(word) > 0) {
+                            numbers[k] = numbers[k - 1];
+                            k--;
+                        }
+                        numbers[k] = n;
+                    }
+                    groupStart = i;
+                }
+            }
+            RunWriter run = new RunWriter(file);
+            try {
+                for (int n : numbers) {
+                    run.accept(this.counts.word(n), this.counts.count(n),
+                            this.firstSeen[n]);
+                }
+            } finally {
+                run.close();
+            }
+            this.counts = new WordCounts();
+            this.firstSeen = new long[1 << 10];
+            this.estimatedBytes = 0;
+        }
+    }
+
+    /**
+     * Merges {@code runs} and passes every word, once, to {@code sink} in run
+     * order, with its counts added and the earliest of its first occurrences.
+     *
+     * @param runs
+     *            the run files
+     * @param sink
+     *            receiver of the words
+     * @throws IOException
+     *             if a run cannot be read or the sink cannot write
+     */
+    private static void merge(List<Path> runs, EntrySink sink)
+            throws IOException {
+        PriorityQueue<RunReader> heads = new PriorityQueue<>(
+                Math.max(1, runs.size()),
+                (a, b) -> RUN_ORDER.compare(a.word, b.word));
+        List<RunReader> readers = new ArrayList<>();
+        try {
+            for (Path run : runs) {
+                RunReader reader = new RunReader(run);
+                readers.add(reader);
+                if (reader.word != null) {
+                    heads.add(reader);
+                }
+            }
+            while (!heads.isEmpty()) {
+                RunReader reader = heads.poll();
+                String word = reader.word;
+                long count = reader.count;
+                long firstSeen = reader.firstSeen;
+                reader.advance();
+                if (reader.word != null) {
+                    heads.add(reader);
+                }
+                while (!heads.isEmpty() && heads.peek().word.equals(word)) {
+                    reader = heads.poll();
+                    count += reader.count;
+                    firstSeen = Math.min(firstSeen, reader.firstSeen);
+                    reader.advance();
+                    if (reader.word != null) {
+                        heads.add(reader);
+                    }
+                }
+                sink.accept(word, count, firstSeen);
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Spills {@code batch} to a new run file in {@code tempDir}, which is
+     * added to {@code runs} and to {@code created}.
+     *
+     * @param batch
+     *            the batch
+     * @param tempDir
+     *            directory of the run files
+     * @param runs
+     *            the runs to merge
+     * @param created
+     *            every run file created, to delete at the end
+     * @throws IOException
+     *             if the run file cannot be written
+     */
+    private static void spill(Batch batch, Path tempDir, List<Path> runs,
+            List<Path> created) throws IOException {
+        Path run = Files.createTempFile(tempDir, "run", ".wc");
+        created.add(run);
+        batch.spill(run);
+        runs.add(run);
+    }
+
+    /**
+     * Counts every word of {@code inFile} keeping at most about
+     * {@code budget} bytes of counts in memory, and writes the HTML table of
+     * the words and their counts in {@code StringLT} order to {@code outFile}.
+     * Runs are spilled to temporary files in {@code tempDir}, which are all
+     * deleted before returning.
+     *
+     * @param inFile
+     *            the input file which contains text
+     * @param outFile
+     *            the file the HTML table is written to
+     * @param budget
+     *            memory budget of the counts, in bytes
+     * @param tempDir
+     *            directory of the run files
+     * @return the number of runs spilled
+     * @throws IOException
+     *             if a file cannot be read or written
+     * @requires inFile!=NULL and outFile!=NULL and budget>0 and tempDir is an
+     *           existing directory
+     */
+    public static int countToReport(String inFile, String outFile,
+            long budget, Path tempDir) throws IOException {
+        assert inFile != null : "Violation of: inFile is not null";
+        assert outFile != null : "Violation of: outFile is not null";
+        assert budget > 0 : "Violation of: budget > 0";
+        assert tempDir != null : "Violation of: tempDir is not null";
+        List<Path> runs = new ArrayList<>();
+        List<Path> created = new ArrayList<>();
+        int spilled = 0;
+        try {
+            Batch batch = new Batch();
+            SeparatorSet separators = WordCounter.SEPARATOR_SET;
+            long position = 0;
+            /*
+             * the text is read in blocks of characters rather than in lines,
+             * so a file without line separators is not held in memory whole;
+             * line separators are separators, so the words are the same
+             */
+            char[] buffer = new char[READ_SIZE];
+            int filled = 0;
+            try (Reader in = new InputStreamReader(
+                    Files.newInputStream(Paths.get(inFile)),
+                    Charset.defaultCharset())) {
+                boolean atEnd = false;
+                while (!atEnd) {
+                    if (filled == buffer.length) {
+                        /*
+                         * a single word fills the whole buffer
+                         */
+                        buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+                    }
+                    int read = in.read(buffer, filled, buffer.length - filled);
+                    atEnd = read < 0;
+                    if (!atEnd) {
+                        filled += read;
+                    }
+                    CharBuffer text = CharBuffer.wrap(buffer, 0, filled);
+                    int i = 0;
+                    boolean more = i < filled;
+                    while (more) {
+                        int end = separators.endOfRun(text, i);
+                        if (end == filled && !atEnd) {
+                            /*
+                             * the run may go on in the next block
+                             */
+                            more = false;
+                        } else {
+                            if (!separators.isSeparatorAt(text, i)) {
+                                batch.add(text, i, end, position);
+                                position++;
+                                if (batch.estimatedBytes >= budget) {
+                                    spill(batch, tempDir, runs, created);
+                                }
+                            }
+                            i = end;
+                            more = i < filled;
+                        }
+                    }
+                    System.arraycopy(buffer, i, buffer, 0, filled - i);
+                    filled -= i;
+                }
+            }
+            if (batch.counts.size() > 0) {
+                spill(batch, tempDir, runs, created);
+            }
+            spilled = runs.size();
+
+            while (runs.size() > MAX_FAN_IN) {
+                List<Path> first = new ArrayList<>(
+                        runs.subList(0, MAX_FAN_IN));
+                Path merged = Files.createTempFile(tempDir, "run", ".wc");
+                created.add(merged);
+                RunWriter writer = new RunWriter(merged);
+                try {
+                    merge(first, writer);
+                } finally {
+                    writer.close();
+                }
+                for (Path run : first) {
+                    Files.delete(run);
+                }
+                runs.subList(0, MAX_FAN_IN).clear();
+                runs.add(merged);
+            }
+
+            try (HtmlReportWriter report = new HtmlReportWriter(outFile,
+                    inFile)) {
+                ReportSink sink = new ReportSink(report);
+                merge(runs, sink);
+                sink.flush();
+            }
+        } finally {
+            for (Path run : created) {
+                Files.deleteIfExists(run);
+            }
+        }
+        return spilled;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: input file, output file and
+     *            optionally the memory budget in megabytes and the directory
+     *            of the temporary run files
+     */
+    public static void main(String[] args) {
+        SimpleReader in = new SimpleReader1L();
+        SimpleWriter out = new SimpleWriter1L();
+        String inFile;
+        String outFile;
+        if (args.length >= 2) {
+            inFile = args[0];
+            outFile = args[1];
+        } else {
+            out.print("Enter input file name:- ");
+            inFile = in.nextLine();
+            out.print("Enter output file name:- ");
+            outFile = in.nextLine();
+        }
+        long budget = DEFAULT_BUDGET;
+        if (args.length >= 3) {
+            budget = Long.parseLong(args[2]) << 20;
+        }
+        Path tempDir = Paths.get(System.getProperty("java.io.tmpdir"));
+        if (args.length >= 4) {
+            tempDir = Paths.get(args[3]);
+        }
+        try {
+            int runs = countToReport(inFile, outFile, budget, tempDir);
+            out.println("Counted " + inFile + " in " + runs + " runs");
+        } catch (IOException e) {
+            out.println("Cannot count " + inFile + ": " + e.getMessage());
+        }
+        in.close();
+        out.close();
+    }
+
+}
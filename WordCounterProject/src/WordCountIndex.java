@@ -0,0 +1,471 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Persistent index of the word counts of a file that only grows, such as a
+ * log file. The index is kept next to the file, in {@code <file>.wcidx}, and
+ * records the counts of the words up to some byte offset. Updating it only
+ * tokenizes the bytes appended after that offset, so counting a grown file
+ * again costs time proportional to what was appended, not to the whole file.
+ *
+ * The offset always follows a separator character, looked for in the decoded
+ * text when the bytes of a separator can also occur inside another character,
+ * so no word or character is split between two updates; a word still being
+ * written at the end of the file is left for the next update. A CRC of the
+ * first bytes of the file is kept too, and if the file no longer starts with
+ * the same bytes, or is shorter than the offset, it was replaced or truncated
+ * and the index starts again from byte 0.
+ *
+ * @author Nyja Gowda
+ *
+ */
+public final class WordCountIndex {
+
+    /**
+     * Extension added to the name of the file to name its index.
+     */
+    public static final String EXTENSION = ".wcidx";
+
+    /**
+     * First four bytes of an index file, "WCIX".
+     */
+    private static final int MAGIC = 0x57434958;
+
+    /**
+     * Version of the index file format. Version 1 stored the counts as ints,
+     * and up to version 2 the offset could fall inside a character of a
+     * charset such as Shift_JIS; an index of another version is rebuilt.
+     */
+    private static final int VERSION = 3;
+
+    /**
+     * Number of bytes at the start of the file covered by the CRC.
+     */
+    private static final int PREFIX_SIZE = 4096;
+
+    /**
+     * Size of the blocks the appended bytes are read in.
+     */
+    private static final int BLOCK_SIZE = 1 << 24;
+
+    /**
+     * Default time between two updates in follow mode, in milliseconds.
+     */
+    private static final long DEFAULT_INTERVAL = 1000;
+
+    /**
+     * Charset the file is decoded with.
+     */
+    private final Charset charset;
+
+    /**
+     * The file counted.
+     */
+    private final Path file;
+
+    /**
+     * The index file.
+     */
+    private final Path indexFile;
+
+    /**
+     * Counts of the words of the bytes before offset.
+     */
+    private WordCounts counts;
+
+    /**
+     * Number of bytes of the file counted.
+     */
+    private long offset;
+
+    /**
+     * Number of bytes at the start of the file covered by prefixCrc.
+     */
+    private int prefixLength;
+
+    /**
+     * CRC of the first prefixLength bytes of the file when last saved.
+     */
+    private long prefixCrc;
+
+    /**
+     * Whether the stored index could not be used and the counts started again
+     * from byte 0.
+     */
+    private boolean rebuilt;
+
+    /**
+     * Constructor, loads the index of {@code fileName}, decoded with the
+     * default charset, if there is a usable one. Nothing is counted until
+     * {@code update} is called.
+     *
+     * @param fileName
+     *            the file counted
+     * @throws IOException
+     *             if the file cannot be read
+     * @requires fileName!=NULL
+     */
+    public WordCountIndex(String fileName) throws IOException {
+        this(fileName, Charset.defaultCharset());
+    }
+
+    /**
+     * Constructor, loads the index of {@code fileName}, decoded with
+     * {@code charset}, if there is a usable one. Nothing is counted until
+     * {@code update} is called.
+     *
+     * @param fileName
+     *            the file counted
+     * @param charset
+     *            charset the file is decoded with
+     * @throws IOException
+     *             if the file cannot be read
+     * @requires fileName!=NULL and charset!=NULL
+     */
+    public WordCountIndex(String fileName, Charset charset)
+            throws IOException {
+        assert fileName != null : "Violation of: fileName is not null";
+        assert charset != null : "Violation of: charset is not null";
+        this.charset = charset;
+        this.file = Paths.get(fileName);
+        this.indexFile = indexPath(fileName);
+        this.restart();
+        this.rebuilt = false;
+        if (Files.exists(this.indexFile)) {
+            this.rebuilt = !this.load();
+            if (this.rebuilt) {
+                this.restart();
+            }
+        }
+    }
+
+    /**
+     * Drops the counts so that counting starts again from byte 0.
+     */
+    private void restart() {
+        this.counts = new WordCounts();
+        this.offset = 0;
+        this.prefixLength = 0;
+        this.prefixCrc = new CRC32().getValue();
+    }
+
+    /**
+     * Returns the path of the index of {@code fileName}.
+     *
+     * @param fileName
+     *            the file counted
+     * @return the path of its index
+     */
+    public static Path indexPath(String fileName) {
+        return Paths.get(fileName + EXTENSION);
+    }
+
+    /**
+     * Returns the CRC of the first {@code length} bytes of the file.
+     *
+     * @param channel
+     *            channel of the file
+     * @param length
+     *            number of bytes
+     * @return the CRC
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    private static long prefixCrc(FileChannel channel, int length)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        CRC32 crc = new CRC32();
+        crc.update(buffer);
+        return crc.getValue();
+    }
+
+    /**
+     * Loads the stored index into this.
+     *
+     * @return whether the stored index is usable for the file as it is now
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    private boolean load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(this.indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return false;
+            }
+            this.offset = in.readLong();
+            this.prefixLength = in.readInt();
+            this.prefixCrc = in.readLong();
+            int size = in.readInt();
+            for (int n = 0; n < size; n++) {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                this.counts.add(new String(bytes, StandardCharsets.UTF_8),
+                        in.readLong());
+            }
+        } catch (IOException e) {
+            /*
+             * a damaged index is rebuilt rather than reported
+             */
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(this.file,
+                StandardOpenOption.READ)) {
+            return channel.size() >= this.offset && prefixCrc(channel,
+                    this.prefixLength) == this.prefixCrc;
+        }
+    }
+
+    /**
+     * Writes the index to its file, replacing the previous one at once so
+     * that a reader never sees half an index.
+     *
+     * @param channel
+     *            channel of the file counted
+     * @throws IOException
+     *             if the index cannot be written
+     */
+    private void save(FileChannel channel) throws IOException {
+        this.prefixLength = (int) Math.min(PREFIX_SIZE, this.offset);
+        this.prefixCrc = prefixCrc(channel, this.prefixLength);
+        Path temp = Paths.get(this.indexFile + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(this.offset);
+            out.writeInt(this.prefixLength);
+            out.writeLong(this.prefixCrc);
+            out.writeInt(this.counts.size());
+            for (int n = 0; n < this.counts.size(); n++) {
+                byte[] bytes = this.counts.word(n)
+                        .getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                out.writeLong(this.counts.count(n));
+            }
+        }
+        Files.move(temp, this.indexFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Counts the words appended to the file since the last update, up to its
+     * last separator, and saves the index.
+     *
+     * @return the number of bytes counted by this update
+     * @throws IOException
+     *             if the file cannot be read or the index cannot be written
+     */
+    public long update() throws IOException {
+        long before = this.offset;
+        try (FileChannel channel = FileChannel.open(this.file,
+                StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < this.offset || prefixCrc(channel,
+                    this.prefixLength) != this.prefixCrc) {
+                /*
+                 * truncated or replaced since the last update
+                 */
+                this.restart();
+                this.rebuilt = true;
+                before = 0;
+            }
+            byte[] buffer = new byte[(int) Math.min(BLOCK_SIZE,
+                    Math.max(1, size - this.offset))];
+            int filled = 0;
+            long position = this.offset;
+            while (position < size) {
+                int read = channel.read(ByteBuffer.wrap(buffer, filled,
+                        (int) Math.min(buffer.length - filled,
+                                size - position)),
+                        position);
+                if (read < 0) {
+                    break;
+                }
+                position += read;
+                filled += read;
+                if (filled == buffer.length || position == size) {
+                    int end = WordCounter.SEPARATOR_SET
+                            .endOfLastSeparator(buffer, filled, this.charset);
+                    if (end > 0) {
+                        WordCounter.countWords(
+                                new String(buffer, 0, end, this.charset),
+                                this.counts, WordCounter.SEPARATOR_SET);
+                        this.offset += end;
+                        System.arraycopy(buffer, end, buffer, 0,
+                                filled - end);
+                        filled -= end;
+                    } else if (filled == buffer.length) {
+                        /*
+                         * a single word fills the whole buffer
+                         */
+                        buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+                    }
+                }
+            }
+            if (this.offset != before || !Files.exists(this.indexFile)) {
+                this.save(channel);
+            }
+        }
+        return this.offset - before;
+    }
+
+    /**
+     * Returns the counts of the whole file as it is now: the counts of the
+     * index and the word being written at the end of the file, if any, which
+     * is not stored in the index yet.
+     *
+     * @return the counts of the file
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public WordCounts currentCounts() throws IOException {
+        WordCounts current = new WordCounts();
+        current.addAll(this.counts);
+        try (FileChannel channel = FileChannel.open(this.file,
+                StandardOpenOption.READ)) {
+            long length = Math.max(0, channel.size() - this.offset);
+            if (length > 0 && length < Integer.MAX_VALUE) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) length);
+                int read = 0;
+                while (buffer.hasRemaining() && read >= 0) {
+                    read = channel.read(buffer,
+                            this.offset + buffer.position());
+                }
+                buffer.flip();
+                WordCounter.countWords(
+                        this.charset.decode(buffer).toString(), current,
+                        WordCounter.SEPARATOR_SET);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Returns the counts stored in the index.
+     *
+     * @return the counts of the bytes before offset()
+     */
+    public WordCounts counts() {
+        return this.counts;
+    }
+
+    /**
+     * Returns the number of bytes of the file counted in the index.
+     *
+     * @return the offset
+     */
+    public long offset() {
+        return this.offset;
+    }
+
+    /**
+     * Reports whether the stored index could not be used, because the file
+     * was replaced or truncated or the index was damaged, and the counts
+     * started again from byte 0.
+     *
+     * @return whether the index was rebuilt
+     */
+    public boolean rebuilt() {
+        return this.rebuilt;
+    }
+
+    /**
+     * Writes the HTML table of the words of the file as it is now, in the same
+     * layout and order as {@code WordCounter}.
+     *
+     * @param outFile
+     *            the file the HTML table is written to
+     * @throws IOException
+     *             if the file cannot be read or the table cannot be written
+     */
+    public void writeReport(String outFile) throws IOException {
+        WordCounts current = this.currentCounts();
+        WordCounter.createOpen(current, current.sorted(WordOrder.FOLDED_KEY),
+                outFile, this.file.toString());
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments: input file, output file and
+     *            optionally "--follow" and the time between two updates in
+     *            milliseconds, to keep updating the index and the report as
+     *            the input grows until the program is stopped
+     */
+    public static void main(String[] args) {
+        SimpleReader in = new SimpleReader1L();
+        SimpleWriter out = new SimpleWriter1L();
+        String inFile;
+        String outFile;
+        if (args.length >= 2) {
+            inFile = args[0];
+            outFile = args[1];
+        } else {
+            out.print("Enter input file name:- ");
+            inFile = in.nextLine();
+            out.print("Enter output file name:- ");
+            outFile = in.nextLine();
+        }
+        boolean follow = args.length >= 3 && args[2].equals("--follow");
+        long interval = DEFAULT_INTERVAL;
+        if (follow && args.length >= 4) {
+            interval = Long.parseLong(args[3]);
+        }
+        try {
+            WordCountIndex index = new WordCountIndex(inFile);
+            if (index.rebuilt()) {
+                out.println(indexPath(inFile) + " is out of date, rebuilding");
+            }
+            long counted = index.update();
+            index.writeReport(outFile);
+            out.println("Counted " + counted + " new bytes, " + index.offset()
+                    + " in all");
+            long lastSize = Files.size(Paths.get(inFile));
+            while (follow) {
+                Thread.sleep(interval);
+                long size = Files.size(Paths.get(inFile));
+                if (size != lastSize) {
+                    counted = index.update();
+                    index.writeReport(outFile);
+                    out.println("Counted " + counted + " new bytes, "
+                            + index.offset() + " in all");
+                    lastSize = size;
+                }
+            }
+        } catch (IOException e) {
+            out.println("Cannot count " + inFile + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        in.close();
+        out.close();
+    }
+
+}
@@ -1,11 +1,11 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Comparator;
 
 import components.map.Map;
-import components.map.Map1L;
 import components.queue.Queue;
 import components.queue.Queue1L;
 import components.set.Set;
-import components.set.Set1L;
 import components.simplereader.SimpleReader;
 import components.simplereader.SimpleReader1L;
 import components.simplewriter.SimpleWriter;
@@ -33,6 +33,12 @@ public final class WordCounter {
      */
     private static final String SEPARARTORS = " ,-.!?;:\n\t\r/#$&@%{}[]=^|<>+'";
 
+    /**
+     * the separators in SEPARARTORS as a lookup table, built once per run and
+     * shared by every line that is tokenized.
+     */
+    static final SeparatorSet SEPARATOR_SET = new SeparatorSet(SEPARARTORS);
+
     /**
      *
      * String comparator written to sort strings in alphabetical order.
@@ -116,6 +122,36 @@ public final class WordCounter {
 
     }
 
+    /**
+     * Returns an individual word(string) or separator string from a long
+     * string, same as nextWordOrSeparator with a set of characters, but
+     * looking the separators up in a precomputed table instead.
+     *
+     * @param text
+     *            text string from where to get word/separator string
+     * @param position
+     *            position from where to start looking for separator in the text
+     *            string
+     * @param separators
+     *            table of all separators
+     * @return string of either word/separator whichever found first from
+     *         text.substring(position,index)
+     *
+     * @requires position!>text.length() and separators!=NULL
+     * @ensures nextWordOrSeparator is the longest prefix of
+     *          text[position, |text|) made only of separators or only of
+     *          non-separators
+     */
+    public static String nextWordOrSeparator(String text, int position,
+            SeparatorSet separators) {
+        assert text != null : "Violation of: text is not null";
+        assert separators != null : "Violation of: separators is not null";
+        assert 0 <= position : "Violation of: 0 <= position";
+        assert position < text.length() : "Violation of: position < |text|";
+
+        return text.substring(position, separators.endOfRun(text, position));
+    }
+
     /**
      * Writes to the given outFile the HTML script for all the words extracted
      * from the text paragraph and their count as calculated and stored in the
@@ -143,54 +179,104 @@ public final class WordCounter {
          * removing words from queue later so having a temporary queue and
          * adding back strings to original queue will restore words.
          */
-        SimpleWriter out = new SimpleWriter1L(outFile);
-        out.println();
-        out.println("<html>");
-        out.println("<head>");
-        out.println("<title>Words Counted in " + inFile + "</title>");
-        out.println("</head>");
-        out.println("<body>");
-        out.println("<h2>Words Counted in " + inFile + "</h2>");
-        out.println("<hr>");
-        //table
-        out.println("<table border=\"1\">");
-        out.println("<tr>");
-        out.println("<th>Words</th>");
-        out.println("<th>Counts</th>");
-        out.println("</tr>");
-
         Map<String, Integer> mapTemp = map.newInstance();
         mapTemp.transferFrom(map);
 
-        while (temp.length() > 0) {
-
-            String s = temp.dequeue();
-            words.enqueue(s);
-            if (mapTemp.hasKey(s)) {
-                out.println("<tr>");
-                Map.Pair<String, Integer> p = mapTemp.remove(s);
-                out.println("<td>" + p.key() + "</td>");
-                out.println("<td>" + p.value() + "</td>");
-                out.println("</tr>");
-                map.add(p.key(), p.value());
+        try (HtmlReportWriter out = new HtmlReportWriter(outFile, inFile)) {
+            while (temp.length() > 0) {
+
+                String s = temp.dequeue();
+                words.enqueue(s);
+                if (mapTemp.hasKey(s)) {
+                    Map.Pair<String, Integer> p = mapTemp.remove(s);
+                    out.writeRow(p.key(), p.value());
+                    map.add(p.key(), p.value());
+                }
+                /*
+                 * To restore map, using mapTemp so that I can check if the word
+                 * from mapTemp is present in queue temp, if it is then we add
+                 * it to map and write it to outFile.
+                 */
             }
-            /*
-             * To restore map, using mapTemp so that I can check if the word
-             * from mapTemp is present in queue temp, if it is then we add it to
-             * map and write it to outFile.
-             */
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + outFile, e);
+        }
+    }
+
+    /**
+     * Writes to the given outFile the same HTML table as createOpen, taking
+     * the counts from a WordCounts instead of a map.
+     *
+     * @param counts
+     *            the words and the count of the number of times they appear in
+     *            the document.
+     * @param words
+     *            queue of the distinct words to write, in the order of the
+     *            table rows.
+     * @param outFile
+     *            the name of the file to which the HTML script is being written
+     * @param inFile
+     *            the name of the file that contains the text and is mentioned
+     *            in the heading and title.
+     *
+     * @requires counts!=NULL and words!=NULL and words has no duplicates
+     * @ensures HTML script for a table of words is written to outFile
+     */
+    public static void createOpen(WordCounts counts, Queue<String> words,
+            String outFile, String inFile) {
+        assert counts != null : "Violation of: counts is not null";
+        assert words != null : "Violation of: words is not null";
+        try (HtmlReportWriter out = new HtmlReportWriter(outFile, inFile)) {
+            for (String s : words) {
+                int n = counts.indexOf(s);
+                if (n >= 0) {
+                    out.writeRow(s, counts.count(n));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + outFile, e);
+        }
+    }
+
+    /**
+     * Writes to the given outFile the same HTML table as createOpen, with the
+     * rows in the order given by the word numbers in order. Together with
+     * WordCounts.sorted this only sorts the distinct words instead of every
+     * word of the text.
+     *
+     * @param counts
+     *            the words and the count of the number of times they appear in
+     *            the document.
+     * @param order
+     *            numbers of the words to write, in the order of the table rows.
+     * @param outFile
+     *            the name of the file to which the HTML script is being written
+     * @param inFile
+     *            the name of the file that contains the text and is mentioned
+     *            in the heading and title.
+     *
+     * @requires counts!=NULL and order!=NULL and every entry of order is the
+     *           number of a word of counts
+     * @ensures HTML script for a table of words is written to outFile
+     */
+    public static void createOpen(WordCounts counts, int[] order,
+            String outFile, String inFile) {
+        assert counts != null : "Violation of: counts is not null";
+        assert order != null : "Violation of: order is not null";
+        try (HtmlReportWriter out = new HtmlReportWriter(outFile, inFile)) {
+            for (int n : order) {
+                out.writeRow(counts.word(n), counts.count(n));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + outFile, e);
         }
-        out.println("</table>");
-        out.println("</body>");
-        out.println("</html>");
-        out.close();
     }
 
     /**
      * Receives a line of text(testStr) from getWords, which the method extracts
      * individual words/separator string from using nextWordOrseparator and adds
-     * only the words to a queue wordList. It also makes a character set from
-     * the string SEPARATORS.
+     * only the words to a queue wordList. The separators are the ones in the
+     * string SEPARATORS.
      *
      * @param testStr
      *            a line of text from the input file paragraph.
@@ -200,23 +286,32 @@ public final class WordCounter {
      *
      */
     public static void wordSeparator(String testStr, Queue<String> wordList) {
-        Set<Character> sep = new Set1L<>();
+        wordSeparator(testStr, wordList, SEPARATOR_SET);
+    }
 
-        for (int i = 0; i < SEPARARTORS.length(); i++) {
-            sep.add(SEPARARTORS.charAt(i));
-            //converting SEPARATORS into a character set for ease in checking elements
-        }
+    /**
+     * Same as wordSeparator, with the separators given by the caller.
+     *
+     * @param testStr
+     *            a line of text from the input file paragraph.
+     * @param wordList
+     *            queue the words are added to.
+     * @param separators
+     *            table of all separators
+     * @ensures wordList.enqueue(all the words in fileName devoid of separators)
+     */
+    public static void wordSeparator(String testStr, Queue<String> wordList,
+            SeparatorSet separators) {
         int position = 0;
         while (position < testStr.length()) {
-            String token = nextWordOrSeparator(testStr, position, sep);
-            if (!sep.contains(token.charAt(0))) {
-                wordList.enqueue(token);
+            int end = separators.endOfRun(testStr, position);
+            if (!separators.isSeparatorAt(testStr, position)) {
+                wordList.enqueue(testStr.substring(position, end));
                 /*
-                 * if the first index of token does not have a separator then it
-                 * is added to queue
+                 * only words become strings, runs of separators are skipped
                  */
             }
-            position += token.length();
+            position = end;
             //position updated to move on to next word in the string
         }
 
@@ -250,6 +345,348 @@ public final class WordCounter {
         }
     }
 
+    /**
+     * Counts how many times each word occurs in a queue into counts, with a
+     * single table lookup and no allocation per word.
+     *
+     * @param counts
+     *            the words and the count of the number of times they appear in
+     *            the document.
+     * @param wordList
+     *            queue of words extracted from the text paragraph.
+     * @updates counts
+     * @ensures the count of every word in wordList is added to counts
+     */
+    public static void wordCount(WordCounts counts, Queue<String> wordList) {
+        for (String s : wordList) {
+            counts.increment(s);
+        }
+    }
+
+    /**
+     * Extracts the words from a line of text(testStr) using nextWordOrSeparator
+     * and counts them straight into map, without holding on to the individual
+     * occurrences. A word is added to distinctWords only the first time it is
+     * seen, so distinctWords ends up holding every distinct word exactly once
+     * in order of first occurrence.
+     *
+     * @param testStr
+     *            a line of text from the input file paragraph.
+     * @param map
+     *            map that contains all the words seen so far and the count of
+     *            the number of times they appear.
+     * @param distinctWords
+     *            queue of the distinct words seen so far, in order of first
+     *            occurrence.
+     * @updates map, distinctWords
+     * @requires testStr!=NULL and map!=NULL and distinctWords!=NULL
+     * @ensures map = #map with the count of every word in testStr added and
+     *          distinctWords = #distinctWords * <words of testStr not in #map,
+     *          in order of first occurrence>
+     */
+    public static void countWords(String testStr, Map<String, Integer> map,
+            Queue<String> distinctWords) {
+        countWords(testStr, map, distinctWords, SEPARATOR_SET);
+    }
+
+    /**
+     * Same as countWords, with the separators given by the caller.
+     *
+     * @param testStr
+     *            a line of text from the input file paragraph.
+     * @param map
+     *            map that contains all the words seen so far and the count of
+     *            the number of times they appear.
+     * @param distinctWords
+     *            queue of the distinct words seen so far, in order of first
+     *            occurrence.
+     * @param separators
+     *            table of all separators
+     * @updates map, distinctWords
+     * @requires testStr!=NULL and map!=NULL and distinctWords!=NULL and
+     *           separators!=NULL
+     * @ensures map = #map with the count of every word in testStr added and
+     *          distinctWords = #distinctWords * <words of testStr not in #map,
+     *          in order of first occurrence>
+     */
+    public static void countWords(String testStr, Map<String, Integer> map,
+            Queue<String> distinctWords, SeparatorSet separators) {
+        assert testStr != null : "Violation of: testStr is not null";
+        assert map != null : "Violation of: map is not null";
+        assert distinctWords != null : ""
+                + "Violation of: distinctWords is not null";
+        assert separators != null : "Violation of: separators is not null";
+        int position = 0;
+        while (position < testStr.length()) {
+            int end = separators.endOfRun(testStr, position);
+            if (!separators.isSeparatorAt(testStr, position)) {
+                String token = testStr.substring(position, end);
+                if (map.hasKey(token)) {
+                    map.replaceValue(token, map.value(token) + 1);
+                } else {
+                    map.add(token, 1);
+                    distinctWords.enqueue(token);
+                    //only the first occurrence of a word is kept
+                }
+            }
+            position = end;
+        }
+    }
+
+    /**
+     * Returns the numbers of the k words of counts with the highest counts,
+     * highest count first. Only a min-heap of k word numbers is kept while
+     * going through counts, so the extra memory and the size of the result
+     * depend on k and not on the number of distinct words. Words with the same
+     * count are ranked by order of first occurrence.
+     *
+     * @param counts
+     *            the words and the count of the number of times they appear in
+     *            the document.
+     * @param k
+     *            the number of words wanted
+     * @return numbers of the min(k, counts.size()) most frequent words
+     * @requires counts!=NULL and k>=0
+     */
+    public static int[] topWords(WordCounts counts, int k) {
+        assert counts != null : "Violation of: counts is not null";
+        assert k >= 0 : "Violation of: k >= 0";
+        int[] heap = new int[Math.min(k, counts.size())];
+        int heapSize = 0;
+        for (int n = 0; n < counts.size(); n++) {
+            if (heapSize < heap.length) {
+                heap[heapSize] = n;
+                heapSize++;
+                siftUp(heap, heapSize - 1, counts);
+            } else if (heapSize > 0 && ranksBelow(heap[0], n, counts)) {
+                heap[0] = n;
+                siftDown(heap, heapSize, counts);
+            }
+        }
+        /*
+         * removing the lowest ranked word each time and putting it at the end
+         * leaves the heap sorted highest ranked first
+         */
+        while (heapSize > 1) {
+            heapSize--;
+            int lowest = heap[0];
+            heap[0] = heap[heapSize];
+            heap[heapSize] = lowest;
+            siftDown(heap, heapSize, counts);
+        }
+        return heap;
+    }
+
+    /**
+     * Reports whether word number a ranks below word number b, that is it has
+     * a lower count or the same count and a later first occurrence.
+     *
+     * @param a
+     *            number of the first word
+     * @param b
+     *            number of the second word
+     * @param counts
+     *            the words and their counts
+     * @return true iff a ranks below b
+     */
+    private static boolean ranksBelow(int a, int b, WordCounts counts) {
+        long ca = counts.count(a);
+        long cb = counts.count(b);
+        return ca < cb || (ca == cb && a > b);
+    }
+
+    /**
+     * Moves heap[i] up the min-heap until its parent does not rank above it.
+     *
+     * @param heap
+     *            the heap of word numbers, lowest ranked at the root
+     * @param i
+     *            index of the entry to move
+     * @param counts
+     *            the words and their counts
+     */
+    private static void siftUp(int[] heap, int i, WordCounts counts) {
+        int child = i;
+        while (child > 0) {
+            int parent = (child - 1) / 2;
+            if (!ranksBelow(heap[child], heap[parent], counts)) {
+                break;
+            }
+            int temp = heap[child];
+            heap[child] = heap[parent];
+            heap[parent] = temp;
+            child = parent;
+        }
+    }
+
+    /**
+     * Moves the root of the min-heap down until no child ranks below it.
+     *
+     * @param heap
+     *            the heap of word numbers, lowest ranked at the root
+     * @param size
+     *            number of entries of the heap
+     * @param counts
+     *            the words and their counts
+     */
+    private static void siftDown(int[] heap, int size, WordCounts counts) {
+        int parent = 0;
+        while (2 * parent + 1 < size) {
+            int child = 2 * parent + 1;
+            if (child + 1 < size
+                    && ranksBelow(heap[child + 1], heap[child], counts)) {
+                child++;
+            }
+            if (!ranksBelow(heap[child], heap[parent], counts)) {
+                break;
+            }
+            int temp = heap[child];
+            heap[child] = heap[parent];
+            heap[parent] = temp;
+            parent = child;
+        }
+    }
+
+    /**
+     * Returns the numbers of the words of counts that appear at least minCount
+     * times, in order of first occurrence.
+     *
+     * @param counts
+     *            the words and the count of the number of times they appear in
+     *            the document.
+     * @param minCount
+     *            the smallest count of the words wanted
+     * @return numbers of the words with a count of at least minCount
+     * @requires counts!=NULL
+     */
+    public static int[] frequentWords(WordCounts counts, int minCount) {
+        assert counts != null : "Violation of: counts is not null";
+        int found = 0;
+        for (int n = 0; n < counts.size(); n++) {
+            if (counts.count(n) >= minCount) {
+                found++;
+            }
+        }
+        int[] numbers = new int[found];
+        int i = 0;
+        for (int n = 0; n < counts.size(); n++) {
+            if (counts.count(n) >= minCount) {
+                numbers[i] = n;
+                i++;
+            }
+        }
+        return numbers;
+    }
+
+    /**
+     * Extracts the words from a line of text(testStr) and counts them straight
+     * into counts.
+     *
+     * @param testStr
+     *            a line of text from the input file paragraph.
+     * @param counts
+     *            the words seen so far and the count of the number of times
+     *            they appear.
+     * @param separators
+     *            table of all separators
+     * @updates counts
+     * @requires testStr!=NULL and counts!=NULL and separators!=NULL
+     * @ensures the count of every word in testStr is added to counts
+     */
+    public static void countWords(String testStr, WordCounts counts,
+            SeparatorSet separators) {
+        assert testStr != null : "Violation of: testStr is not null";
+        assert counts != null : "Violation of: counts is not null";
+        assert separators != null : "Violation of: separators is not null";
+        int position = 0;
+        while (position < testStr.length()) {
+            int end = separators.endOfRun(testStr, position);
+            if (!separators.isSeparatorAt(testStr, position)) {
+                counts.increment(testStr, position, end);
+            }
+            position = end;
+        }
+    }
+
+    /**
+     * Reads from input file line by line and counts the words of each line as
+     * it goes, keeping only the distinct words and their counts.
+     *
+     * @param fileName
+     *            the input file which contains text
+     * @param separators
+     *            table of all separators
+     * @return the words in the file and the count of the number of times they
+     *         appear in the file, numbered in order of first occurrence.
+     *
+     * @requires fileName!=NULL and separators!=NULL
+     * @ensures inFile read till last line
+     */
+    public static WordCounts getWordCounts(String fileName,
+            SeparatorSet separators) {
+        assert fileName != null : "Violation of: fileName is not null";
+        assert separators != null : "Violation of: separators is not null";
+        WordCounts counts = new WordCounts();
+        SimpleReader inFile = new SimpleReader1L(fileName);
+        while (!inFile.atEOS()) {
+            countWords(inFile.nextLine(), counts, separators);
+        }
+        inFile.close();
+        return counts;
+    }
+
+    /**
+     * Reads from input file line by line and counts the words of each line as
+     * it goes using countWords. Unlike getWords the individual occurrences are
+     * never stored, so the memory used depends only on the number of distinct
+     * words in the file and not on its total number of words.
+     *
+     * @param fileName
+     *            the input file which contains text
+     * @param map
+     *            map that receives all the words in the file and the count of
+     *            the number of times they appear in the file.
+     * @return queue of all the distinct words in the file, in order of first
+     *         occurrence.
+     *
+     * @replaces map
+     * @requires fileName!=NULL and map!=NULL
+     * @ensures inFile read till last line and map holds the count of every
+     *          word in inFile
+     */
+    public static Queue<String> getWordCounts(String fileName,
+            Map<String, Integer> map) {
+        return getWordCounts(fileName, map, SEPARATOR_SET);
+    }
+
+    /**
+     * Same as getWordCounts, with the separators given by the caller.
+     *
+     * @param fileName
+     *            the input file which contains text
+     * @param map
+     *            map that receives all the words in the file and the count of
+     *            the number of times they appear in the file.
+     * @param separators
+     *            table of all separators
+     * @return queue of all the distinct words in the file, in order of first
+     *         occurrence.
+     *
+     * @replaces map
+     * @requires fileName!=NULL and map!=NULL and separators!=NULL
+     * @ensures inFile read till last line and map holds the count of every
+     *          word in inFile
+     */
+    public static Queue<String> getWordCounts(String fileName,
+            Map<String, Integer> map, SeparatorSet separators) {
+        assert fileName != null : "Violation of: fileName is not null";
+        assert map != null : "Violation of: map is not null";
+        assert separators != null : "Violation of: separators is not null";
+        WordCounts counts = getWordCounts(fileName, separators);
+        counts.toMap(map);
+        return counts.words();
+    }
+
     /**
      * Reads from input file line by line and sends each line to wordSeparator
      * to generate and return a queue of words from input file.
@@ -278,26 +715,78 @@ public final class WordCounter {
 
     }
 
+    /**
+     * Reports whether {@code text} is a count that fits an int: only digits,
+     * and not too many of them.
+     *
+     * @param text
+     *            the text to check
+     * @return true iff text is a non-negative int
+     */
+    private static boolean isCount(String text) {
+        final int maxDigits = 9;
+        if (text.isEmpty() || text.length() > maxDigits) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Main method.
      *
      * @param args
-     *            the command line arguments
+     *            the command line arguments: optionally the input file, the
+     *            output file, and then either "--top k" to write only the k
+     *            most frequent words or "--min n" to write only the words that
+     *            appear at least n times
      */
     public static void main(String[] args) {
         SimpleReader in = new SimpleReader1L();
         SimpleWriter out = new SimpleWriter1L();
-        out.print("Enter input file name:- ");
-        String inFile = in.nextLine();
-        out.print("Enter output file name:- ");
-        String outFile = in.nextLine();
-        Queue<String> q = getWords(inFile);
-        //q now contains all the word in the text present in input file
-        Comparator<String> ci = new StringLT();
-        q.sort(ci); //sorting alphabetically
-        Map<String, Integer> mapWord = new Map1L<>();
-        wordCount(mapWord, q);
-        createOpen(mapWord, q, outFile, inFile);//calling method to write to output file
+        boolean usable = args.length == 0 || args.length == 2
+                || (args.length == 4
+                        && (args[2].equals("--top") || args[2].equals("--min"))
+                        && isCount(args[3]));
+        if (!usable) {
+            out.println("Usage: WordCounter [<input file> <output file>"
+                    + " [--top <k> | --min <n>]]");
+            out.println("Without arguments the file names are asked for.");
+        } else {
+            String inFile;
+            String outFile;
+            if (args.length >= 2) {
+                inFile = args[0];
+                outFile = args[1];
+            } else {
+                out.print("Enter input file name:- ");
+                inFile = in.nextLine();
+                out.print("Enter output file name:- ");
+                outFile = in.nextLine();
+            }
+            WordCounts counts = getWordCounts(inFile, SEPARATOR_SET);
+            int[] order;
+            if (args.length == 4 && args[2].equals("--top")) {
+                //only the k most frequent words, most frequent first
+                order = topWords(counts, Integer.parseInt(args[3]));
+            } else {
+                if (args.length == 4 && args[2].equals("--min")) {
+                    order = frequentWords(counts, Integer.parseInt(args[3]));
+                } else {
+                    order = frequentWords(counts, 1);
+                }
+                /*
+                 * words are counted as they are read, so only the distinct
+                 * words need to be sorted to order the table
+                 */
+                counts.sort(order, WordOrder.FOLDED_KEY);
+            }
+            createOpen(counts, order, outFile, inFile);
+        }
         in.close();
         out.close();
     }
@@ -0,0 +1,332 @@
+import java.util.Arrays;
+import java.util.Comparator;
+
+import components.map.Map;
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * Counts of words: a {@code WordDictionary} numbering the distinct words
+ * {@code 0, 1, ...} in order of first occurrence, and a {@code long[]} of
+ * counts indexed by those numbers. Adding an occurrence of a word costs a
+ * single probe sequence and no allocation once the word has been seen, and
+ * occurrences can be added by their range of characters in a line, so no
+ * substring is made per occurrence. The numbers are the iteration API:
+ * {@code word(i)} and {@code count(i)} for {@code 0 <= i < size()}.
+ *
+ * @author Nyja Gowda
+ *
+ */
+public final class WordCounts {
+
+    /**
+     * Initial room for counts.
+     */
+    private static final int INITIAL_CAPACITY = 1 << 9;
+
+    /**
+     * The distinct words, numbered by their ids.
+     */
+    private final WordDictionary dictionary;
+
+    /**
+     * Count of each word, by number.
+     */
+    private long[] counts;
+
+    /**
+     * No-argument constructor.
+     */
+    public WordCounts() {
+        this.dictionary = new WordDictionary();
+        this.counts = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Adds {@code count} to the count of the word numbered {@code n}, which
+     * may have just been added to the dictionary.
+     *
+     * @param n
+     *            the number of the word
+     * @param count
+     *            number of occurrences to add
+     * @return n
+     */
+    private int addToCount(int n, long count) {
+        if (n >= this.counts.length) {
+            this.counts = Arrays.copyOf(this.counts,
+                    Math.max(2 * this.counts.length, this.size()));
+        }
+        this.counts[n] = Math.addExact(this.counts[n], count);
+        return n;
+    }
+
+    /**
+     * Adds {@code count} to the count of {@code word}, adding the word with a
+     * count of {@code count} if it has not been seen yet.
+     *
+     * @param word
+     *            the word
+     * @param count
+     *            number of occurrences to add
+     * @return the number of word
+     * @requires word!=NULL and count>0
+     * @ensures count(word) = #count(word) + count
+     */
+    public int add(String word, long count) {
+        assert word != null : "Violation of: word is not null";
+        assert count > 0 : "Violation of: count > 0";
+        return this.addToCount(this.dictionary.id(word), count);
+    }
+
+    /**
+     * Adds one to the count of {@code word}, adding the word with a count of 1
+     * if it has not been seen yet.
+     *
+     * @param word
+     *            the word
+     * @return the number of word
+     * @requires word!=NULL
+     * @ensures count(word) = #count(word) + 1
+     */
+    public int increment(String word) {
+        return this.add(word, 1);
+    }
+
+    /**
+     * Adds one to the count of the word made of the characters
+     * {@code [start, end)} of {@code text}, adding the word with a count of 1
+     * if it has not been seen yet. No {@code String} is made unless the word
+     * is new.
+     *
+     * @param text
+     *            the text the word occurs in
+     * @param start
+     *            index of the first character of the word
+     * @param end
+     *            index one past the last character of the word
+     * @return the number of the word
+     * @requires text!=NULL and 0 <= start <= end <= |text|
+     * @ensures count(text[start, end)) = #count(text[start, end)) + 1
+     */
+    public int increment(CharSequence text, int start, int end) {
+        return this.addToCount(this.dictionary.id(text, start, end), 1);
+    }
+
+    /**
+     * Adds all the counts of {@code other} to this. Words new to this are
+     * numbered after the existing ones, in their order in other.
+     *
+     * @param other
+     *            the counts to add
+     * @requires other!=NULL and other!=this
+     */
+    public void addAll(WordCounts other) {
+        assert other != null : "Violation of: other is not null";
+        assert other != this : "Violation of: other is not this";
+        for (int n = 0; n < other.size(); n++) {
+            this.add(other.dictionary.word(n), other.counts[n]);
+        }
+    }
+
+    /**
+     * Returns the number of {@code word}, or -1 if it has not been seen.
+     *
+     * @param word
+     *            the word
+     * @return the number of word or -1
+     */
+    public int indexOf(String word) {
+        assert word != null : "Violation of: word is not null";
+        return this.dictionary.indexOf(word);
+    }
+
+    /**
+     * Returns the count of {@code word}, 0 if it has not been seen.
+     *
+     * @param word
+     *            the word
+     * @return the count of word
+     */
+    public long count(String word) {
+        int n = this.indexOf(word);
+        if (n < 0) {
+            return 0;
+        }
+        return this.counts[n];
+    }
+
+    /**
+     * Returns the number of distinct words.
+     *
+     * @return the number of distinct words
+     */
+    public int size() {
+        return this.dictionary.size();
+    }
+
+    /**
+     * Returns the word numbered {@code n}.
+     *
+     * @param n
+     *            the number of the word
+     * @return the word
+     * @requires 0 <= n < size()
+     */
+    public String word(int n) {
+        return this.dictionary.word(n);
+    }
+
+    /**
+     * Returns the count of the word numbered {@code n}.
+     *
+     * @param n
+     *            the number of the word
+     * @return the count
+     * @requires 0 <= n < size()
+     */
+    public long count(int n) {
+        assert 0 <= n && n < this.size() : "Violation of: 0 <= n < size()";
+        return this.counts[n];
+    }
+
+    /**
+     * Returns the numbers of all the distinct words sorted in the given order.
+     * Only the distinct words are sorted, and words that compare as equal stay
+     * in order of first occurrence.
+     *
+     * @param order
+     *            the order to sort the words in
+     * @return the numbers {@code 0 .. size() - 1} sorted by their words
+     * @requires order!=NULL
+     */
+    public int[] sorted(WordOrder order) {
+        assert order != null : "Violation of: order is not null";
+        int[] numbers = new int[this.size()];
+        for (int n = 0; n < numbers.length; n++) {
+            numbers[n] = n;
+        }
+        this.sort(numbers, order);
+        return numbers;
+    }
+
+    /**
+     * Sorts some of the word numbers by their words in the given order. Words
+     * that compare as equal keep their relative order in numbers.
+     *
+     * @param numbers
+     *            numbers of words, without duplicates
+     * @param order
+     *            the order to sort the words in
+     * @updates numbers
+     * @requires order!=NULL and every entry of numbers is in [0, size())
+     */
+    public void sort(int[] numbers, WordOrder order) {
+        assert numbers != null : "Violation of: numbers is not null";
+        assert order != null : "Violation of: order is not null";
+        /*
+         * the keys are indexed by position in numbers, not by word number, so
+         * sorting a few words costs nothing in the number of distinct words
+         */
+        String[] keys = new String[numbers.length];
+        int[] positions = new int[numbers.length];
+        for (int i = 0; i < numbers.length; i++) {
+            positions[i] = i;
+        }
+        switch (order) {
+            case STRING_LT:
+                for (int i = 0; i < numbers.length; i++) {
+                    keys[i] = this.dictionary.word(numbers[i]);
+                }
+                sort(positions, keys, new WordCounter.StringLT());
+                break;
+            case FOLDED_KEY:
+                for (int i = 0; i < numbers.length; i++) {
+                    keys[i] = WordOrder
+                            .foldedKey(this.dictionary.word(numbers[i]));
+                }
+                sort(positions, keys, Comparator.naturalOrder());
+                break;
+            default:
+                break;
+        }
+        int[] unsorted = numbers.clone();
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = unsorted[positions[i]];
+        }
+    }
+
+    /**
+     * Sorts {@code numbers} by the keys they index, with a stable merge sort.
+     *
+     * @param numbers
+     *            the indexes of keys to sort
+     * @param keys
+     *            the key of each number
+     * @param order
+     *            the order of the keys
+     * @updates numbers
+     */
+    private static void sort(int[] numbers, String[] keys,
+            Comparator<String> order) {
+        int[] from = numbers;
+        int[] to = new int[numbers.length];
+        for (int width = 1; width < numbers.length; width *= 2) {
+            for (int lo = 0; lo < numbers.length; lo += 2 * width) {
+                int mid = Math.min(lo + width, numbers.length);
+                int hi = Math.min(lo + 2 * width, numbers.length);
+                int i = lo;
+                int j = mid;
+                for (int k = lo; k < hi; k++) {
+                    boolean takeLeft = j >= hi || (i < mid && order
+                            .compare(keys[from[i]], keys[from[j]]) <= 0);
+                    if (takeLeft) {
+                        to[k] = from[i];
+                        i++;
+                    } else {
+                        to[k] = from[j];
+                        j++;
+                    }
+                }
+            }
+            int[] temp = from;
+            from = to;
+            to = temp;
+        }
+        if (from != numbers) {
+            System.arraycopy(from, 0, numbers, 0, numbers.length);
+        }
+    }
+
+    /**
+     * Returns a queue of all the distinct words in order of first occurrence.
+     *
+     * @return the distinct words
+     */
+    public Queue<String> words() {
+        Queue<String> q = new Queue1L<>();
+        for (int n = 0; n < this.size(); n++) {
+            q.enqueue(this.dictionary.word(n));
+        }
+        return q;
+    }
+
+    /**
+     * Copies the counts into {@code map}, for callers that work with a
+     * {@code Map}.
+     *
+     * @param map
+     *            the map that receives the words and their counts
+     * @replaces map
+     * @requires every count is at most Integer.MAX_VALUE
+     */
+    public void toMap(Map<String, Integer> map) {
+        assert map != null : "Violation of: map is not null";
+        map.clear();
+        for (int n = 0; n < this.size(); n++) {
+            map.add(this.dictionary.word(n),
+                    Math.toIntExact(this.counts[n]));
+        }
+    }
+
+}
@@ -0,0 +1,256 @@
+import java.util.Arrays;
+
+/**
+ * Dictionary of words, numbering each distinct word with a dense {@code int}
+ * id {@code 0, 1, ...} the first time it is seen. Words are looked up by a
+ * range of characters of the text they occur in, so an occurrence of a word
+ * that is already in the dictionary costs one probe sequence and no
+ * allocation; the {@code String} of a word is only made once, when it is
+ * added. Everything else that is kept per word, counts among them, can then
+ * be kept in arrays indexed by id.
+ *
+ * @author Nyja Gowda
+ *
+ */
+public final class WordDictionary {
+
+    /**
+     * Initial number of slots, a power of two.
+     */
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    /**
+     * Slots of the table, each holding 1 + the id of a word, or 0 when empty.
+     * Kept at most half full.
+     */
+    private int[] slots;
+
+    /**
+     * Hash of each word, by id.
+     */
+    private int[] hashes;
+
+    /**
+     * Each word, by id.
+     */
+    private String[] words;
+
+    /**
+     * Number of distinct words.
+     */
+    private int size;
+
+    /**
+     * No-argument constructor.
+     */
+    public WordDictionary() {
+        this.slots = new int[INITIAL_CAPACITY];
+        this.hashes = new int[INITIAL_CAPACITY / 2];
+        this.words = new String[INITIAL_CAPACITY / 2];
+        this.size = 0;
+    }
+
+    /**
+     * Returns the hash of the characters {@code [start, end)} of {@code text}
+     * used by the table. It is the {@code String.hashCode} of the word, spread
+     * so that its high bits reach the slot index.
+     *
+     * @param text
+     *            the text
+     * @param start
+     *            index of the first character of the word
+     * @param end
+     *            index one past the last character of the word
+     * @return the hash of the word
+     */
+    private static int hash(CharSequence text, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + text.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Reports whether the characters {@code [start, end)} of {@code text} are
+     * the characters of {@code word}.
+     *
+     * @param word
+     *            a word of the dictionary
+     * @param text
+     *            the text
+     * @param start
+     *            index of the first character of the range
+     * @param end
+     *            index one past the last character of the range
+     * @return true iff the characters are equal
+     */
+    private static boolean matches(String word, CharSequence text, int start,
+            int end) {
+        int length = end - start;
+        if (word.length() != length) {
+            return false;
+        }
+        if (text instanceof String) {
+            return ((String) text).regionMatches(start, word, 0, length);
+        }
+        for (int i = 0; i < length; i++) {
+            if (word.charAt(i) != text.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the slot holding the word made of the characters
+     * {@code [start, end)} of {@code text}, or the empty slot where it would
+     * go.
+     *
+     * @param text
+     *            the text
+     * @param start
+     *            index of the first character of the word
+     * @param end
+     *            index one past the last character of the word
+     * @param hash
+     *            hash of the word
+     * @return index of the slot
+     */
+    private int slotOf(CharSequence text, int start, int end, int hash) {
+        int mask = this.slots.length - 1;
+        int slot = hash & mask;
+        while (this.slots[slot] != 0) {
+            int id = this.slots[slot] - 1;
+            if (this.hashes[id] == hash
+                    && matches(this.words[id], text, start, end)) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the number of slots and the room for words.
+     */
+    private void grow() {
+        int capacity = 2 * this.slots.length;
+        this.hashes = Arrays.copyOf(this.hashes, capacity / 2);
+        this.words = Arrays.copyOf(this.words, capacity / 2);
+        this.slots = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < this.size; id++) {
+            int slot = this.hashes[id] & mask;
+            while (this.slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            this.slots[slot] = id + 1;
+        }
+    }
+
+    /**
+     * Returns the id of the word made of the characters {@code [start, end)}
+     * of {@code text}, adding the word with the next id if it is not in the
+     * dictionary yet.
+     *
+     * @param text
+     *            the text the word occurs in
+     * @param start
+     *            index of the first character of the word
+     * @param end
+     *            index one past the last character of the word
+     * @return the id of the word
+     * @requires text!=NULL and 0 <= start <= end <= |text|
+     * @ensures id = the id of text[start, end)
+     */
+    public int id(CharSequence text, int start, int end) {
+        assert text != null : "Violation of: text is not null";
+        assert 0 <= start && start <= end && end <= text.length()
+                : "Violation of: 0 <= start <= end <= |text|";
+        int hash = hash(text, start, end);
+        int slot = this.slotOf(text, start, end, hash);
+        int id = this.slots[slot] - 1;
+        if (id < 0) {
+            id = this.size;
+            this.hashes[id] = hash;
+            this.words[id] = text.subSequence(start, end).toString();
+            this.slots[slot] = id + 1;
+            this.size++;
+            if (2 * this.size >= this.slots.length) {
+                this.grow();
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of {@code word}, adding it with the next id if it is not
+     * in the dictionary yet.
+     *
+     * @param word
+     *            the word
+     * @return the id of word
+     * @requires word!=NULL
+     */
+    public int id(String word) {
+        assert word != null : "Violation of: word is not null";
+        return this.id(word, 0, word.length());
+    }
+
+    /**
+     * Returns the id of the word made of the characters {@code [start, end)}
+     * of {@code text}, or -1 if it is not in the dictionary.
+     *
+     * @param text
+     *            the text the word occurs in
+     * @param start
+     *            index of the first character of the word
+     * @param end
+     *            index one past the last character of the word
+     * @return the id of the word or -1
+     * @requires text!=NULL and 0 <= start <= end <= |text|
+     */
+    public int indexOf(CharSequence text, int start, int end) {
+        assert text != null : "Violation of: text is not null";
+        assert 0 <= start && start <= end && end <= text.length()
+                : "Violation of: 0 <= start <= end <= |text|";
+        return this.slots[this.slotOf(text, start, end,
+                hash(text, start, end))] - 1;
+    }
+
+    /**
+     * Returns the id of {@code word}, or -1 if it is not in the dictionary.
+     *
+     * @param word
+     *            the word
+     * @return the id of word or -1
+     */
+    public int indexOf(String word) {
+        assert word != null : "Violation of: word is not null";
+        return this.indexOf(word, 0, word.length());
+    }
+
+    /**
+     * Returns the number of distinct words, one more than the largest id.
+     *
+     * @return the number of distinct words
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the word with id {@code id}.
+     *
+     * @param id
+     *            the id of the word
+     * @return the word
+     * @requires 0 <= id < size()
+     */
+    public String word(int id) {
+        assert 0 <= id && id < this.size : "Violation of: 0 <= id < size()";
+        return this.words[id];
+    }
+
+}
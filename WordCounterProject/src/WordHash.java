@@ -0,0 +1,58 @@
+/**
+ * 64-bit hash of words shared by the approximate counting structures. They
+ * need hashes that are spread over all 64 bits and independent of
+ * {@code String.hashCode}, whose values are easy to make collide.
+ *
+ * @author Nyja Gowda
+ *
+ */
+final class WordHash {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private WordHash() {
+    }
+
+    /**
+     * FNV-1a 64-bit offset basis.
+     */
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    /**
+     * FNV-1a 64-bit prime.
+     */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Returns a 64-bit hash of {@code word}: FNV-1a over its characters,
+     * finished with the SplitMix64 mixer so that every bit depends on every
+     * character.
+     *
+     * @param word
+     *            the word
+     * @return the hash of word
+     */
+    static long hash64(CharSequence word) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < word.length(); i++) {
+            h = (h ^ word.charAt(i)) * FNV_PRIME;
+        }
+        return mix(h);
+    }
+
+    /**
+     * SplitMix64 finalizer.
+     *
+     * @param x
+     *            the value to mix
+     * @return the mixed value
+     */
+    static long mix(long x) {
+        long z = x;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+}
@@ -0,0 +1,49 @@
+/**
+ * Orders in which the rows of a word count table can be written.
+ *
+ * @author Nyja Gowda
+ *
+ */
+public enum WordOrder {
+
+    /**
+     * No sorting at all: words are written in order of first occurrence.
+     */
+    FIRST_OCCURRENCE,
+
+    /**
+     * Alphabetical order ignoring case, comparing words with
+     * {@code WordCounter.StringLT} at every comparison.
+     */
+    STRING_LT,
+
+    /**
+     * The same order as {@code STRING_LT}, but each word is case folded once
+     * into a key and the keys are compared instead, so sorting does not fold
+     * the same word again at every comparison.
+     */
+    FOLDED_KEY;
+
+    /**
+     * Returns the key of {@code word} used by {@code FOLDED_KEY}. Comparing two
+     * keys with {@code compareTo} gives the same result as comparing the words
+     * with {@code compareToIgnoreCase}, which folds every character to upper
+     * case and then to lower case.
+     *
+     * @param word
+     *            the word
+     * @return the case folded word
+     */
+    public static String foldedKey(String word) {
+        StringBuilder key = new StringBuilder(word.length());
+        int i = 0;
+        while (i < word.length()) {
+            int cp = word.codePointAt(i);
+            key.appendCodePoint(
+                    Character.toLowerCase(Character.toUpperCase(cp)));
+            i += Character.charCount(cp);
+        }
+        return key.toString();
+    }
+
+}
@@ -0,0 +1,99 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code CountMinSketch}.
+ */
+public class CountMinSketchTest {
+
+    /**
+     * Number of distinct words added, many more than the width of the
+     * sketches, so that counters are shared.
+     */
+    private static final int WORDS = 20000;
+
+    /**
+     * Returns the count of the word numbered {@code n}: a few words are much
+     * more frequent than the others, as in a text.
+     *
+     * @param n
+     *            the number of the word
+     * @return its count
+     */
+    private static long countOf(int n) {
+        return 1 + WORDS / (n + 1);
+    }
+
+    /**
+     * Returns a sketch of every word {@code "w0", "w1", ...} with its count.
+     *
+     * @param epsilon
+     *            bound on the error of an estimate
+     * @param delta
+     *            probability that an estimate goes over that bound
+     * @return the sketch
+     */
+    private static CountMinSketch sketch(double epsilon, double delta) {
+        CountMinSketch sketch = new CountMinSketch(epsilon, delta);
+        for (int n = 0; n < WORDS; n++) {
+            sketch.add("w" + n, countOf(n));
+        }
+        return sketch;
+    }
+
+    /**
+     * Tests that a new sketch estimates 0 for every word.
+     */
+    @Test
+    public void testEmpty() {
+        CountMinSketch sketch = new CountMinSketch(0.01, 0.01);
+        assertEquals(0, sketch.total());
+        assertEquals(0, sketch.estimate("word"));
+    }
+
+    /**
+     * Tests that the estimates of a sketch much wider than the number of
+     * words are the counts.
+     */
+    @Test
+    public void testFewWords() {
+        CountMinSketch sketch = new CountMinSketch(0.0001, 0.001);
+        sketch.add("a", 3);
+        sketch.add("b", 1L << 40);
+        sketch.add("a", 2);
+        assertEquals(5 + (1L << 40), sketch.total());
+        assertEquals(5, sketch.estimate("a"));
+        assertEquals(1L << 40, sketch.estimate("b"));
+    }
+
+    /**
+     * Tests that no estimate is below the true count.
+     */
+    @Test
+    public void testNeverUnderestimates() {
+        CountMinSketch sketch = sketch(0.001, 0.01);
+        for (int n = 0; n < WORDS; n++) {
+            assertTrue(sketch.estimate("w" + n) >= countOf(n));
+        }
+    }
+
+    /**
+     * Tests that the estimates go over the true count by more than
+     * {@code errorBound()} for at most about a fraction {@code delta} of the
+     * words.
+     */
+    @Test
+    public void testErrorBound() {
+        CountMinSketch sketch = sketch(0.001, 0.01);
+        int over = 0;
+        for (int n = 0; n < WORDS; n++) {
+            if (sketch.estimate("w" + n) - countOf(n) > sketch.errorBound()) {
+                over++;
+            }
+        }
+        assertTrue(over <= 2 * sketch.delta() * WORDS);
+    }
+
+}
@@ -0,0 +1,220 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code HtmlReportWriter}.
+ */
+public class HtmlReportWriterTest {
+
+    /**
+     * Number of characters the writer collects before writing them, as in
+     * {@code HtmlReportWriter}.
+     */
+    private static final int BATCH_SIZE = 1 << 16;
+
+    /**
+     * A supplementary character, U+1F600, as a surrogate pair.
+     */
+    private static final String EMOJI = "\ud83d\ude00";
+
+    /**
+     * Returns the text of a report of {@code words}, each with a count of 1,
+     * as {@code HtmlReportWriter} should write it.
+     *
+     * @param inFile
+     *            the (escaped) name in the heading and title
+     * @param words
+     *            the (escaped) words
+     * @return the text of the report
+     */
+    private static String expected(String inFile, String... words) {
+        StringBuilder html = new StringBuilder();
+        html.append("\n<html>\n<head>\n<title>Words Counted in ")
+                .append(inFile).append("</title>\n</head>\n<body>\n")
+                .append("<h2>Words Counted in ").append(inFile)
+                .append("</h2>\n<hr />\n<table border=\"1\">\n")
+                .append("<tr>\n<th>Words</th>\n<th>Counts</th>\n</tr>\n");
+        for (String word : words) {
+            html.append("<tr>\n<td>").append(word)
+                    .append("</td>\n<td>1</td>\n</tr>\n");
+        }
+        html.append("</table>\n</body>\n</html>\n");
+        return html.toString();
+    }
+
+    /**
+     * Writes a report of {@code words}, each with a count of 1, and returns
+     * its bytes.
+     *
+     * @param inFile
+     *            the name in the heading and title
+     * @param words
+     *            the words
+     * @return the bytes of the report
+     * @throws IOException
+     *             if the report cannot be written or read
+     */
+    private static byte[] write(String inFile, String... words)
+            throws IOException {
+        Path outFile = Files.createTempFile("report", ".html");
+        try (HtmlReportWriter out = new HtmlReportWriter(outFile.toString(),
+                inFile)) {
+            for (String word : words) {
+                out.writeRow(word, 1);
+            }
+        }
+        return Files.readAllBytes(outFile);
+    }
+
+    /**
+     * Checks that the bytes of a report of {@code words} are {@code text}
+     * encoded in the default charset.
+     *
+     * @param text
+     *            the text of the report
+     * @param words
+     *            the words
+     * @throws IOException
+     *             if the report cannot be written or read
+     */
+    private static void assertReport(String text, String... words)
+            throws IOException {
+        assertArrayEquals(text.getBytes(Charset.defaultCharset()),
+                write("in.txt", words));
+    }
+
+    /**
+     * Tests that every HTML special character is replaced by its entity and
+     * that the other characters are left alone.
+     */
+    @Test
+    public void testEscape() {
+        StringBuilder out = new StringBuilder("x");
+        HtmlReportWriter.escape("a&b<c>d\"e'f", out);
+        assertEquals("xa&amp;b&lt;c&gt;d&quot;e&#39;f", out.toString());
+    }
+
+    /**
+     * Tests escape of an empty text.
+     */
+    @Test
+    public void testEscapeEmpty() {
+        StringBuilder out = new StringBuilder();
+        HtmlReportWriter.escape("", out);
+        assertEquals("", out.toString());
+    }
+
+    /**
+     * Tests a report with no rows.
+     *
+     * @throws IOException
+     *             if the report cannot be written or read
+     */
+    @Test
+    public void testNoRows() throws IOException {
+        assertReport(expected("in.txt"));
+    }
+
+    /**
+     * Tests that the words and the name of the input file are escaped.
+     *
+     * @throws IOException
+     *             if the report cannot be written or read
+     */
+    @Test
+    public void testRowsAreEscaped() throws IOException {
+        Charset charset = Charset.defaultCharset();
+        String text = expected("a&amp;b.txt", "&lt;b&gt;", "it&#39;s");
+        assertEquals(text, new String(write("a&b.txt", "<b>", "it's"),
+                charset));
+    }
+
+    /**
+     * Tests long counts.
+     *
+     * @throws IOException
+     *             if the report cannot be written or read
+     */
+    @Test
+    public void testLongCount() throws IOException {
+        Path outFile = Files.createTempFile("report", ".html");
+        try (HtmlReportWriter out = new HtmlReportWriter(outFile.toString(),
+                "in.txt")) {
+            out.writeRow("many", Long.MAX_VALUE);
+        }
+        String text = new String(Files.readAllBytes(outFile),
+                Charset.defaultCharset());
+        assertEquals(expected("in.txt", "many").replace("<td>1</td>",
+                "<td>" + Long.MAX_VALUE + "</td>"), text);
+    }
+
+    /**
+     * Tests reports of many rows, which are written in several batches.
+     *
+     * @throws IOException
+     *             if the report cannot be written or read
+     */
+    @Test
+    public void testManyBatches() throws IOException {
+        String[] words = new String[3 * BATCH_SIZE / 8];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = "w" + i;
+        }
+        assertReport(expected("in.txt", words), words);
+    }
+
+    /**
+     * Tests words of supplementary characters long enough that the encoded
+     * batch does not fit in the byte buffer at once, for every position of
+     * the surrogate pairs relative to the end of the buffer, so that the
+     * buffer can fill up between the two halves of a pair.
+     *
+     * @throws IOException
+     *             if the report cannot be written or read
+     */
+    @Test
+    public void testSurrogatePairAtBatchEdge() throws IOException {
+        StringBuilder pairs = new StringBuilder();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            pairs.append(EMOJI);
+        }
+        StringBuilder padding = new StringBuilder();
+        for (int shift = 0; shift < 4; shift++) {
+            String word = padding.toString() + pairs;
+            assertReport(expected("in.txt", word, "x", word), word, "x", word);
+            padding.append('a');
+        }
+    }
+
+    /**
+     * Tests rows that bring the pending characters just past the batch size,
+     * with a supplementary character in every position around it.
+     *
+     * @throws IOException
+     *             if the report cannot be written or read
+     */
+    @Test
+    public void testSurrogatePairAroundBatchSize() throws IOException {
+        String header = expected("in.txt");
+        int prefix = header.length() - "</table>\n</body>\n</html>\n".length();
+        int row = "<tr>\n<td></td>\n<td>1</td>\n</tr>\n".length();
+        for (int shift = -3; shift <= 3; shift++) {
+            StringBuilder word = new StringBuilder();
+            while (prefix + row + word.length() + EMOJI.length() + shift
+                    < BATCH_SIZE) {
+                word.append('a');
+            }
+            word.append(EMOJI);
+            String[] words = {word.toString(), EMOJI + "b", EMOJI};
+            assertReport(expected("in.txt", words), words);
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code HyperLogLog}.
+ */
+public class HyperLogLogTest {
+
+    /**
+     * Number of standard errors an estimate may be off by, which a correct
+     * sketch goes over with a negligible probability.
+     */
+    private static final double TOLERANCE = 4;
+
+    /**
+     * Checks that the estimate of {@code distinct} distinct words, each added
+     * several times, is within the tolerance.
+     *
+     * @param precision
+     *            precision of the sketch
+     * @param distinct
+     *            number of distinct words
+     */
+    private static void assertEstimate(int precision, int distinct) {
+        HyperLogLog sketch = new HyperLogLog(precision);
+        for (int repeat = 0; repeat < 3; repeat++) {
+            for (int n = 0; n < distinct; n++) {
+                sketch.add("w" + n);
+            }
+        }
+        double error = Math.abs(sketch.estimate() - distinct)
+                / (double) distinct;
+        assertTrue("estimate " + sketch.estimate() + " of " + distinct,
+                error <= TOLERANCE * sketch.standardError());
+    }
+
+    /**
+     * Tests that a new sketch estimates 0.
+     */
+    @Test
+    public void testEmpty() {
+        assertEquals(0, new HyperLogLog(HyperLogLog.MIN_PRECISION).estimate());
+    }
+
+    /**
+     * Tests the estimate of a few words, where linear counting is used.
+     */
+    @Test
+    public void testSmallCardinality() {
+        assertEstimate(14, 100);
+        assertEstimate(14, 5000);
+    }
+
+    /**
+     * Tests the estimate of many more words than registers.
+     */
+    @Test
+    public void testLargeCardinality() {
+        assertEstimate(10, 200000);
+        assertEstimate(14, 200000);
+    }
+
+    /**
+     * Tests the smallest and largest precisions.
+     */
+    @Test
+    public void testPrecisionLimits() {
+        assertEstimate(HyperLogLog.MIN_PRECISION, 10000);
+        assertEstimate(HyperLogLog.MAX_PRECISION, 100000);
+    }
+
+    /**
+     * Tests that precisionFor picks the smallest precision with a small
+     * enough standard error.
+     */
+    @Test
+    public void testPrecisionFor() {
+        for (double error : new double[] {0.2, 0.05, 0.01, 0.005}) {
+            int p = HyperLogLog.precisionFor(error);
+            assertTrue(new HyperLogLog(p).standardError() <= error);
+            assertTrue(p == HyperLogLog.MIN_PRECISION
+                    || new HyperLogLog(p - 1).standardError() > error);
+        }
+        assertEquals(HyperLogLog.MIN_PRECISION, HyperLogLog.precisionFor(0.9));
+        assertEquals(HyperLogLog.MAX_PRECISION,
+                HyperLogLog.precisionFor(0.0001));
+    }
+
+}
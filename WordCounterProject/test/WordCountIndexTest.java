@@ -0,0 +1,259 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code WordCountIndex}.
+ */
+public class WordCountIndexTest {
+
+    /**
+     * A charset whose two-byte characters can end with the byte of an ASCII
+     * separator.
+     */
+    private static final Charset SHIFT_JIS = Charset.forName("Shift_JIS");
+
+    /**
+     * Charset of the files of the tests that do not name one.
+     */
+    private static final Charset UTF_8 = StandardCharsets.UTF_8;
+
+    /**
+     * Creates a new file holding {@code text} encoded in {@code charset}, in
+     * a new temporary directory so that its index is next to it.
+     *
+     * @param text
+     *            the text of the file
+     * @param charset
+     *            the charset of the file
+     * @return the file
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    private static Path createFile(String text, Charset charset)
+            throws IOException {
+        Path file = Files.createTempDirectory("index").resolve("log.txt");
+        Files.write(file, text.getBytes(charset));
+        return file;
+    }
+
+    /**
+     * Appends {@code text} encoded in {@code charset} to {@code file}.
+     *
+     * @param file
+     *            the file
+     * @param text
+     *            the text to append
+     * @param charset
+     *            the charset of the file
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    private static void append(Path file, String text, Charset charset)
+            throws IOException {
+        Files.write(file, text.getBytes(charset), StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Checks that {@code actual} has the words and counts that
+     * {@code WordCounter} finds in {@code text}, in the same order.
+     *
+     * @param text
+     *            the text counted
+     * @param actual
+     *            the counts to check
+     */
+    private static void assertCountsOf(String text, WordCounts actual) {
+        WordCounts expected = new WordCounts();
+        WordCounter.countWords(text, expected, WordCounter.SEPARATOR_SET);
+        assertEquals(expected.size(), actual.size());
+        for (int n = 0; n < expected.size(); n++) {
+            assertEquals(expected.word(n), actual.word(n));
+            assertEquals(expected.count(n), actual.count(n));
+        }
+    }
+
+    /**
+     * Tests the first update of a file with no index.
+     *
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    @Test
+    public void testFirstUpdate() throws IOException {
+        String text = "the cat and the hat\n";
+        Path file = createFile(text, UTF_8);
+        WordCountIndex index = new WordCountIndex(file.toString(), UTF_8);
+        assertFalse(index.rebuilt());
+        assertEquals(0, index.offset());
+        assertEquals(text.length(), index.update());
+        assertEquals(text.length(), index.offset());
+        assertCountsOf(text, index.counts());
+        assertTrue(Files.exists(WordCountIndex.indexPath(file.toString())));
+    }
+
+    /**
+     * Tests that a word still being written at the end of the file is left
+     * out of the index, but counted by currentCounts.
+     *
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    @Test
+    public void testUnfinishedWord() throws IOException {
+        Path file = createFile("one two thr", UTF_8);
+        WordCountIndex index = new WordCountIndex(file.toString(), UTF_8);
+        index.update();
+        assertEquals("one two ".length(), index.offset());
+        assertCountsOf("one two", index.counts());
+        assertCountsOf("one two thr", index.currentCounts());
+        append(file, "ee\n", UTF_8);
+        index.update();
+        assertCountsOf("one two three", index.counts());
+    }
+
+    /**
+     * Tests that after several appends, each followed by an update, the
+     * counts are those of the whole file, and that a new index of the file
+     * loads them without counting again.
+     *
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    @Test
+    public void testAppends() throws IOException {
+        String[] parts = {"Four score and se", "ven years ago, our fa",
+            "thers brought forth\n", "a new nation ", "", "and seven\n"};
+        Path file = createFile("", UTF_8);
+        WordCountIndex index = new WordCountIndex(file.toString(), UTF_8);
+        StringBuilder text = new StringBuilder();
+        for (String part : parts) {
+            append(file, part, UTF_8);
+            text.append(part);
+            index.update();
+            assertCountsOf(text.toString(), index.currentCounts());
+        }
+        assertEquals(text.length(), index.offset());
+        assertFalse(index.rebuilt());
+
+        WordCountIndex reloaded = new WordCountIndex(file.toString(), UTF_8);
+        assertFalse(reloaded.rebuilt());
+        assertEquals(text.length(), reloaded.offset());
+        assertEquals(0, reloaded.update());
+        assertCountsOf(text.toString(), reloaded.counts());
+    }
+
+    /**
+     * Tests that the index starts again from byte 0 when the file is
+     * truncated.
+     *
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    @Test
+    public void testRebuildOnTruncate() throws IOException {
+        Path file = createFile("alpha beta gamma delta\n", UTF_8);
+        new WordCountIndex(file.toString(), UTF_8).update();
+        Files.write(file, "alpha beta\n".getBytes(UTF_8));
+
+        WordCountIndex index = new WordCountIndex(file.toString(), UTF_8);
+        assertTrue(index.rebuilt());
+        assertEquals(0, index.offset());
+        index.update();
+        assertCountsOf("alpha beta", index.counts());
+    }
+
+    /**
+     * Tests that the index starts again from byte 0 when the file is
+     * replaced by one at least as long that starts with other bytes, both
+     * when the index is loaded and when it is already open.
+     *
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    @Test
+    public void testRebuildOnReplace() throws IOException {
+        Path file = createFile("alpha beta\n", UTF_8);
+        WordCountIndex open = new WordCountIndex(file.toString(), UTF_8);
+        open.update();
+        String text = "gamma delta alpha\n";
+        Files.write(file, text.getBytes(UTF_8));
+
+        WordCountIndex index = new WordCountIndex(file.toString(), UTF_8);
+        assertTrue(index.rebuilt());
+        index.update();
+        assertCountsOf(text, index.counts());
+
+        open.update();
+        assertTrue(open.rebuilt());
+        assertCountsOf(text, open.counts());
+    }
+
+    /**
+     * Tests that a damaged index is rebuilt rather than reported.
+     *
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    @Test
+    public void testRebuildOnCorruptIndex() throws IOException {
+        String text = "alpha beta alpha\n";
+        Path file = createFile(text, UTF_8);
+        new WordCountIndex(file.toString(), UTF_8).update();
+        Path indexFile = WordCountIndex.indexPath(file.toString());
+        byte[] bytes = Files.readAllBytes(indexFile);
+        Files.write(indexFile, Arrays.copyOf(bytes, bytes.length - 3));
+
+        WordCountIndex index = new WordCountIndex(file.toString(), UTF_8);
+        assertTrue(index.rebuilt());
+        assertEquals(0, index.counts().size());
+        index.update();
+        assertCountsOf(text, index.counts());
+
+        Files.write(indexFile, "not an index".getBytes(UTF_8));
+        index = new WordCountIndex(file.toString(), UTF_8);
+        assertTrue(index.rebuilt());
+        index.update();
+        assertCountsOf(text, index.counts());
+    }
+
+    /**
+     * Regression test: in Shift_JIS the second byte of U+30A1, katakana small
+     * a, is '@', a separator, and the index used to cut the file there,
+     * counting "x" and a broken character instead of the word, and saving
+     * that split.
+     *
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    @Test
+    public void testUpdateDoesNotSplitShiftJisCharacter() throws IOException {
+        String word = "\u30a1x";
+        Path file = createFile(word + " " + word + " " + word, SHIFT_JIS);
+        WordCountIndex index = new WordCountIndex(file.toString(), SHIFT_JIS);
+        index.update();
+        append(file, " ok", SHIFT_JIS);
+        index.update();
+        WordCounts counts = index.currentCounts();
+        assertEquals(2, counts.size());
+        assertEquals(3, counts.count(word));
+        assertEquals(1, counts.count("ok"));
+
+        WordCountIndex reloaded = new WordCountIndex(file.toString(),
+                SHIFT_JIS);
+        assertFalse(reloaded.rebuilt());
+        assertEquals(index.offset(), reloaded.offset());
+        assertEquals(3, reloaded.counts().count(word));
+    }
+
+}
@@ -0,0 +1,114 @@
+import static org.junit.Assert.assertArrayEquals;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for the selection of rows of {@code WordCounter}.
+ */
+public class WordCounterTest {
+
+    /**
+     * Returns counts of the words {@code "w0", "w1", ...} with the given
+     * counts, numbered in that order.
+     *
+     * @param values
+     *            the counts of the words
+     * @return the counts
+     */
+    private static WordCounts countsOf(long... values) {
+        WordCounts counts = new WordCounts();
+        for (int n = 0; n < values.length; n++) {
+            counts.add("w" + n, values[n]);
+        }
+        return counts;
+    }
+
+    /**
+     * Tests topWords of no words.
+     */
+    @Test
+    public void testTopWordsEmpty() {
+        assertArrayEquals(new int[0], WordCounter.topWords(countsOf(), 3));
+    }
+
+    /**
+     * Tests topWords with k = 0.
+     */
+    @Test
+    public void testTopWordsNone() {
+        assertArrayEquals(new int[0],
+                WordCounter.topWords(countsOf(5, 1, 2), 0));
+    }
+
+    /**
+     * Tests that topWords ranks the highest count first.
+     */
+    @Test
+    public void testTopWordsOrder() {
+        WordCounts counts = countsOf(3, 9, 1, 7, 5);
+        assertArrayEquals(new int[] {1, 3, 4},
+                WordCounter.topWords(counts, 3));
+        assertArrayEquals(new int[] {1}, WordCounter.topWords(counts, 1));
+    }
+
+    /**
+     * Tests that topWords ranks words with the same count by order of first
+     * occurrence, also when only some of them are kept.
+     */
+    @Test
+    public void testTopWordsTies() {
+        WordCounts counts = countsOf(2, 4, 2, 4, 2, 4);
+        assertArrayEquals(new int[] {1, 3, 5, 0},
+                WordCounter.topWords(counts, 4));
+        assertArrayEquals(new int[] {1, 3}, WordCounter.topWords(counts, 2));
+    }
+
+    /**
+     * Tests topWords with k larger than the number of words.
+     */
+    @Test
+    public void testTopWordsAll() {
+        WordCounts counts = countsOf(1, 3, 2);
+        assertArrayEquals(new int[] {1, 2, 0},
+                WordCounter.topWords(counts, 10));
+    }
+
+    /**
+     * Tests that topWords ranks counts past the range of an {@code int}.
+     */
+    @Test
+    public void testTopWordsLongCounts() {
+        WordCounts counts = countsOf(1L << 33, 1L << 32, Integer.MAX_VALUE);
+        assertArrayEquals(new int[] {0, 1, 2},
+                WordCounter.topWords(counts, 3));
+    }
+
+    /**
+     * Tests that frequentWords keeps the words with at least the given count,
+     * in order of first occurrence.
+     */
+    @Test
+    public void testFrequentWords() {
+        WordCounts counts = countsOf(3, 1, 5, 2, 3);
+        assertArrayEquals(new int[] {0, 2, 4},
+                WordCounter.frequentWords(counts, 3));
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4},
+                WordCounter.frequentWords(counts, 1));
+        assertArrayEquals(new int[0], WordCounter.frequentWords(counts, 6));
+    }
+
+    /**
+     * Tests that the rows kept by frequentWords can then be sorted by word.
+     */
+    @Test
+    public void testFrequentWordsSorted() {
+        WordCounts counts = new WordCounts();
+        for (String word : new String[] {"the", "The", "a", "cat", "a"}) {
+            counts.increment(word);
+        }
+        int[] order = WordCounter.frequentWords(counts, 1);
+        counts.sort(order, WordOrder.FOLDED_KEY);
+        assertArrayEquals(new int[] {2, 3, 0, 1}, order);
+    }
+
+}
@@ -0,0 +1,230 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture checking that the sequential, parallel, mapped,
+ * pipelined, spilling, batch and index counters all write the same report as
+ * {@code WordCounter} for the files of {@code data}, and for a file made of
+ * them that is large enough to be split into several blocks.
+ */
+public class WordCountersTest {
+
+    /**
+     * Size of the large input file, more than one block of every counter.
+     */
+    private static final int LARGE_SIZE = 9 << 20;
+
+    /**
+     * Memory budget of the spilling counter, small enough for many runs.
+     */
+    private static final long SPILL_BUDGET = 4096;
+
+    /**
+     * Number of threads of the parallel and batch counters.
+     */
+    private static final int THREADS = 4;
+
+    /**
+     * Returns copies of the files of {@code data}, and a large file made of
+     * them, each alone in a new temporary directory so that nothing is written
+     * next to the originals.
+     *
+     * @return the input files
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    private static List<Path> inputs() throws IOException {
+        List<Path> inputs = new ArrayList<>();
+        StringBuilder all = new StringBuilder();
+        try (DirectoryStream<Path> data = Files
+                .newDirectoryStream(Paths.get("data"), "*.txt")) {
+            for (Path original : data) {
+                Path copy = Files.createTempDirectory("counters")
+                        .resolve(original.getFileName());
+                Files.copy(original, copy);
+                inputs.add(copy);
+                all.append(new String(Files.readAllBytes(original),
+                        Charset.defaultCharset())).append('\n');
+            }
+        }
+        assertTrue(inputs.size() > 0);
+        StringBuilder large = new StringBuilder(LARGE_SIZE + all.length());
+        while (large.length() < LARGE_SIZE) {
+            large.append(all);
+        }
+        Path file = Files.createTempDirectory("counters").resolve("large.txt");
+        Files.write(file, large.toString().getBytes(Charset.defaultCharset()));
+        inputs.add(file);
+        return inputs;
+    }
+
+    /**
+     * Returns the text of the report {@code outFile}.
+     *
+     * @param outFile
+     *            the report
+     * @return the text of outFile
+     * @throws IOException
+     *             if outFile cannot be read
+     */
+    private static String read(Path outFile) throws IOException {
+        return new String(Files.readAllBytes(outFile),
+                Charset.defaultCharset());
+    }
+
+    /**
+     * Returns the text of the report of {@code counts}, with the words in
+     * {@code FOLDED_KEY} order and {@code inFile} in the heading.
+     *
+     * @param counts
+     *            the words and their counts
+     * @param inFile
+     *            the input file
+     * @return the text of the report
+     * @throws IOException
+     *             if the report cannot be written or read
+     */
+    private static String report(WordCounts counts, Path inFile)
+            throws IOException {
+        Path outFile = Files.createTempFile("report", ".html");
+        WordCounter.createOpen(counts, counts.sorted(WordOrder.FOLDED_KEY),
+                outFile.toString(), inFile.toString());
+        return read(outFile);
+    }
+
+    /**
+     * Returns the text of the report {@code WordCounter} writes for
+     * {@code inFile}.
+     *
+     * @param inFile
+     *            the input file
+     * @return the text of the report
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    private static String expected(Path inFile) throws IOException {
+        return report(WordCounter.getWordCounts(inFile.toString(),
+                WordCounter.SEPARATOR_SET), inFile);
+    }
+
+    /**
+     * Checks {@code ParallelWordCounter}.
+     *
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    @Test
+    public void testParallel() throws IOException {
+        for (Path inFile : inputs()) {
+            WordCounts counts = ParallelWordCounter
+                    .getWordCounts(inFile.toString(), THREADS);
+            assertEquals(expected(inFile), report(counts, inFile));
+        }
+    }
+
+    /**
+     * Checks {@code MappedWordCounter}.
+     *
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    @Test
+    public void testMapped() throws IOException {
+        for (Path inFile : inputs()) {
+            WordCounts counts = MappedWordCounter
+                    .getWordCounts(inFile.toString());
+            assertEquals(expected(inFile), report(counts, inFile));
+        }
+    }
+
+    /**
+     * Checks {@code PipelinedWordCounter}.
+     *
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    @Test
+    public void testPipelined() throws IOException {
+        for (Path inFile : inputs()) {
+            WordCounts counts = PipelinedWordCounter.getWordCounts(
+                    inFile.toString(), THREADS,
+                    new PipelinedWordCounter.Statistics());
+            assertEquals(expected(inFile), report(counts, inFile));
+        }
+    }
+
+    /**
+     * Checks {@code SpillingWordCounter}, with a budget small enough that the
+     * large file is spilled in many runs.
+     *
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    @Test
+    public void testSpilling() throws IOException {
+        for (Path inFile : inputs()) {
+            Path outFile = Files.createTempFile("report", ".html");
+            Path tempDir = Files.createTempDirectory("runs");
+            int runs = SpillingWordCounter.countToReport(inFile.toString(),
+                    outFile.toString(), SPILL_BUDGET, tempDir);
+            assertEquals(expected(inFile), read(outFile));
+            if (Files.size(inFile) >= LARGE_SIZE) {
+                assertTrue(runs > 1);
+            }
+            try (DirectoryStream<Path> left = Files
+                    .newDirectoryStream(tempDir)) {
+                assertFalse(left.iterator().hasNext());
+            }
+        }
+    }
+
+    /**
+     * Checks the merged counts of {@code BatchWordCounter}.
+     *
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    @Test
+    public void testBatch() throws IOException {
+        for (Path inFile : inputs()) {
+            WordCounts counts = BatchWordCounter.count(
+                    inFile.getParent().toString(), null, true, THREADS);
+            assertEquals(expected(inFile), report(counts, inFile));
+        }
+    }
+
+    /**
+     * Checks {@code WordCountIndex}, both when the index is built and when it
+     * is loaded again.
+     *
+     * @throws IOException
+     *             if a file cannot be read or written
+     */
+    @Test
+    public void testIndex() throws IOException {
+        for (Path inFile : inputs()) {
+            WordCountIndex index = new WordCountIndex(inFile.toString());
+            index.update();
+            Path outFile = Files.createTempFile("report", ".html");
+            index.writeReport(outFile.toString());
+            assertEquals(expected(inFile), read(outFile));
+
+            WordCountIndex reloaded = new WordCountIndex(inFile.toString());
+            reloaded.writeReport(outFile.toString());
+            assertEquals(expected(inFile), read(outFile));
+        }
+    }
+
+}
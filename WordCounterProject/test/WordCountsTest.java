@@ -0,0 +1,165 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+import components.queue.Queue;
+
+/**
+ * JUnit test fixture for {@code WordCounts}.
+ */
+public class WordCountsTest {
+
+    /**
+     * Number of words added by the growth test, many times the initial room
+     * for counts.
+     */
+    private static final int MANY = 20000;
+
+    /**
+     * A count that does not fit in an {@code int}.
+     */
+    private static final long LARGE = 3L << 32;
+
+    /**
+     * Tests that a new object has no words.
+     */
+    @Test
+    public void testConstructor() {
+        WordCounts counts = new WordCounts();
+        assertEquals(0, counts.size());
+        assertEquals(-1, counts.indexOf("word"));
+        assertEquals(0, counts.count("word"));
+    }
+
+    /**
+     * Tests increment by word and by range of a text.
+     */
+    @Test
+    public void testIncrement() {
+        WordCounts counts = new WordCounts();
+        String text = "to be or not to be";
+        assertEquals(0, counts.increment(text, 0, 2));
+        assertEquals(1, counts.increment(text, 3, 5));
+        assertEquals(0, counts.increment("to"));
+        assertEquals(1, counts.increment(text, 16, 18));
+        assertEquals(2, counts.size());
+        assertEquals(2, counts.count("to"));
+        assertEquals(2, counts.count(1));
+        assertEquals("be", counts.word(1));
+    }
+
+    /**
+     * Tests that every word keeps its number and count while the counts grow
+     * past their initial room.
+     */
+    @Test
+    public void testGrowth() {
+        WordCounts counts = new WordCounts();
+        for (int i = 0; i < MANY; i++) {
+            for (int j = 0; j <= i % 3; j++) {
+                counts.increment("w" + i);
+            }
+        }
+        assertEquals(MANY, counts.size());
+        for (int i = 0; i < MANY; i++) {
+            assertEquals(i, counts.indexOf("w" + i));
+            assertEquals(i % 3 + 1, counts.count(i));
+        }
+    }
+
+    /**
+     * Tests that counts go past the range of an {@code int}.
+     */
+    @Test
+    public void testLongCounts() {
+        WordCounts counts = new WordCounts();
+        counts.add("many", LARGE);
+        counts.add("many", Integer.MAX_VALUE);
+        counts.increment("many");
+        assertEquals(LARGE + Integer.MAX_VALUE + 1, counts.count("many"));
+
+        WordCounts more = new WordCounts();
+        more.add("many", LARGE);
+        more.addAll(counts);
+        assertEquals(2 * LARGE + Integer.MAX_VALUE + 1, more.count(0));
+    }
+
+    /**
+     * Tests that addAll adds the counts and numbers the new words after the
+     * words already there, in their order in the other counts.
+     */
+    @Test
+    public void testAddAll() {
+        WordCounts counts = new WordCounts();
+        counts.add("b", 1);
+        counts.add("a", 2);
+        WordCounts other = new WordCounts();
+        other.add("c", 3);
+        other.add("a", 4);
+        other.add("d", 5);
+        counts.addAll(other);
+        assertEquals(4, counts.size());
+        assertEquals("b", counts.word(0));
+        assertEquals("a", counts.word(1));
+        assertEquals("c", counts.word(2));
+        assertEquals("d", counts.word(3));
+        assertEquals(6, counts.count("a"));
+        assertEquals(5, counts.count("d"));
+        assertEquals(3, other.size());
+    }
+
+    /**
+     * Tests the orders of sorted.
+     */
+    @Test
+    public void testSorted() {
+        WordCounts counts = new WordCounts();
+        counts.increment("pear");
+        counts.increment("Apple");
+        counts.increment("apple");
+        counts.increment("banana");
+        int[] first = {0, 1, 2, 3};
+        int[] alphabetical = {1, 2, 3, 0};
+        assertArrayEquals(first, counts.sorted(WordOrder.FIRST_OCCURRENCE));
+        assertArrayEquals(alphabetical, counts.sorted(WordOrder.STRING_LT));
+        assertArrayEquals(alphabetical, counts.sorted(WordOrder.FOLDED_KEY));
+    }
+
+    /**
+     * Tests that sort only reorders the numbers it is given.
+     */
+    @Test
+    public void testSortSubset() {
+        WordCounts counts = new WordCounts();
+        for (String word : new String[] {"d", "c", "b", "a", "E"}) {
+            counts.increment(word);
+        }
+        int[] numbers = {4, 0, 2};
+        counts.sort(numbers, WordOrder.FOLDED_KEY);
+        assertArrayEquals(new int[] {2, 0, 4}, numbers);
+    }
+
+    /**
+     * Tests words and toMap.
+     */
+    @Test
+    public void testWordsAndToMap() {
+        WordCounts counts = new WordCounts();
+        counts.add("x", 2);
+        counts.add("y", 1);
+        Queue<String> words = counts.words();
+        assertEquals(2, words.length());
+        assertEquals("x", words.dequeue());
+        assertEquals("y", words.dequeue());
+        Map<String, Integer> map = new Map1L<>();
+        map.add("z", 1);
+        counts.toMap(map);
+        assertEquals(2, map.size());
+        assertEquals(2, map.value("x").intValue());
+        assertEquals(1, map.value("y").intValue());
+    }
+
+}
@@ -0,0 +1,91 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * JUnit test fixture for {@code WordDictionary}.
+ */
+public class WordDictionaryTest {
+
+    /**
+     * Number of words added by the growth tests, many times the initial
+     * number of slots.
+     */
+    private static final int MANY = 100000;
+
+    /**
+     * Tests that a new dictionary is empty.
+     */
+    @Test
+    public void testConstructor() {
+        WordDictionary dictionary = new WordDictionary();
+        assertEquals(0, dictionary.size());
+        assertEquals(-1, dictionary.indexOf("word"));
+    }
+
+    /**
+     * Tests that ids are given in order of first occurrence and that a word
+     * seen again keeps its id.
+     */
+    @Test
+    public void testIdsAreDense() {
+        WordDictionary dictionary = new WordDictionary();
+        assertEquals(0, dictionary.id("one"));
+        assertEquals(1, dictionary.id("two"));
+        assertEquals(0, dictionary.id("one"));
+        assertEquals(2, dictionary.id("One"));
+        assertEquals(3, dictionary.id(""));
+        assertEquals(4, dictionary.size());
+        assertEquals("two", dictionary.word(1));
+        assertEquals("", dictionary.word(3));
+    }
+
+    /**
+     * Tests that looking a word up by a range of a text gives the same id as
+     * looking up the word itself.
+     */
+    @Test
+    public void testIdOfRange() {
+        WordDictionary dictionary = new WordDictionary();
+        String text = "four score and seven";
+        assertEquals(0, dictionary.id(text, 5, 10));
+        assertEquals(0, dictionary.id("score"));
+        assertEquals(1, dictionary.id("and"));
+        assertEquals(1, dictionary.id(text, 11, 14));
+        assertEquals(1, dictionary.indexOf(text, 11, 14));
+        assertEquals(-1, dictionary.indexOf(text, 0, 4));
+        assertEquals(2, dictionary.size());
+        assertEquals("score", dictionary.word(0));
+    }
+
+    /**
+     * Tests that indexOf does not add the word.
+     */
+    @Test
+    public void testIndexOfUnknownWord() {
+        WordDictionary dictionary = new WordDictionary();
+        dictionary.id("known");
+        assertEquals(-1, dictionary.indexOf("unknown"));
+        assertEquals(1, dictionary.size());
+        assertEquals(0, dictionary.indexOf("known"));
+    }
+
+    /**
+     * Tests that every word keeps its id while the table grows past its
+     * initial size.
+     */
+    @Test
+    public void testGrowth() {
+        WordDictionary dictionary = new WordDictionary();
+        for (int i = 0; i < MANY; i++) {
+            assertEquals(i, dictionary.id("w" + i));
+        }
+        assertEquals(MANY, dictionary.size());
+        for (int i = 0; i < MANY; i++) {
+            assertEquals(i, dictionary.indexOf("w" + i));
+            assertEquals("w" + i, dictionary.word(i));
+        }
+        assertEquals(-1, dictionary.indexOf("w" + MANY));
+    }
+
+}